@@ -1,135 +1,995 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
-public class AVL<T extends Comparable<T>> {
+public class AVL<T extends Comparable<T>> implements Iterable<T> {
+
+    private static final int INITIAL_PATH_CAPACITY = 32;
+    // below this many nodes a set operation is not worth forking
+    private static final int PARALLEL_THRESHOLD = 4096;
 
     private Node<T> root;
 
+    // cached extremes for priority-queue use; null means not known yet
+    private Node<T> min;
+    private Node<T> max;
+
+    // nodes from the root down to the last touched node, reused by every update
+    private Node<T>[] path;
+
+    // In finger mode path[0, fingerDepth) is still the root path of the last access and
+    // lower/upper hold the exclusive key bounds of each subtree on it (null is open).
+    private boolean fingerSearch;
+    private int fingerDepth;
+    private T[] lower;
+    private T[] upper;
+
+    // null unless metrics are wanted, so that a disabled listener costs one branch per event
+    private AVLListener listener;
+
+    @SuppressWarnings("unchecked")
+    public AVL() {
+        this.path = (Node<T>[]) new Node[INITIAL_PATH_CAPACITY];
+    }
+
+    /**
+     * In finger mode contains, insert and delete start from the deepest node on the
+     * previous access path whose subtree can hold the key, instead of from the root.
+     * Keys close to the previous one are then reached in about O(log d) steps, where d
+     * is their distance in sorted order. Lookups then update the finger, so they are no
+     * longer read-only.
+     */
+    @SuppressWarnings("unchecked")
+    public void setFingerSearch(boolean enabled) {
+        this.fingerSearch = enabled;
+        this.fingerDepth = 0;
+        if (enabled && this.lower == null) {
+            this.lower = (T[]) new Comparable[this.path.length];
+            this.upper = (T[]) new Comparable[this.path.length];
+        }
+    }
+
+    /**
+     * Reports comparisons, visited nodes, path lengths and rotations to listener from now on,
+     * or stops reporting if listener is null.
+     */
+    public void setListener(AVLListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Builds a perfectly height-balanced tree from strictly increasing items in O(n).
+     */
+    public static <T extends Comparable<T>> AVL<T> fromSorted(T[] items) {
+        return fromSorted(Arrays.asList(items).iterator(), items.length);
+    }
+
+    /**
+     * Builds a perfectly height-balanced tree from the next n strictly increasing items in O(n).
+     */
+    public static <T extends Comparable<T>> AVL<T> fromSorted(Iterator<? extends T> items, int n) {
+        if (n < 0) {
+            throw new IllegalArgumentException();
+        }
+
+        AVL<T> avl = new AVL<>();
+        avl.root = avl.build(new SortedSource<>(items), n);
+        return avl;
+    }
+
+    /**
+     * Rebuilds a tree from a snapshot written by {@link #writeSnapshot} in O(n).
+     */
+    public static <T extends Comparable<T>> AVL<T> readSnapshot(InputStream in, KeyCodec<T> codec) throws IOException {
+        SnapshotReader<T> reader = new SnapshotReader<>(in, codec);
+        try {
+            return fromSorted(reader, reader.count());
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Writes the keys in order as a binary snapshot; see {@link SnapshotWriter}.
+     */
+    public void writeSnapshot(OutputStream out, KeyCodec<T> codec, boolean compress) throws IOException {
+        SnapshotWriter<T> writer = new SnapshotWriter<>(out, codec, this.size(), compress);
+        for (T item : this) {
+            writer.write(item);
+        }
+        writer.finish();
+    }
+
     public Node<T> getRoot() {
         return this.root;
     }
 
+    public int size() {
+        return this.size(this.root);
+    }
+
     public int height() {
         return height(this.root);
     }
 
+    /**
+     * Returns the key with the given 0-based rank in sorted order.
+     */
+    public T select(int rank) {
+        if (rank < 0 || rank >= this.size()) {
+            throw new IllegalArgumentException();
+        }
+
+        Node<T> node = this.root;
+        while (true) {
+            int leftSize = this.size(node.left);
+            if (rank < leftSize) {
+                node = node.left;
+            } else if (rank > leftSize) {
+                rank -= leftSize + 1;
+                node = node.right;
+            } else {
+                return node.value;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of keys strictly less than item.
+     */
+    public int rank(T item) {
+        int rank = 0;
+        Node<T> node = this.root;
+        while (node != null) {
+            int cmp = item.compareTo(node.value);
+            if (cmp < 0) {
+                node = node.left;
+            } else if (cmp > 0) {
+                rank += this.size(node.left) + 1;
+                node = node.right;
+            } else {
+                return rank + this.size(node.left);
+            }
+        }
+
+        return rank;
+    }
+
+    /**
+     * Returns the number of keys k with lo <= k <= hi.
+     */
+    public int countInRange(T lo, T hi) {
+        if (lo.compareTo(hi) > 0) {
+            return 0;
+        }
+
+        int count = this.rank(hi) - this.rank(lo);
+        return this.contains(hi) ? count + 1 : count;
+    }
+
     public boolean contains(T item) {
+        if (this.fingerSearch) {
+            return this.fingerContains(item);
+        }
+
         Node<T> node = this.search(this.root, item);
         return node != null;
     }
 
     public void insert(T item) {
-        this.root = this.insert(this.root, item);
+        if (this.root == null) {
+            this.root = new Node<>(item);
+            this.min = this.root;
+            this.max = this.root;
+            this.fingerDepth = 0;
+            this.report(0, 0, 1);
+            return;
+        }
+
+        this.ensurePathCapacity();
+
+        int depth = 0;
+        Node<T> node = this.root;
+        T lo = null;
+        T hi = null;
+        if (this.fingerSearch && this.fingerDepth > 0) {
+            depth = this.fingerStart(item);
+            node = this.path[depth];
+            lo = this.lower[depth];
+            hi = this.upper[depth];
+        }
+
+        int start = depth;
+        Node<T> created;
+        while (true) {
+            int cmp = item.compareTo(node.value);
+            this.path[depth] = node;
+            if (this.fingerSearch) {
+                this.lower[depth] = lo;
+                this.upper[depth] = hi;
+            }
+
+            if (cmp == 0) {
+                this.fingerDepth = depth + 1;
+                this.report(depth - start + 1, depth - start + 1, depth + 1);
+                return;
+            }
+
+            depth++;
+            if (cmp < 0) {
+                hi = node.value;
+                if (node.left == null) {
+                    created = new Node<>(item);
+                    node.left = created;
+                    break;
+                }
+                node = node.left;
+            } else {
+                lo = node.value;
+                if (node.right == null) {
+                    created = new Node<>(item);
+                    node.right = created;
+                    break;
+                }
+                node = node.right;
+            }
+        }
+
+        if (lo == null && this.min != null) {
+            this.min = created;
+        }
+        if (hi == null && this.max != null) {
+            this.max = created;
+        }
+
+        if (this.fingerSearch) {
+            this.path[depth] = created;
+            this.lower[depth] = lo;
+            this.upper[depth] = hi;
+            this.fingerDepth = depth + 1;
+        }
+
+        this.report(depth - start, depth - start, depth + 1);
+        this.retrace(depth);
+    }
+
+    /**
+     * Inserts a batch of items. Large batches are sorted and merged with the
+     * existing keys in a single pass that relinks the tree perfectly balanced.
+     */
+    public void insertAll(Collection<? extends T> items) {
+        if (items.isEmpty()) {
+            return;
+        }
+
+        int height = Math.max(this.height(), 1);
+        int size = this.size();
+        if ((long) items.size() * height < size) {
+            for (T item : items) {
+                this.insert(item);
+            }
+            return;
+        }
+
+        @SuppressWarnings("unchecked")
+        T[] batch = items.toArray((T[]) new Comparable[0]);
+        Arrays.sort(batch);
+
+        @SuppressWarnings("unchecked")
+        Node<T>[] existing = (Node<T>[]) new Node[size];
+        int[] count = {0};
+        this.collect(this.root, existing, count);
+
+        @SuppressWarnings("unchecked")
+        Node<T>[] merged = (Node<T>[]) new Node[size + batch.length];
+        int length = 0;
+        int i = 0;
+        int j = 0;
+        while (i < existing.length || j < batch.length) {
+            Node<T> next;
+            if (j == batch.length) {
+                next = existing[i++];
+            } else if (i == existing.length) {
+                next = new Node<>(batch[j++]);
+            } else {
+                int cmp = batch[j].compareTo(existing[i].value);
+                if (cmp < 0) {
+                    next = new Node<>(batch[j++]);
+                } else {
+                    if (cmp == 0) {
+                        j++;
+                    }
+                    next = existing[i++];
+                }
+            }
+
+            if (length == 0 || merged[length - 1].value.compareTo(next.value) < 0) {
+                merged[length++] = next;
+            }
+        }
+
+        this.root = this.link(merged, 0, length);
+        this.forgetCursors();
+    }
+
+    /**
+     * Applies a batch of inserts and deletes sorted by key. When a key occurs more than
+     * once the last update for it wins, as if the batch had been applied one by one.
+     * <p>
+     * The batch is merged in one top-down pass: each node splits the batch around its key,
+     * both halves descend independently, and every subtree the batch reaches is rejoined
+     * and rebalanced once on the way back. Subtrees no update falls into are not visited,
+     * so m updates cost O(m log(n / m + 1)) instead of O(m log n).
+     */
+    public void applyBatch(List<Update<T>> updates) {
+        int count = 0;
+        @SuppressWarnings("unchecked")
+        T[] keys = (T[]) new Comparable[updates.size()];
+        boolean[] deletes = new boolean[keys.length];
+        for (Update<T> update : updates) {
+            if (count > 0) {
+                int cmp = keys[count - 1].compareTo(update.key);
+                if (cmp > 0) {
+                    throw new IllegalArgumentException("Updates must be sorted by key");
+                }
+                if (cmp == 0) {
+                    count--;
+                }
+            }
+            keys[count] = update.key;
+            deletes[count] = update.delete;
+            count++;
+        }
+
+        this.root = this.apply(this.root, keys, deletes, 0, count);
+        this.forgetCursors();
+    }
+
+    /**
+     * Removes the keys greater than or equal to key from this tree and returns them as a new tree.
+     */
+    public AVL<T> splitOff(T key) {
+        Split<T> split = this.split(this.root, key);
+        this.root = split.left;
+        this.forgetCursors();
+
+        AVL<T> greater = new AVL<>();
+        greater.root = split.found == null ? split.right : this.join(null, split.found, split.right);
+        return greater;
+    }
+
+    /**
+     * Appends every key of greater, which must all be larger than the keys of this tree.
+     * greater is left empty.
+     */
+    public void join(AVL<T> greater) {
+        if (this.root != null && greater.root != null
+                && this.getMax(this.root).value.compareTo(this.getMin(greater.root).value) >= 0) {
+            throw new IllegalArgumentException();
+        }
+
+        this.root = this.join2(this.root, greater.root);
+        this.forgetCursors();
+        greater.root = null;
+        greater.forgetCursors();
+    }
+
+    /**
+     * Adds every key of other to this tree using parallel split/join; other is left empty.
+     * The union of a tree with itself leaves it unchanged.
+     */
+    public void union(AVL<T> other) {
+        this.union(other, ForkJoinPool.commonPool());
+    }
+
+    public void union(AVL<T> other, ForkJoinPool pool) {
+        // the split/join would relink nodes that both operands share
+        if (other == this) {
+            return;
+        }
+
+        this.root = pool.invoke(new SetOperation<>(this, SetOperation.UNION, this.root, other.root));
+        this.forgetCursors();
+        other.root = null;
+        other.forgetCursors();
+    }
+
+    /**
+     * Keeps only the keys that other contains too; other is left empty. The intersection
+     * of a tree with itself leaves it unchanged.
+     */
+    public void intersection(AVL<T> other) {
+        this.intersection(other, ForkJoinPool.commonPool());
+    }
+
+    public void intersection(AVL<T> other, ForkJoinPool pool) {
+        if (other == this) {
+            return;
+        }
+
+        this.root = pool.invoke(new SetOperation<>(this, SetOperation.INTERSECTION, this.root, other.root));
+        this.forgetCursors();
+        other.root = null;
+        other.forgetCursors();
+    }
+
+    /**
+     * Removes the keys that other contains; other is left empty. The difference of a tree
+     * with itself empties it.
+     */
+    public void difference(AVL<T> other) {
+        this.difference(other, ForkJoinPool.commonPool());
+    }
+
+    public void difference(AVL<T> other, ForkJoinPool pool) {
+        if (other == this) {
+            this.root = null;
+            this.forgetCursors();
+            return;
+        }
+
+        this.root = pool.invoke(new SetOperation<>(this, SetOperation.DIFFERENCE, this.root, other.root));
+        this.forgetCursors();
+        other.root = null;
+        other.forgetCursors();
     }
 
     public void eachInOrder(Consumer<T> consumer) {
         this.eachInOrder(this.root, consumer);
     }
 
+    @Override
+    public Iterator<T> iterator() {
+        return new RangeIterator<>(this.root, null, null);
+    }
+
+    /**
+     * Lazily iterates the keys k with lo <= k <= hi in order; a null bound is open.
+     * Only the current root-to-node path is held, so memory stays O(height).
+     */
+    public Iterator<T> iterator(T lo, T hi) {
+        return new RangeIterator<>(this.root, lo, hi);
+    }
+
+    @Override
+    public Spliterator<T> spliterator() {
+        return new AVLSpliterator<>(null, this.root, null, null);
+    }
+
+    public Spliterator<T> spliterator(T lo, T hi) {
+        return new AVLSpliterator<>(null, this.root, lo, hi);
+    }
+
+    public Stream<T> stream() {
+        return StreamSupport.stream(this.spliterator(), false);
+    }
+
+    public Stream<T> stream(T lo, T hi) {
+        return StreamSupport.stream(this.spliterator(lo, hi), false);
+    }
+
     public void delete(T item) {
-        this.root = this.delete(this.root, item);
+        if (this.root == null) {
+            return;
+        }
+
+        this.ensurePathCapacity();
+
+        int depth = 0;
+        Node<T> node = this.root;
+        T lo = null;
+        T hi = null;
+        if (this.fingerSearch && this.fingerDepth > 0) {
+            depth = this.fingerStart(item);
+            node = this.path[depth];
+            lo = this.lower[depth];
+            hi = this.upper[depth];
+        }
+
+        int start = depth;
+        while (node != null) {
+            int cmp = item.compareTo(node.value);
+            if (cmp == 0) {
+                break;
+            }
+
+            this.path[depth] = node;
+            if (this.fingerSearch) {
+                this.lower[depth] = lo;
+                this.upper[depth] = hi;
+            }
+
+            depth++;
+            if (cmp < 0) {
+                hi = node.value;
+                node = node.left;
+            } else {
+                lo = node.value;
+                node = node.right;
+            }
+        }
+
+        // the ancestors of the removed position stay a valid finger
+        this.fingerDepth = depth;
+        if (node == null) {
+            this.report(depth - start, depth - start, depth);
+            return;
+        }
+
+        if (node == this.min) {
+            this.min = null;
+        }
+        if (node == this.max) {
+            this.max = null;
+        }
+
+        if (node.left == null || node.right == null) {
+            this.report(depth - start + 1, depth - start + 1, depth + 1);
+            this.replaceChild(depth, node, node.left == null ? node.right : node.left);
+            this.retrace(depth);
+            return;
+        }
+
+        // two children: the successor takes the place of the removed node
+        int comparisons = depth - start + 1;
+        int index = depth;
+        this.path[depth++] = node;
+
+        Node<T> minParent = node;
+        Node<T> min = node.right;
+        while (min.left != null) {
+            this.path[depth++] = min;
+            minParent = min;
+            min = min.left;
+        }
+
+        if (minParent == node) {
+            node.right = min.right;
+        } else {
+            minParent.left = min.right;
+        }
+
+        min.left = node.left;
+        min.right = node.right;
+        min.height = node.height;
+        min.size = node.size;
+        this.path[index] = min;
+        this.replaceChild(index, node, min);
+
+        this.report(comparisons, depth - start + 1, depth + 1);
+        this.retrace(depth);
     }
 
     public void deleteMin() {
-        this.root = this.deleteMin(this.root);
+        this.pollMin();
     }
 
-
     public void deleteMax() {
         if (this.root == null) {
             throw new IllegalArgumentException();
         }
-        this.root = this.deleteMax(this.root);
+        this.pollMax();
     }
-    private Node<T> deleteMin(Node<T> node) {
-        if (node == null) {
+
+    /**
+     * Returns the smallest key, or null if the tree is empty, in O(1) once the minimum is cached.
+     */
+    public T peekMin() {
+        if (this.min == null && this.root != null) {
+            this.min = this.getMin(this.root);
+        }
+        return this.min == null ? null : this.min.value;
+    }
+
+    /**
+     * Returns the largest key, or null if the tree is empty, in O(1) once the maximum is cached.
+     */
+    public T peekMax() {
+        if (this.max == null && this.root != null) {
+            this.max = this.getMax(this.root);
+        }
+        return this.max == null ? null : this.max.value;
+    }
+
+    /**
+     * Removes and returns the smallest key, or null if the tree is empty, in O(log n).
+     * Every node on the left spine holds the size of its subtree for rank and select,
+     * so all of them change whichever end the removal starts from. The walk down needs
+     * no key comparisons, rebalancing usually stops after a level or two, and the next
+     * minimum is read off the removed node's neighbours.
+     */
+    public T pollMin() {
+        if (this.root == null) {
             return null;
         }
 
-        if (node.left == null) {
-            return node.right;
+        this.fingerDepth = 0;
+        this.ensurePathCapacity();
+
+        int depth = 0;
+        Node<T> node = this.root;
+        while (node.left != null) {
+            this.path[depth++] = node;
+            node = node.left;
         }
 
-        node.left = this.deleteMin(node.left);
-        node = this.balance(node);
-        this.updateHeight(node);
-        return node;
+        this.report(0, depth + 1, depth + 1);
+
+        // the minimum has no left child, so its right child (if any) is a leaf
+        Node<T> next = node.right != null ? node.right : depth > 0 ? this.path[depth - 1] : null;
+        this.replaceChild(depth, node, node.right);
+        this.retrace(depth);
+
+        this.min = next;
+        if (node == this.max) {
+            this.max = next;
+        }
+        return node.value;
     }
 
-    private Node<T> deleteMax(Node<T> node) {
-        if (node == null) {
+    /**
+     * Removes and returns the largest key, or null if the tree is empty, in O(log n) for
+     * the same reason as {@link #pollMin()}.
+     */
+    public T pollMax() {
+        if (this.root == null) {
             return null;
         }
-        if (node.right == null) {
-            return node.left;
+
+        this.fingerDepth = 0;
+        this.ensurePathCapacity();
+
+        int depth = 0;
+        Node<T> node = this.root;
+        while (node.right != null) {
+            this.path[depth++] = node;
+            node = node.right;
         }
-        node.right = this.deleteMax(node.right);
-        return node;
+
+        this.report(0, depth + 1, depth + 1);
+
+        Node<T> next = node.left != null ? node.left : depth > 0 ? this.path[depth - 1] : null;
+        this.replaceChild(depth, node, node.left);
+        this.retrace(depth);
+
+        this.max = next;
+        if (node == this.min) {
+            this.min = next;
+        }
+        return node.value;
     }
 
-    private Node<T> delete(Node<T> node, T item) {
-        if (node == null)
-            return null;
+    // Walks the recorded path bottom-up and stops rebalancing as soon as a subtree keeps
+    // its height; the ancestors above it only need their sizes refreshed.
+    private void retrace(int depth) {
+        int i = depth - 1;
+        for (; i >= 0; i--) {
+            Node<T> node = this.path[i];
+            int oldHeight = node.height;
 
-        int cmp = item.compareTo(node.value);
+            this.update(node);
+            Node<T> balanced = this.balance(node);
+            if (balanced != node) {
+                this.replaceChild(i, node, balanced);
+                // a rotation keeps the subtree's position but reshapes everything below it
+                this.path[i] = balanced;
+                if (this.fingerDepth > i + 1) {
+                    this.fingerDepth = i + 1;
+                }
+            }
 
-        if (cmp < 0) {
-            node.left = this.delete(node.left, item);
-        } else if (cmp > 0) {
-            node.right = this.delete(node.right, item);
+            if (balanced.height == oldHeight) {
+                break;
+            }
+        }
+
+        for (i--; i >= 0; i--) {
+            Node<T> node = this.path[i];
+            node.size = this.size(node.left) + this.size(node.right) + 1;
+        }
+    }
+
+    // Links replacement where path[index] used to hang; index 0 is the root.
+    private void replaceChild(int index, Node<T> node, Node<T> replacement) {
+        if (index == 0) {
+            this.root = replacement;
+            return;
+        }
+
+        Node<T> parent = this.path[index - 1];
+        if (parent.left == node) {
+            parent.left = replacement;
         } else {
-            if (node.left == null) {
-                return node.right;
-            } else if (node.right == null) {
-                return node.left;
+            parent.right = replacement;
+        }
+    }
+
+    private void ensurePathCapacity() {
+        int required = height(this.root) + 1;
+        if (this.path.length < required) {
+            this.path = Arrays.copyOf(this.path, Math.max(required, this.path.length * 2));
+            if (this.lower != null) {
+                this.lower = Arrays.copyOf(this.lower, this.path.length);
+                this.upper = Arrays.copyOf(this.upper, this.path.length);
+            }
+        }
+    }
+
+    private boolean fingerContains(T item) {
+        if (this.root == null) {
+            return false;
+        }
+
+        this.ensurePathCapacity();
+
+        int depth = 0;
+        Node<T> node = this.root;
+        T lo = null;
+        T hi = null;
+        if (this.fingerDepth > 0) {
+            depth = this.fingerStart(item);
+            node = this.path[depth];
+            lo = this.lower[depth];
+            hi = this.upper[depth];
+        }
+
+        int start = depth;
+        while (node != null) {
+            int cmp = item.compareTo(node.value);
+            this.path[depth] = node;
+            this.lower[depth] = lo;
+            this.upper[depth] = hi;
+            depth++;
+
+            if (cmp == 0) {
+                this.fingerDepth = depth;
+                this.report(depth - start, depth - start, depth);
+                return true;
+            } else if (cmp < 0) {
+                hi = node.value;
+                node = node.left;
             } else {
-                Node<T> minNode = this.getMin(node.right);
-                minNode.right = this.deleteMin(node.right);
-                minNode.left = node.left;
-                node = minNode;
+                lo = node.value;
+                node = node.right;
             }
+        }
 
+        this.fingerDepth = depth;
+        this.report(depth - start, depth - start, depth);
+        return false;
+    }
 
+    // Climbs the remembered path to the deepest subtree whose key range can hold item.
+    private int fingerStart(T item) {
+        int i = this.fingerDepth - 1;
+        while (i > 0 && !this.inFingerRange(item, i)) {
+            i--;
         }
-        this.updateHeight(node);
-        return balance(node);
+        return i;
     }
-    private void eachInOrder(Node<T> node, Consumer<T> action) {
-        if (node == null) {
-            return;
+
+    private boolean inFingerRange(T item, int level) {
+        return (this.lower[level] == null || item.compareTo(this.lower[level]) > 0)
+                && (this.upper[level] == null || item.compareTo(this.upper[level]) < 0);
+    }
+
+    // Joins l < k < r into one balanced tree, descending the taller side to where heights match.
+    private Node<T> join(Node<T> left, Node<T> middle, Node<T> right) {
+        int leftHeight = this.height(left);
+        int rightHeight = this.height(right);
+        if (leftHeight > rightHeight + 1) {
+            return this.joinRight(left, middle, right);
+        } else if (rightHeight > leftHeight + 1) {
+            return this.joinLeft(left, middle, right);
         }
 
-        this.eachInOrder(node.left, action);
-        action.accept(node.value);
-        this.eachInOrder(node.right, action);
+        middle.left = left;
+        middle.right = right;
+        this.update(middle);
+        return middle;
     }
 
-    private Node<T> insert(Node<T> node, T item) {
+    private Node<T> joinRight(Node<T> left, Node<T> middle, Node<T> right) {
+        if (this.height(left) <= this.height(right) + 1) {
+            middle.left = left;
+            middle.right = right;
+            this.update(middle);
+            return middle;
+        }
+
+        left.right = this.joinRight(left.right, middle, right);
+        this.update(left);
+        return this.balance(left);
+    }
+
+    private Node<T> joinLeft(Node<T> left, Node<T> middle, Node<T> right) {
+        if (this.height(right) <= this.height(left) + 1) {
+            middle.left = left;
+            middle.right = right;
+            this.update(middle);
+            return middle;
+        }
+
+        right.left = this.joinLeft(left, middle, right.left);
+        this.update(right);
+        return this.balance(right);
+    }
+
+    // Joins l < r without a middle key by pulling the maximum out of l.
+    private Node<T> join2(Node<T> left, Node<T> right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+
+        Split<T> last = new Split<>();
+        Node<T> rest = this.splitLast(left, last);
+        return this.join(rest, last.found, right);
+    }
+
+    private Node<T> splitLast(Node<T> node, Split<T> last) {
+        if (node.right == null) {
+            last.found = node;
+            return node.left;
+        }
+
+        node.right = this.splitLast(node.right, last);
+        this.update(node);
+        return this.balance(node);
+    }
+
+    private Split<T> split(Node<T> node, T key) {
         if (node == null) {
-            return new Node<>(item);
+            return new Split<>();
+        }
+
+        int cmp = key.compareTo(node.value);
+        if (cmp == 0) {
+            Split<T> split = new Split<>();
+            split.left = node.left;
+            split.right = node.right;
+            split.found = node;
+            return split;
         }
 
-        int cmp = item.compareTo(node.value);
         if (cmp < 0) {
-            node.left = this.insert(node.left, item);
-        } else if (cmp > 0) {
-            node.right = this.insert(node.right, item);
+            Split<T> split = this.split(node.left, key);
+            split.right = this.join(split.right, node, node.right);
+            return split;
+        }
+
+        Split<T> split = this.split(node.right, key);
+        split.left = this.join(node.left, node, split.left);
+        return split;
+    }
+
+    // Applies the updates [from, to) to the subtree under node and returns its new root.
+    private Node<T> apply(Node<T> node, T[] keys, boolean[] deletes, int from, int to) {
+        if (from == to) {
+            return node;
+        }
+
+        if (node == null) {
+            int inserts = 0;
+            for (int i = from; i < to; i++) {
+                if (!deletes[i]) {
+                    inserts++;
+                }
+            }
+
+            @SuppressWarnings("unchecked")
+            Node<T>[] created = (Node<T>[]) new Node[inserts];
+            int length = 0;
+            for (int i = from; i < to; i++) {
+                if (!deletes[i]) {
+                    created[length++] = new Node<>(keys[i]);
+                }
+            }
+            return this.link(created, 0, length);
         }
 
-        this.updateHeight(node);
+        // first update not below node's key
+        int lo = from;
+        int hi = to;
+        while (lo < hi) {
+            int middle = (lo + hi) >>> 1;
+            if (keys[middle].compareTo(node.value) < 0) {
+                lo = middle + 1;
+            } else {
+                hi = middle;
+            }
+        }
+
+        boolean matched = lo < to && keys[lo].compareTo(node.value) == 0;
+        Node<T> left = this.apply(node.left, keys, deletes, from, lo);
+        Node<T> right = this.apply(node.right, keys, deletes, matched ? lo + 1 : lo, to);
+
+        return matched && deletes[lo] ? this.join2(left, right) : this.join(left, node, right);
+    }
 
-        return balance(node);
+    private void forgetCursors() {
+        this.min = null;
+        this.max = null;
+        this.fingerDepth = 0;
+    }
+
+    private Node<T> getMax(Node<T> node) {
+        while (node.right != null) {
+            node = node.right;
+        }
+        return node;
     }
 
     private Node<T> getMin(Node<T> node) {
-        if (node == null) {
+        while (node.left != null) {
+            node = node.left;
+        }
+        return node;
+    }
+
+    private Node<T> build(SortedSource<T> items, int count) {
+        if (count == 0) {
             return null;
         }
 
-        if (node.left == null) {
-            return node;
+        int leftCount = count / 2;
+        Node<T> left = this.build(items, leftCount);
+        Node<T> node = new Node<>(items.next());
+        node.left = left;
+        node.right = this.build(items, count - leftCount - 1);
+        this.update(node);
+        return node;
+    }
+
+    // Relinks nodes[from, to) into a perfectly balanced subtree.
+    private Node<T> link(Node<T>[] nodes, int from, int to) {
+        if (from == to) {
+            return null;
         }
 
-        return getMin(node.left);
+        int middle = (from + to) >>> 1;
+        Node<T> node = nodes[middle];
+        node.left = this.link(nodes, from, middle);
+        node.right = this.link(nodes, middle + 1, to);
+        this.update(node);
+        return node;
+    }
+
+    private void collect(Node<T> node, Node<T>[] nodes, int[] count) {
+        if (node == null) {
+            return;
+        }
+
+        this.collect(node.left, nodes, count);
+        nodes[count[0]++] = node;
+        this.collect(node.right, nodes, count);
+    }
+
+    private void eachInOrder(Node<T> node, Consumer<T> action) {
+        if (node == null) {
+            return;
+        }
+
+        this.eachInOrder(node.left, action);
+        action.accept(node.value);
+        this.eachInOrder(node.right, action);
     }
 
     private Node<T> rotateLeft(Node<T> node) {
@@ -137,8 +997,8 @@ public class AVL<T extends Comparable<T>> {
         node.right = right.left;
         right.left = node;
 
-        this.updateHeight(node);
-        this.updateHeight(right);
+        this.update(node);
+        this.update(right);
 
         return right;
     }
@@ -148,8 +1008,8 @@ public class AVL<T extends Comparable<T>> {
         node.left = node.left.right;
         left.right = node;
 
-        this.updateHeight(node);
-        this.updateHeight(left);
+        this.update(node);
+        this.update(left);
 
         return left;
     }
@@ -162,12 +1022,18 @@ public class AVL<T extends Comparable<T>> {
             if (childBalance > 0) {
                 node.right = rotateRight(node.right);
             }
+            if (this.listener != null) {
+                this.listener.onRotation(childBalance > 0);
+            }
             return rotateLeft(node);
 
         } else if (balance > 1) {
             int childBalance = this.balanceFactor(node.left);
             if (childBalance < 0) {
-                node.left = this.rotateRight(node.left);
+                node.left = this.rotateLeft(node.left);
+            }
+            if (this.listener != null) {
+                this.listener.onRotation(childBalance < 0);
             }
             return this.rotateRight(node);
         }
@@ -176,19 +1042,29 @@ public class AVL<T extends Comparable<T>> {
     }
 
     private Node<T> search(Node<T> node, T item) {
-        if (node == null) {
-            return null;
-        }
-
-        int cmp = item.compareTo(node.value);
-        if (cmp < 0) {
-            return search(node.left, item);
-        } else if (cmp > 0) {
-            return search(node.right, item);
+        int visited = 0;
+        while (node != null) {
+            visited++;
+            int cmp = item.compareTo(node.value);
+            if (cmp < 0) {
+                node = node.left;
+            } else if (cmp > 0) {
+                node = node.right;
+            } else {
+                break;
+            }
         }
 
+        this.report(visited, visited, visited);
         return node;
     }
+
+    private void report(int comparisons, int visited, int pathLength) {
+        if (this.listener != null) {
+            this.listener.onOperation(comparisons, visited, pathLength);
+        }
+    }
+
     private int balanceFactor(Node<T> node) {
         return height(node.left) - height(node.right);
     }
@@ -200,7 +1076,285 @@ public class AVL<T extends Comparable<T>> {
         return node.height;
     }
 
-    private void updateHeight(Node<T> node) {
+    private int size(Node<T> node) {
+        if (node == null) {
+            return 0;
+        }
+        return node.size;
+    }
+
+    // recomputes the height and subtree size of node from its children
+    private void update(Node<T> node) {
         node.height = Math.max(this.height(node.left), this.height(node.right)) + 1;
+        node.size = this.size(node.left) + this.size(node.right) + 1;
+    }
+
+    private static final class SortedSource<T extends Comparable<T>> {
+        private final Iterator<? extends T> items;
+        private T previous;
+
+        private SortedSource(Iterator<? extends T> items) {
+            this.items = items;
+        }
+
+        private T next() {
+            if (!this.items.hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            T item = this.items.next();
+            if (this.previous != null && this.previous.compareTo(item) >= 0) {
+                throw new IllegalArgumentException("Items must be strictly increasing");
+            }
+
+            this.previous = item;
+            return item;
+        }
+    }
+
+    /**
+     * One insert or delete of a batch passed to {@link #applyBatch}.
+     */
+    public static final class Update<T extends Comparable<T>> {
+        private final T key;
+        private final boolean delete;
+
+        private Update(T key, boolean delete) {
+            this.key = key;
+            this.delete = delete;
+        }
+
+        public static <T extends Comparable<T>> Update<T> insert(T key) {
+            return new Update<>(key, false);
+        }
+
+        public static <T extends Comparable<T>> Update<T> delete(T key) {
+            return new Update<>(key, true);
+        }
+
+        public T getKey() {
+            return this.key;
+        }
+
+        public boolean isDelete() {
+            return this.delete;
+        }
+    }
+
+    // keys below, the matching node (if any) and keys above a split key
+    private static final class Split<T extends Comparable<T>> {
+        private Node<T> left;
+        private Node<T> found;
+        private Node<T> right;
+    }
+
+    // Split/join set algebra: the second tree is split around the first tree's root and the
+    // two halves recurse independently, forked when they are large enough to pay off.
+    private static final class SetOperation<T extends Comparable<T>> extends RecursiveTask<Node<T>> {
+        private static final long serialVersionUID = 1L;
+
+        private static final int UNION = 0;
+        private static final int INTERSECTION = 1;
+        private static final int DIFFERENCE = 2;
+
+        private final AVL<T> tree;
+        private final int operation;
+        private final Node<T> first;
+        private final Node<T> second;
+
+        private SetOperation(AVL<T> tree, int operation, Node<T> first, Node<T> second) {
+            this.tree = tree;
+            this.operation = operation;
+            this.first = first;
+            this.second = second;
+        }
+
+        @Override
+        protected Node<T> compute() {
+            if (this.first == null) {
+                return this.operation == UNION ? this.second : null;
+            }
+            if (this.second == null) {
+                return this.operation == INTERSECTION ? null : this.first;
+            }
+
+            Node<T> pivot = this.first;
+            Split<T> split = this.tree.split(this.second, pivot.value);
+            Node<T> pivotLeft = pivot.left;
+            Node<T> pivotRight = pivot.right;
+
+            SetOperation<T> leftTask = new SetOperation<>(this.tree, this.operation, pivotLeft, split.left);
+            SetOperation<T> rightTask = new SetOperation<>(this.tree, this.operation, pivotRight, split.right);
+
+            Node<T> left;
+            Node<T> right;
+            if (this.tree.size(pivotLeft) + this.tree.size(split.left) > PARALLEL_THRESHOLD
+                    && this.tree.size(pivotRight) + this.tree.size(split.right) > PARALLEL_THRESHOLD) {
+                leftTask.fork();
+                right = rightTask.compute();
+                left = leftTask.join();
+            } else {
+                left = leftTask.compute();
+                right = rightTask.compute();
+            }
+
+            boolean keepPivot = this.operation == UNION
+                    || (this.operation == INTERSECTION) == (split.found != null);
+            return keepPivot ? this.tree.join(left, pivot, right) : this.tree.join2(left, right);
+        }
+    }
+
+    private static final class RangeIterator<T extends Comparable<T>> implements Iterator<T> {
+        private final T hi;
+        // every stacked node is >= lo; its right subtree is still to be visited
+        private final Deque<Node<T>> stack;
+        private Node<T> next;
+
+        private RangeIterator(Node<T> root, T lo, T hi) {
+            this.hi = hi;
+            this.stack = new ArrayDeque<>();
+
+            Node<T> node = root;
+            while (node != null) {
+                if (lo != null && node.value.compareTo(lo) < 0) {
+                    node = node.right;
+                } else {
+                    this.stack.push(node);
+                    node = node.left;
+                }
+            }
+
+            this.advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.next != null;
+        }
+
+        @Override
+        public T next() {
+            if (this.next == null) {
+                throw new NoSuchElementException();
+            }
+
+            T value = this.next.value;
+            this.advance();
+            return value;
+        }
+
+        private void advance() {
+            Node<T> node = this.stack.poll();
+            if (node == null || (this.hi != null && node.value.compareTo(this.hi) > 0)) {
+                this.next = null;
+                this.stack.clear();
+                return;
+            }
+
+            this.next = node;
+            for (Node<T> child = node.right; child != null; child = child.left) {
+                this.stack.push(child);
+            }
+        }
+    }
+
+    // Covers head (if any) followed by the keys of subtree within [lo, hi]. Splitting hands
+    // the left subtree of the current root to the new spliterator and keeps the root and
+    // its right subtree, so both halves are whole subtrees.
+    private static final class AVLSpliterator<T extends Comparable<T>> implements Spliterator<T> {
+        private final T lo;
+        private final T hi;
+        private Node<T> head;
+        private Node<T> subtree;
+        private RangeIterator<T> iterator;
+        // exact when both bounds are open, an upper bound otherwise
+        private long estimate;
+
+        private AVLSpliterator(Node<T> head, Node<T> subtree, T lo, T hi) {
+            this.head = head;
+            this.subtree = subtree;
+            this.lo = lo;
+            this.hi = hi;
+            this.estimate = (head == null ? 0 : 1) + (subtree == null ? 0 : subtree.size);
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            if (this.head != null) {
+                Node<T> node = this.head;
+                this.head = null;
+                this.estimate--;
+                action.accept(node.value);
+                return true;
+            }
+
+            if (this.iterator == null) {
+                this.iterator = new RangeIterator<>(this.subtree, this.lo, this.hi);
+                this.subtree = null;
+            }
+
+            if (!this.iterator.hasNext()) {
+                this.estimate = 0;
+                return false;
+            }
+
+            this.estimate--;
+            action.accept(this.iterator.next());
+            return true;
+        }
+
+        @Override
+        public Spliterator<T> trySplit() {
+            if (this.iterator != null) {
+                return null;
+            }
+
+            Node<T> node = this.subtree;
+            while (node != null) {
+                if (this.lo != null && node.value.compareTo(this.lo) < 0) {
+                    node = node.right;
+                } else if (this.hi != null && node.value.compareTo(this.hi) > 0) {
+                    node = node.left;
+                } else {
+                    break;
+                }
+            }
+
+            if (node == null) {
+                this.subtree = null;
+                return null;
+            }
+
+            if (this.head == null && node.left == null) {
+                this.head = node;
+                this.subtree = node.right;
+                return this.trySplit();
+            }
+
+            AVLSpliterator<T> prefix = new AVLSpliterator<>(this.head, node.left, this.lo, this.hi);
+            this.head = node;
+            this.subtree = node.right;
+            this.estimate = 1 + (node.right == null ? 0 : node.right.size);
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return this.estimate;
+        }
+
+        @Override
+        public int characteristics() {
+            int characteristics = ORDERED | DISTINCT | SORTED | NONNULL;
+            if (this.lo == null && this.hi == null) {
+                characteristics |= SIZED | SUBSIZED;
+            }
+            return characteristics;
+        }
+
+        @Override
+        public Comparator<? super T> getComparator() {
+            return null;
+        }
     }
 }
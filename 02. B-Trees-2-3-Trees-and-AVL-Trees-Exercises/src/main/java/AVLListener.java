@@ -0,0 +1,19 @@
+/**
+ * Receives the work done by an {@link AVL} tree. Calls happen inside the operation, so
+ * implementations should be cheap. Most calls come from the thread that operates on the
+ * tree, but union, intersection and difference rebalance on ForkJoin workers and call
+ * {@link #onRotation} from several threads at once, so implementations must be thread-safe.
+ */
+public interface AVLListener {
+
+    /**
+     * Called once per search, insert, delete or poll. comparisons counts key compares,
+     * nodesVisited the nodes touched, and pathLength the depth of the deepest node touched.
+     */
+    void onOperation(int comparisons, int nodesVisited, int pathLength);
+
+    /**
+     * Called for every rebalancing step; a double rotation is reported once.
+     */
+    void onRotation(boolean doubleRotation);
+}
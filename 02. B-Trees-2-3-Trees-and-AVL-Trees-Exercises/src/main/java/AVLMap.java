@@ -0,0 +1,1143 @@
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+
+/**
+ * Sorted map backed by an AVL tree, usable wherever a {@link java.util.TreeMap} over
+ * naturally ordered keys is. Updates use the same iterative insert and delete as
+ * {@link AVL}. Sub-map, head-map, tail-map and descending views share the tree and copy
+ * nothing; like TreeMap's views, their size() walks the range.
+ */
+public class AVLMap<K extends Comparable<K>, V> extends AbstractMap<K, V> implements NavigableMap<K, V> {
+
+    private static final int INITIAL_PATH_CAPACITY = 32;
+
+    private static final class Node<K, V> implements Map.Entry<K, V> {
+        private final K key;
+        private V value;
+        private Node<K, V> left;
+        private Node<K, V> right;
+        private int height;
+
+        private Node(K key, V value) {
+            this.key = key;
+            this.value = value;
+            this.height = 1;
+        }
+
+        @Override
+        public K getKey() {
+            return this.key;
+        }
+
+        @Override
+        public V getValue() {
+            return this.value;
+        }
+
+        @Override
+        public V setValue(V value) {
+            V old = this.value;
+            this.value = value;
+            return old;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Map.Entry)) {
+                return false;
+            }
+            Map.Entry<?, ?> entry = (Map.Entry<?, ?>) o;
+            return this.key.equals(entry.getKey()) && Objects.equals(this.value, entry.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return this.key.hashCode() ^ Objects.hashCode(this.value);
+        }
+
+        @Override
+        public String toString() {
+            return this.key + "=" + this.value;
+        }
+    }
+
+    private Node<K, V> root;
+    private int size;
+    // bumped by every structural change so that iterators can fail fast
+    private int modCount;
+
+    private Node<K, V>[] path;
+
+    @SuppressWarnings("unchecked")
+    public AVLMap() {
+        this.path = (Node<K, V>[]) new Node[INITIAL_PATH_CAPACITY];
+    }
+
+    public AVLMap(Map<? extends K, ? extends V> map) {
+        this();
+        this.putAll(map);
+    }
+
+    public int height() {
+        return height(this.root);
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return this.getNode(key) != null;
+    }
+
+    @Override
+    public V get(Object key) {
+        Node<K, V> node = this.getNode(key);
+        return node == null ? null : node.value;
+    }
+
+    @Override
+    public V put(K key, V value) {
+        Objects.requireNonNull(key);
+        if (this.root == null) {
+            this.root = new Node<>(key, value);
+            this.size = 1;
+            this.modCount++;
+            return null;
+        }
+
+        this.ensurePathCapacity();
+
+        int depth = 0;
+        Node<K, V> node = this.root;
+        while (true) {
+            int cmp = key.compareTo(node.key);
+            if (cmp == 0) {
+                return node.setValue(value);
+            }
+
+            this.path[depth++] = node;
+            if (cmp < 0) {
+                if (node.left == null) {
+                    node.left = new Node<>(key, value);
+                    break;
+                }
+                node = node.left;
+            } else {
+                if (node.right == null) {
+                    node.right = new Node<>(key, value);
+                    break;
+                }
+                node = node.right;
+            }
+        }
+
+        this.size++;
+        this.modCount++;
+        this.retrace(depth);
+        return null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V remove(Object key) {
+        if (this.root == null) {
+            return null;
+        }
+
+        this.ensurePathCapacity();
+
+        K item = (K) key;
+        int depth = 0;
+        Node<K, V> node = this.root;
+        while (node != null) {
+            int cmp = item.compareTo(node.key);
+            if (cmp == 0) {
+                break;
+            }
+
+            this.path[depth++] = node;
+            node = cmp < 0 ? node.left : node.right;
+        }
+
+        if (node == null) {
+            return null;
+        }
+
+        this.size--;
+        this.modCount++;
+
+        if (node.left == null || node.right == null) {
+            this.replaceChild(depth, node, node.left == null ? node.right : node.left);
+            this.retrace(depth);
+            return node.value;
+        }
+
+        // two children: the successor takes the place of the removed node
+        int index = depth;
+        this.path[depth++] = node;
+
+        Node<K, V> minParent = node;
+        Node<K, V> min = node.right;
+        while (min.left != null) {
+            this.path[depth++] = min;
+            minParent = min;
+            min = min.left;
+        }
+
+        if (minParent == node) {
+            node.right = min.right;
+        } else {
+            minParent.left = min.right;
+        }
+
+        min.left = node.left;
+        min.right = node.right;
+        min.height = node.height;
+        this.path[index] = min;
+        this.replaceChild(index, node, min);
+
+        this.retrace(depth);
+        return node.value;
+    }
+
+    @Override
+    public void clear() {
+        this.root = null;
+        this.size = 0;
+        this.modCount++;
+    }
+
+    @Override
+    public Comparator<? super K> comparator() {
+        return null;
+    }
+
+    @Override
+    public K firstKey() {
+        return key(this.firstNode());
+    }
+
+    @Override
+    public K lastKey() {
+        return key(this.lastNode());
+    }
+
+    @Override
+    public Map.Entry<K, V> firstEntry() {
+        return exportEntry(this.firstNode());
+    }
+
+    @Override
+    public Map.Entry<K, V> lastEntry() {
+        return exportEntry(this.lastNode());
+    }
+
+    @Override
+    public Map.Entry<K, V> pollFirstEntry() {
+        return this.poll(this.firstNode());
+    }
+
+    @Override
+    public Map.Entry<K, V> pollLastEntry() {
+        return this.poll(this.lastNode());
+    }
+
+    @Override
+    public Map.Entry<K, V> lowerEntry(K key) {
+        return exportEntry(this.floorNode(key, false));
+    }
+
+    @Override
+    public K lowerKey(K key) {
+        return keyOrNull(this.floorNode(key, false));
+    }
+
+    @Override
+    public Map.Entry<K, V> floorEntry(K key) {
+        return exportEntry(this.floorNode(key, true));
+    }
+
+    @Override
+    public K floorKey(K key) {
+        return keyOrNull(this.floorNode(key, true));
+    }
+
+    @Override
+    public Map.Entry<K, V> ceilingEntry(K key) {
+        return exportEntry(this.ceilingNode(key, true));
+    }
+
+    @Override
+    public K ceilingKey(K key) {
+        return keyOrNull(this.ceilingNode(key, true));
+    }
+
+    @Override
+    public Map.Entry<K, V> higherEntry(K key) {
+        return exportEntry(this.ceilingNode(key, false));
+    }
+
+    @Override
+    public K higherKey(K key) {
+        return keyOrNull(this.ceilingNode(key, false));
+    }
+
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+        return new EntrySet(null);
+    }
+
+    @Override
+    public NavigableSet<K> keySet() {
+        return this.navigableKeySet();
+    }
+
+    @Override
+    public NavigableSet<K> navigableKeySet() {
+        return new KeySet<>(this);
+    }
+
+    @Override
+    public NavigableSet<K> descendingKeySet() {
+        return this.descendingMap().navigableKeySet();
+    }
+
+    @Override
+    public NavigableMap<K, V> descendingMap() {
+        return new SubMap(true, null, false, true, null, false, true);
+    }
+
+    @Override
+    public NavigableMap<K, V> subMap(K fromKey, boolean fromInclusive, K toKey, boolean toInclusive) {
+        if (fromKey.compareTo(toKey) > 0) {
+            throw new IllegalArgumentException("fromKey > toKey");
+        }
+        return new SubMap(false, fromKey, fromInclusive, false, toKey, toInclusive, false);
+    }
+
+    @Override
+    public NavigableMap<K, V> headMap(K toKey, boolean inclusive) {
+        Objects.requireNonNull(toKey);
+        return new SubMap(true, null, false, false, toKey, inclusive, false);
+    }
+
+    @Override
+    public NavigableMap<K, V> tailMap(K fromKey, boolean inclusive) {
+        Objects.requireNonNull(fromKey);
+        return new SubMap(false, fromKey, inclusive, true, null, false, false);
+    }
+
+    @Override
+    public SortedMap<K, V> subMap(K fromKey, K toKey) {
+        return this.subMap(fromKey, true, toKey, false);
+    }
+
+    @Override
+    public SortedMap<K, V> headMap(K toKey) {
+        return this.headMap(toKey, false);
+    }
+
+    @Override
+    public SortedMap<K, V> tailMap(K fromKey) {
+        return this.tailMap(fromKey, true);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Node<K, V> getNode(Object key) {
+        K item = (K) Objects.requireNonNull(key);
+        Node<K, V> node = this.root;
+        while (node != null) {
+            int cmp = item.compareTo(node.key);
+            if (cmp < 0) {
+                node = node.left;
+            } else if (cmp > 0) {
+                node = node.right;
+            } else {
+                return node;
+            }
+        }
+
+        return null;
+    }
+
+    private Node<K, V> firstNode() {
+        Node<K, V> node = this.root;
+        if (node != null) {
+            while (node.left != null) {
+                node = node.left;
+            }
+        }
+        return node;
+    }
+
+    private Node<K, V> lastNode() {
+        Node<K, V> node = this.root;
+        if (node != null) {
+            while (node.right != null) {
+                node = node.right;
+            }
+        }
+        return node;
+    }
+
+    // smallest node above key, or at key if inclusive
+    private Node<K, V> ceilingNode(K key, boolean inclusive) {
+        Node<K, V> best = null;
+        Node<K, V> node = this.root;
+        while (node != null) {
+            int cmp = key.compareTo(node.key);
+            if (cmp == 0 && inclusive) {
+                return node;
+            }
+
+            if (cmp < 0) {
+                best = node;
+                node = node.left;
+            } else {
+                node = node.right;
+            }
+        }
+
+        return best;
+    }
+
+    // largest node below key, or at key if inclusive
+    private Node<K, V> floorNode(K key, boolean inclusive) {
+        Node<K, V> best = null;
+        Node<K, V> node = this.root;
+        while (node != null) {
+            int cmp = key.compareTo(node.key);
+            if (cmp == 0 && inclusive) {
+                return node;
+            }
+
+            if (cmp > 0) {
+                best = node;
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+
+        return best;
+    }
+
+    private Map.Entry<K, V> poll(Node<K, V> node) {
+        if (node == null) {
+            return null;
+        }
+
+        Map.Entry<K, V> entry = exportEntry(node);
+        this.remove(node.key);
+        return entry;
+    }
+
+    private void retrace(int depth) {
+        for (int i = depth - 1; i >= 0; i--) {
+            Node<K, V> node = this.path[i];
+            int oldHeight = node.height;
+
+            this.updateHeight(node);
+            Node<K, V> balanced = this.balance(node);
+            if (balanced != node) {
+                this.replaceChild(i, node, balanced);
+            }
+
+            if (balanced.height == oldHeight) {
+                return;
+            }
+        }
+    }
+
+    private void replaceChild(int index, Node<K, V> node, Node<K, V> replacement) {
+        if (index == 0) {
+            this.root = replacement;
+            return;
+        }
+
+        Node<K, V> parent = this.path[index - 1];
+        if (parent.left == node) {
+            parent.left = replacement;
+        } else {
+            parent.right = replacement;
+        }
+    }
+
+    private void ensurePathCapacity() {
+        int required = height(this.root) + 1;
+        if (this.path.length < required) {
+            this.path = Arrays.copyOf(this.path, Math.max(required, this.path.length * 2));
+        }
+    }
+
+    private Node<K, V> rotateLeft(Node<K, V> node) {
+        Node<K, V> right = node.right;
+        node.right = right.left;
+        right.left = node;
+
+        this.updateHeight(node);
+        this.updateHeight(right);
+
+        return right;
+    }
+
+    private Node<K, V> rotateRight(Node<K, V> node) {
+        Node<K, V> left = node.left;
+        node.left = left.right;
+        left.right = node;
+
+        this.updateHeight(node);
+        this.updateHeight(left);
+
+        return left;
+    }
+
+    private Node<K, V> balance(Node<K, V> node) {
+        int balance = this.balanceFactor(node);
+
+        if (balance < -1) {
+            if (this.balanceFactor(node.right) > 0) {
+                node.right = this.rotateRight(node.right);
+            }
+            return this.rotateLeft(node);
+        } else if (balance > 1) {
+            if (this.balanceFactor(node.left) < 0) {
+                node.left = this.rotateLeft(node.left);
+            }
+            return this.rotateRight(node);
+        }
+
+        return node;
+    }
+
+    private int balanceFactor(Node<K, V> node) {
+        return height(node.left) - height(node.right);
+    }
+
+    private void updateHeight(Node<K, V> node) {
+        node.height = Math.max(height(node.left), height(node.right)) + 1;
+    }
+
+    private static int height(Node<?, ?> node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static <K, V> Map.Entry<K, V> exportEntry(Node<K, V> node) {
+        return node == null ? null : new AbstractMap.SimpleImmutableEntry<>(node.key, node.value);
+    }
+
+    private static <K> K keyOrNull(Node<K, ?> node) {
+        return node == null ? null : node.key;
+    }
+
+    private static <K> K key(Node<K, ?> node) {
+        if (node == null) {
+            throw new NoSuchElementException();
+        }
+        return node.key;
+    }
+
+    /**
+     * In-order walk over [start, end] in either direction, where a null bound is open.
+     * The stack holds the nodes whose keys are still ahead, so a step costs O(1) amortized.
+     */
+    private final class EntryIterator implements Iterator<Map.Entry<K, V>> {
+        private final Deque<Node<K, V>> stack;
+        private final K end;
+        private final boolean endInclusive;
+        private final boolean descending;
+        private Node<K, V> last;
+        private int expectedModCount;
+
+        private EntryIterator(K start, boolean startInclusive, K end, boolean endInclusive, boolean descending) {
+            this.stack = new ArrayDeque<>();
+            this.end = end;
+            this.endInclusive = endInclusive;
+            this.descending = descending;
+            this.expectedModCount = AVLMap.this.modCount;
+            this.seek(start, startInclusive);
+        }
+
+        @Override
+        public boolean hasNext() {
+            Node<K, V> next = this.stack.peek();
+            return next != null && !this.pastEnd(next.key);
+        }
+
+        @Override
+        public Map.Entry<K, V> next() {
+            if (AVLMap.this.modCount != this.expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (!this.hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            Node<K, V> node = this.stack.pop();
+            if (this.descending) {
+                for (Node<K, V> child = node.left; child != null; child = child.right) {
+                    this.stack.push(child);
+                }
+            } else {
+                for (Node<K, V> child = node.right; child != null; child = child.left) {
+                    this.stack.push(child);
+                }
+            }
+
+            this.last = node;
+            return node;
+        }
+
+        @Override
+        public void remove() {
+            if (this.last == null) {
+                throw new IllegalStateException();
+            }
+            if (AVLMap.this.modCount != this.expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+
+            // removal may rotate the nodes on the stack, so look the position up again
+            AVLMap.this.remove(this.last.key);
+            this.stack.clear();
+            this.seek(this.last.key, false);
+            this.expectedModCount = AVLMap.this.modCount;
+            this.last = null;
+        }
+
+        // pushes the root path of the first key at or past start
+        private void seek(K start, boolean inclusive) {
+            Node<K, V> node = AVLMap.this.root;
+            while (node != null) {
+                int cmp = start == null ? (this.descending ? 1 : -1) : start.compareTo(node.key);
+                if (this.descending) {
+                    cmp = -cmp;
+                }
+
+                if (cmp < 0 || (cmp == 0 && inclusive)) {
+                    this.stack.push(node);
+                    node = this.descending ? node.right : node.left;
+                } else {
+                    node = this.descending ? node.left : node.right;
+                }
+            }
+        }
+
+        private boolean pastEnd(K key) {
+            if (this.end == null) {
+                return false;
+            }
+
+            int cmp = key.compareTo(this.end);
+            if (this.descending) {
+                cmp = -cmp;
+            }
+            return cmp > 0 || (cmp == 0 && !this.endInclusive);
+        }
+    }
+
+    private final class EntrySet extends AbstractSet<Map.Entry<K, V>> {
+        // null for the whole map
+        private final SubMap range;
+
+        private EntrySet(SubMap range) {
+            this.range = range;
+        }
+
+        @Override
+        public Iterator<Map.Entry<K, V>> iterator() {
+            return this.range == null
+                    ? new EntryIterator(null, false, null, false, false)
+                    : this.range.entryIterator();
+        }
+
+        @Override
+        public int size() {
+            return this.range == null ? AVLMap.this.size : this.range.size();
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean contains(Object o) {
+            if (!(o instanceof Map.Entry)) {
+                return false;
+            }
+
+            Map.Entry<?, ?> entry = (Map.Entry<?, ?>) o;
+            if (this.range != null && !this.range.inRange((K) entry.getKey())) {
+                return false;
+            }
+            Node<K, V> node = AVLMap.this.getNode(entry.getKey());
+            return node != null && Objects.equals(node.value, entry.getValue());
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            if (!this.contains(o)) {
+                return false;
+            }
+
+            AVLMap.this.remove(((Map.Entry<?, ?>) o).getKey());
+            return true;
+        }
+    }
+
+    private static final class KeySet<K> extends AbstractSet<K> implements NavigableSet<K> {
+        private final NavigableMap<K, ?> map;
+
+        private KeySet(NavigableMap<K, ?> map) {
+            this.map = map;
+        }
+
+        @Override
+        public Iterator<K> iterator() {
+            return keys(this.map.entrySet().iterator());
+        }
+
+        @Override
+        public Iterator<K> descendingIterator() {
+            return keys(this.map.descendingMap().entrySet().iterator());
+        }
+
+        @Override
+        public int size() {
+            return this.map.size();
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return this.map.isEmpty();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return this.map.containsKey(o);
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            int size = this.map.size();
+            this.map.remove(o);
+            return this.map.size() != size;
+        }
+
+        @Override
+        public void clear() {
+            this.map.clear();
+        }
+
+        @Override
+        public Comparator<? super K> comparator() {
+            return this.map.comparator();
+        }
+
+        @Override
+        public K first() {
+            return this.map.firstKey();
+        }
+
+        @Override
+        public K last() {
+            return this.map.lastKey();
+        }
+
+        @Override
+        public K lower(K key) {
+            return this.map.lowerKey(key);
+        }
+
+        @Override
+        public K floor(K key) {
+            return this.map.floorKey(key);
+        }
+
+        @Override
+        public K ceiling(K key) {
+            return this.map.ceilingKey(key);
+        }
+
+        @Override
+        public K higher(K key) {
+            return this.map.higherKey(key);
+        }
+
+        @Override
+        public K pollFirst() {
+            return keyOrNull(this.map.pollFirstEntry());
+        }
+
+        @Override
+        public K pollLast() {
+            return keyOrNull(this.map.pollLastEntry());
+        }
+
+        @Override
+        public NavigableSet<K> descendingSet() {
+            return new KeySet<>(this.map.descendingMap());
+        }
+
+        @Override
+        public NavigableSet<K> subSet(K fromElement, boolean fromInclusive, K toElement, boolean toInclusive) {
+            return new KeySet<>(this.map.subMap(fromElement, fromInclusive, toElement, toInclusive));
+        }
+
+        @Override
+        public NavigableSet<K> headSet(K toElement, boolean inclusive) {
+            return new KeySet<>(this.map.headMap(toElement, inclusive));
+        }
+
+        @Override
+        public NavigableSet<K> tailSet(K fromElement, boolean inclusive) {
+            return new KeySet<>(this.map.tailMap(fromElement, inclusive));
+        }
+
+        @Override
+        public SortedSet<K> subSet(K fromElement, K toElement) {
+            return this.subSet(fromElement, true, toElement, false);
+        }
+
+        @Override
+        public SortedSet<K> headSet(K toElement) {
+            return this.headSet(toElement, false);
+        }
+
+        @Override
+        public SortedSet<K> tailSet(K fromElement) {
+            return this.tailSet(fromElement, true);
+        }
+
+        private static <K> K keyOrNull(Map.Entry<K, ?> entry) {
+            return entry == null ? null : entry.getKey();
+        }
+
+        private static <K> Iterator<K> keys(Iterator<? extends Map.Entry<K, ?>> entries) {
+            return new Iterator<>() {
+                @Override
+                public boolean hasNext() {
+                    return entries.hasNext();
+                }
+
+                @Override
+                public K next() {
+                    return entries.next().getKey();
+                }
+
+                @Override
+                public void remove() {
+                    entries.remove();
+                }
+            };
+        }
+    }
+
+    /**
+     * View of the keys between lo and hi, where fromStart and toEnd mark open ends.
+     * The bounds are absolute; descending only flips the direction the view reports in.
+     */
+    private final class SubMap extends AbstractMap<K, V> implements NavigableMap<K, V> {
+        private final boolean fromStart;
+        private final K lo;
+        private final boolean loInclusive;
+        private final boolean toEnd;
+        private final K hi;
+        private final boolean hiInclusive;
+        private final boolean descending;
+
+        private SubMap(boolean fromStart, K lo, boolean loInclusive,
+                       boolean toEnd, K hi, boolean hiInclusive, boolean descending) {
+            this.fromStart = fromStart;
+            this.lo = lo;
+            this.loInclusive = loInclusive;
+            this.toEnd = toEnd;
+            this.hi = hi;
+            this.hiInclusive = hiInclusive;
+            this.descending = descending;
+        }
+
+        @Override
+        public int size() {
+            if (this.fromStart && this.toEnd) {
+                return AVLMap.this.size;
+            }
+
+            int count = 0;
+            for (Iterator<Map.Entry<K, V>> it = this.entryIterator(); it.hasNext(); it.next()) {
+                count++;
+            }
+            return count;
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return this.lowest() == null;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean containsKey(Object key) {
+            return this.inRange((K) key) && AVLMap.this.containsKey(key);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V get(Object key) {
+            return this.inRange((K) key) ? AVLMap.this.get(key) : null;
+        }
+
+        @Override
+        public V put(K key, V value) {
+            if (!this.inRange(key)) {
+                throw new IllegalArgumentException("key out of range");
+            }
+            return AVLMap.this.put(key, value);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V remove(Object key) {
+            return this.inRange((K) key) ? AVLMap.this.remove(key) : null;
+        }
+
+        @Override
+        public Comparator<? super K> comparator() {
+            return this.descending ? Collections.reverseOrder() : null;
+        }
+
+        @Override
+        public K firstKey() {
+            return key(this.descending ? this.highest() : this.lowest());
+        }
+
+        @Override
+        public K lastKey() {
+            return key(this.descending ? this.lowest() : this.highest());
+        }
+
+        @Override
+        public Map.Entry<K, V> firstEntry() {
+            return exportEntry(this.descending ? this.highest() : this.lowest());
+        }
+
+        @Override
+        public Map.Entry<K, V> lastEntry() {
+            return exportEntry(this.descending ? this.lowest() : this.highest());
+        }
+
+        @Override
+        public Map.Entry<K, V> pollFirstEntry() {
+            return AVLMap.this.poll(this.descending ? this.highest() : this.lowest());
+        }
+
+        @Override
+        public Map.Entry<K, V> pollLastEntry() {
+            return AVLMap.this.poll(this.descending ? this.lowest() : this.highest());
+        }
+
+        @Override
+        public Map.Entry<K, V> lowerEntry(K key) {
+            return exportEntry(this.descending ? this.ceiling(key, false) : this.floor(key, false));
+        }
+
+        @Override
+        public K lowerKey(K key) {
+            return keyOrNull(this.descending ? this.ceiling(key, false) : this.floor(key, false));
+        }
+
+        @Override
+        public Map.Entry<K, V> floorEntry(K key) {
+            return exportEntry(this.descending ? this.ceiling(key, true) : this.floor(key, true));
+        }
+
+        @Override
+        public K floorKey(K key) {
+            return keyOrNull(this.descending ? this.ceiling(key, true) : this.floor(key, true));
+        }
+
+        @Override
+        public Map.Entry<K, V> ceilingEntry(K key) {
+            return exportEntry(this.descending ? this.floor(key, true) : this.ceiling(key, true));
+        }
+
+        @Override
+        public K ceilingKey(K key) {
+            return keyOrNull(this.descending ? this.floor(key, true) : this.ceiling(key, true));
+        }
+
+        @Override
+        public Map.Entry<K, V> higherEntry(K key) {
+            return exportEntry(this.descending ? this.floor(key, false) : this.ceiling(key, false));
+        }
+
+        @Override
+        public K higherKey(K key) {
+            return keyOrNull(this.descending ? this.floor(key, false) : this.ceiling(key, false));
+        }
+
+        @Override
+        public Set<Map.Entry<K, V>> entrySet() {
+            return new EntrySet(this);
+        }
+
+        @Override
+        public NavigableSet<K> keySet() {
+            return this.navigableKeySet();
+        }
+
+        @Override
+        public NavigableSet<K> navigableKeySet() {
+            return new KeySet<>(this);
+        }
+
+        @Override
+        public NavigableSet<K> descendingKeySet() {
+            return this.descendingMap().navigableKeySet();
+        }
+
+        @Override
+        public NavigableMap<K, V> descendingMap() {
+            return new SubMap(this.fromStart, this.lo, this.loInclusive,
+                    this.toEnd, this.hi, this.hiInclusive, !this.descending);
+        }
+
+        @Override
+        public NavigableMap<K, V> subMap(K fromKey, boolean fromInclusive, K toKey, boolean toInclusive) {
+            if (!this.inRange(fromKey, fromInclusive)) {
+                throw new IllegalArgumentException("fromKey out of range");
+            }
+            if (!this.inRange(toKey, toInclusive)) {
+                throw new IllegalArgumentException("toKey out of range");
+            }
+
+            int cmp = fromKey.compareTo(toKey);
+            if (this.descending ? cmp < 0 : cmp > 0) {
+                throw new IllegalArgumentException("fromKey > toKey");
+            }
+
+            return this.descending
+                    ? new SubMap(false, toKey, toInclusive, false, fromKey, fromInclusive, true)
+                    : new SubMap(false, fromKey, fromInclusive, false, toKey, toInclusive, false);
+        }
+
+        @Override
+        public NavigableMap<K, V> headMap(K toKey, boolean inclusive) {
+            if (!this.inRange(toKey, inclusive)) {
+                throw new IllegalArgumentException("toKey out of range");
+            }
+
+            return this.descending
+                    ? new SubMap(false, toKey, inclusive, this.toEnd, this.hi, this.hiInclusive, true)
+                    : new SubMap(this.fromStart, this.lo, this.loInclusive, false, toKey, inclusive, false);
+        }
+
+        @Override
+        public NavigableMap<K, V> tailMap(K fromKey, boolean inclusive) {
+            if (!this.inRange(fromKey, inclusive)) {
+                throw new IllegalArgumentException("fromKey out of range");
+            }
+
+            return this.descending
+                    ? new SubMap(this.fromStart, this.lo, this.loInclusive, false, fromKey, inclusive, true)
+                    : new SubMap(false, fromKey, inclusive, this.toEnd, this.hi, this.hiInclusive, false);
+        }
+
+        @Override
+        public SortedMap<K, V> subMap(K fromKey, K toKey) {
+            return this.subMap(fromKey, true, toKey, false);
+        }
+
+        @Override
+        public SortedMap<K, V> headMap(K toKey) {
+            return this.headMap(toKey, false);
+        }
+
+        @Override
+        public SortedMap<K, V> tailMap(K fromKey) {
+            return this.tailMap(fromKey, true);
+        }
+
+        private Iterator<Map.Entry<K, V>> entryIterator() {
+            K low = this.fromStart ? null : this.lo;
+            K high = this.toEnd ? null : this.hi;
+            return this.descending
+                    ? new EntryIterator(high, this.hiInclusive, low, this.loInclusive, true)
+                    : new EntryIterator(low, this.loInclusive, high, this.hiInclusive, false);
+        }
+
+        private Node<K, V> lowest() {
+            Node<K, V> node = this.fromStart ? AVLMap.this.firstNode() : AVLMap.this.ceilingNode(this.lo, this.loInclusive);
+            return node == null || this.tooHigh(node.key) ? null : node;
+        }
+
+        private Node<K, V> highest() {
+            Node<K, V> node = this.toEnd ? AVLMap.this.lastNode() : AVLMap.this.floorNode(this.hi, this.hiInclusive);
+            return node == null || this.tooLow(node.key) ? null : node;
+        }
+
+        private Node<K, V> ceiling(K key, boolean inclusive) {
+            if (this.tooLow(key)) {
+                return this.lowest();
+            }
+
+            Node<K, V> node = AVLMap.this.ceilingNode(key, inclusive);
+            return node == null || this.tooHigh(node.key) ? null : node;
+        }
+
+        private Node<K, V> floor(K key, boolean inclusive) {
+            if (this.tooHigh(key)) {
+                return this.highest();
+            }
+
+            Node<K, V> node = AVLMap.this.floorNode(key, inclusive);
+            return node == null || this.tooLow(node.key) ? null : node;
+        }
+
+        private boolean inRange(K key) {
+            return !this.tooLow(key) && !this.tooHigh(key);
+        }
+
+        // like inRange, but an exclusive bound of the view is still accepted as a bound
+        private boolean inRange(K key, boolean inclusive) {
+            if (inclusive) {
+                return this.inRange(key);
+            }
+
+            return (this.fromStart || key.compareTo(this.lo) >= 0) && (this.toEnd || key.compareTo(this.hi) <= 0);
+        }
+
+        private boolean tooLow(K key) {
+            if (this.fromStart) {
+                return false;
+            }
+
+            int cmp = key.compareTo(this.lo);
+            return cmp < 0 || (cmp == 0 && !this.loInclusive);
+        }
+
+        private boolean tooHigh(K key) {
+            if (this.toEnd) {
+                return false;
+            }
+
+            int cmp = key.compareTo(this.hi);
+            return cmp > 0 || (cmp == 0 && !this.hiInclusive);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link AVLListener} that keeps running totals. The counters are {@link LongAdder}s, so
+ * the parallel set operations may report into it from several threads and
+ * {@link #snapshot()} may be called while the tree keeps working. A snapshot reads each
+ * counter separately, so the totals in it can be a few events apart from one another.
+ */
+public class AVLMetrics implements AVLListener {
+
+    private final LongAdder operations = new LongAdder();
+    private final LongAdder comparisons = new LongAdder();
+    private final LongAdder nodesVisited = new LongAdder();
+    private final LongAccumulator maxPathLength = new LongAccumulator(Math::max, 0);
+    private final LongAdder singleRotations = new LongAdder();
+    private final LongAdder doubleRotations = new LongAdder();
+
+    @Override
+    public void onOperation(int comparisons, int nodesVisited, int pathLength) {
+        this.operations.increment();
+        this.comparisons.add(comparisons);
+        this.nodesVisited.add(nodesVisited);
+        this.maxPathLength.accumulate(pathLength);
+    }
+
+    @Override
+    public void onRotation(boolean doubleRotation) {
+        if (doubleRotation) {
+            this.doubleRotations.increment();
+        } else {
+            this.singleRotations.increment();
+        }
+    }
+
+    public Snapshot snapshot() {
+        return new Snapshot(this.operations.sum(), this.comparisons.sum(), this.nodesVisited.sum(),
+                (int) this.maxPathLength.get(), this.singleRotations.sum(), this.doubleRotations.sum());
+    }
+
+    /**
+     * Zeroes the totals. Events reported while the reset runs may be kept or dropped.
+     */
+    public void reset() {
+        this.operations.reset();
+        this.comparisons.reset();
+        this.nodesVisited.reset();
+        this.maxPathLength.reset();
+        this.singleRotations.reset();
+        this.doubleRotations.reset();
+    }
+
+    public static final class Snapshot {
+        private final long operations;
+        private final long comparisons;
+        private final long nodesVisited;
+        private final int maxPathLength;
+        private final long singleRotations;
+        private final long doubleRotations;
+
+        private Snapshot(long operations, long comparisons, long nodesVisited,
+                         int maxPathLength, long singleRotations, long doubleRotations) {
+            this.operations = operations;
+            this.comparisons = comparisons;
+            this.nodesVisited = nodesVisited;
+            this.maxPathLength = maxPathLength;
+            this.singleRotations = singleRotations;
+            this.doubleRotations = doubleRotations;
+        }
+
+        public long getOperations() {
+            return this.operations;
+        }
+
+        public long getComparisons() {
+            return this.comparisons;
+        }
+
+        public long getNodesVisited() {
+            return this.nodesVisited;
+        }
+
+        public int getMaxPathLength() {
+            return this.maxPathLength;
+        }
+
+        public long getSingleRotations() {
+            return this.singleRotations;
+        }
+
+        public long getDoubleRotations() {
+            return this.doubleRotations;
+        }
+
+        public double comparisonsPerOperation() {
+            return this.operations == 0 ? 0 : (double) this.comparisons / this.operations;
+        }
+
+        /**
+         * One line of key=value pairs, e.g. for a log scraper.
+         */
+        @Override
+        public String toString() {
+            return String.format("operations=%d comparisons=%d nodesVisited=%d maxPathLength=%d"
+                            + " singleRotations=%d doubleRotations=%d",
+                    this.operations, this.comparisons, this.nodesVisited,
+                    this.maxPathLength, this.singleRotations, this.doubleRotations);
+        }
+    }
+}
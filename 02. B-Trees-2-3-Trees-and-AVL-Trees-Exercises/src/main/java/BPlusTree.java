@@ -0,0 +1,299 @@
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * B+ tree: every key lives in a leaf, inner nodes hold only separator copies for routing,
+ * and each leaf links to the next one. A range scan is one descent to the leaf of the low
+ * bound followed by a walk along the leaf chain, and never climbs back through the inner
+ * nodes. Order 3, the default, is the B+ variant of {@link TwoThreeTree}.
+ * <p>
+ * Insertion follows the 2-3 tree: a full node splits and hands its parent a one-key node
+ * with the two halves, which the parent absorbs or, being full itself, splits again. A
+ * leaf split copies the first key of the new right leaf up; an inner split moves its
+ * middle key up.
+ */
+public class BPlusTree<K extends Comparable<K>> {
+
+    private static final class Node<K> {
+        // one spare slot so that a node can overflow before it is split
+        private final Object[] keys;
+        private final Node<K>[] children;
+        private Node<K> next;
+        private int count;
+
+        @SuppressWarnings("unchecked")
+        private Node(int order, boolean leaf) {
+            this.keys = new Object[order];
+            this.children = leaf ? null : (Node<K>[]) new Node[order + 1];
+        }
+
+        private boolean isLeaf() {
+            return this.children == null;
+        }
+
+        @SuppressWarnings("unchecked")
+        private K key(int index) {
+            return (K) this.keys[index];
+        }
+    }
+
+    private final int order;
+
+    private Node<K> root;
+    private Node<K> first;
+    private int size;
+    private int height;
+
+    public BPlusTree() {
+        this(3);
+    }
+
+    public BPlusTree(int order) {
+        if (order < 3) {
+            throw new IllegalArgumentException("order must be at least 3: " + order);
+        }
+
+        this.order = order;
+    }
+
+    public int order() {
+        return this.order;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Returns the number of levels, leaves included; 0 for an empty tree.
+     */
+    public int height() {
+        return this.height;
+    }
+
+    public boolean contains(K key) {
+        if (this.root == null) {
+            return false;
+        }
+
+        Node<K> leaf = this.findLeaf(key);
+        int index = lowerBound(leaf, key);
+        return index < leaf.count && leaf.key(index).compareTo(key) == 0;
+    }
+
+    /**
+     * Adds key unless it is present; returns whether it was added.
+     */
+    public boolean insert(K key) {
+        if (this.root == null) {
+            this.root = new Node<>(this.order, true);
+            this.root.keys[0] = key;
+            this.root.count = 1;
+            this.first = this.root;
+            this.size = 1;
+            this.height = 1;
+            return true;
+        }
+
+        int oldSize = this.size;
+        Node<K> toFix = this.insertNode(this.root, key);
+        if (toFix != null) {
+            this.root = toFix;
+            this.height++;
+        }
+
+        return this.size != oldSize;
+    }
+
+    /**
+     * Passes every key in [lo, hi] to consumer in order.
+     */
+    public void range(K lo, K hi, Consumer<K> consumer) {
+        if (this.root == null || lo.compareTo(hi) > 0) {
+            return;
+        }
+
+        Node<K> leaf = this.findLeaf(lo);
+        int index = lowerBound(leaf, lo);
+        while (leaf != null) {
+            for (; index < leaf.count; index++) {
+                K key = leaf.key(index);
+                if (key.compareTo(hi) > 0) {
+                    return;
+                }
+                consumer.accept(key);
+            }
+            leaf = leaf.next;
+            index = 0;
+        }
+    }
+
+    public void eachInOrder(Consumer<K> consumer) {
+        for (Node<K> leaf = this.first; leaf != null; leaf = leaf.next) {
+            for (int i = 0; i < leaf.count; i++) {
+                consumer.accept(leaf.key(i));
+            }
+        }
+    }
+
+    public void clear() {
+        this.root = null;
+        this.first = null;
+        this.size = 0;
+        this.height = 0;
+    }
+
+    /**
+     * Checks key order and separators, node fill, that all leaves are at the same depth
+     * and that the leaf chain visits every key.
+     */
+    boolean isValid() {
+        if (this.root == null) {
+            return this.first == null && this.size == 0;
+        }
+
+        int chained = 0;
+        K previous = null;
+        for (Node<K> leaf = this.first; leaf != null; leaf = leaf.next) {
+            for (int i = 0; i < leaf.count; i++) {
+                if (previous != null && previous.compareTo(leaf.key(i)) >= 0) {
+                    return false;
+                }
+                previous = leaf.key(i);
+                chained++;
+            }
+        }
+
+        return chained == this.size && this.isValid(this.root, null, null, 1);
+    }
+
+    private boolean isValid(Node<K> node, K lo, K hi, int level) {
+        int minKeys = node == this.root ? 1 : (node.isLeaf() ? this.order / 2 : (this.order + 1) / 2 - 1);
+        if (node.count > this.order - 1 || node.count < minKeys) {
+            return false;
+        }
+        for (int i = 0; i < node.count; i++) {
+            K key = node.key(i);
+            if ((lo != null && key.compareTo(lo) < 0) || (hi != null && key.compareTo(hi) >= 0)
+                    || (i > 0 && node.key(i - 1).compareTo(key) >= 0)) {
+                return false;
+            }
+        }
+        if (node.isLeaf()) {
+            return level == this.height;
+        }
+        for (int i = 0; i <= node.count; i++) {
+            K childLo = i == 0 ? lo : node.key(i - 1);
+            K childHi = i == node.count ? hi : node.key(i);
+            if (!this.isValid(node.children[i], childLo, childHi, level + 1)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Returns null, or a one-key inner node with the two halves of node after a split.
+    private Node<K> insertNode(Node<K> node, K key) {
+        if (node.isLeaf()) {
+            int index = lowerBound(node, key);
+            if (index < node.count && node.key(index).compareTo(key) == 0) {
+                return null;
+            }
+
+            System.arraycopy(node.keys, index, node.keys, index + 1, node.count - index);
+            node.keys[index] = key;
+            node.count++;
+            this.size++;
+            if (node.count < this.order) {
+                return null;
+            }
+
+            Node<K> right = new Node<>(this.order, true);
+            int middle = node.count / 2;
+            right.count = node.count - middle;
+            System.arraycopy(node.keys, middle, right.keys, 0, right.count);
+            Arrays.fill(node.keys, middle, node.count, null);
+            node.count = middle;
+            right.next = node.next;
+            node.next = right;
+
+            return this.newParent(right.key(0), node, right);
+        }
+
+        int index = upperBound(node, key);
+        Node<K> toFix = this.insertNode(node.children[index], key);
+        if (toFix == null) {
+            return null;
+        }
+
+        // absorb the separator and the new right half of the split child
+        System.arraycopy(node.keys, index, node.keys, index + 1, node.count - index);
+        System.arraycopy(node.children, index + 1, node.children, index + 2, node.count - index);
+        node.keys[index] = toFix.keys[0];
+        node.children[index + 1] = toFix.children[1];
+        node.count++;
+        if (node.count < this.order) {
+            return null;
+        }
+
+        Node<K> right = new Node<>(this.order, false);
+        int middle = node.count / 2;
+        K separator = node.key(middle);
+        right.count = node.count - middle - 1;
+        System.arraycopy(node.keys, middle + 1, right.keys, 0, right.count);
+        System.arraycopy(node.children, middle + 1, right.children, 0, right.count + 1);
+        Arrays.fill(node.keys, middle, node.count, null);
+        Arrays.fill(node.children, middle + 1, node.count + 1, null);
+        node.count = middle;
+
+        return this.newParent(separator, node, right);
+    }
+
+    private Node<K> newParent(K key, Node<K> left, Node<K> right) {
+        Node<K> parent = new Node<>(this.order, false);
+        parent.keys[0] = key;
+        parent.children[0] = left;
+        parent.children[1] = right;
+        parent.count = 1;
+        return parent;
+    }
+
+    // A separator is the least key of the subtree to its right, so equal keys go right.
+    private Node<K> findLeaf(K key) {
+        Node<K> node = this.root;
+        while (!node.isLeaf()) {
+            node = node.children[upperBound(node, key)];
+        }
+        return node;
+    }
+
+    // index of the first key in node that is not less than key
+    private static <K extends Comparable<K>> int lowerBound(Node<K> node, K key) {
+        int lo = 0;
+        int hi = node.count;
+        while (lo < hi) {
+            int middle = (lo + hi) >>> 1;
+            if (node.key(middle).compareTo(key) < 0) {
+                lo = middle + 1;
+            } else {
+                hi = middle;
+            }
+        }
+        return lo;
+    }
+
+    // index of the first key in node that is greater than key
+    private static <K extends Comparable<K>> int upperBound(Node<K> node, K key) {
+        int lo = 0;
+        int hi = node.count;
+        while (lo < hi) {
+            int middle = (lo + hi) >>> 1;
+            if (node.key(middle).compareTo(key) <= 0) {
+                lo = middle + 1;
+            } else {
+                hi = middle;
+            }
+        }
+        return lo;
+    }
+}
@@ -0,0 +1,537 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * B-tree of configurable order: every node has at most order children, and every node
+ * but the root at least ceil(order / 2), i.e. the minimum degree. Order 3 is the 2-3
+ * tree. Keys and children are kept in arrays inside the node and searched by binary
+ * search, so a lookup costs one pointer chase per level and the levels number about
+ * log(n) / log(order / 2).
+ * <p>
+ * Updates are iterative: the root path is recorded on the way down, and splits, borrows
+ * and merges walk back up it.
+ */
+public class BTree<K extends Comparable<K>> {
+
+    private static final int INITIAL_PATH_CAPACITY = 16;
+
+    private static final class Node<K> {
+        // one spare slot so that a node can overflow before it is split
+        private final Object[] keys;
+        private final Node<K>[] children;
+        private int count;
+
+        @SuppressWarnings("unchecked")
+        private Node(int order, boolean leaf) {
+            this.keys = new Object[order];
+            this.children = leaf ? null : (Node<K>[]) new Node[order + 1];
+        }
+
+        private boolean isLeaf() {
+            return this.children == null;
+        }
+
+        @SuppressWarnings("unchecked")
+        private K key(int index) {
+            return (K) this.keys[index];
+        }
+    }
+
+    private final int order;
+    private final int minKeys;
+
+    private Node<K> root;
+    private int size;
+    private int height;
+
+    // nodes from the root down to the last touched node, and the child index taken in each
+    private Node<K>[] path;
+    private int[] indexes;
+
+    public BTree() {
+        this(3);
+    }
+
+    @SuppressWarnings("unchecked")
+    public BTree(int order) {
+        if (order < 3) {
+            throw new IllegalArgumentException("order must be at least 3: " + order);
+        }
+
+        this.order = order;
+        this.minKeys = (order + 1) / 2 - 1;
+        this.path = (Node<K>[]) new Node[INITIAL_PATH_CAPACITY];
+        this.indexes = new int[INITIAL_PATH_CAPACITY];
+    }
+
+    /**
+     * Builds a tree from strictly increasing keys in one pass and O(n), without knowing
+     * their number in advance. Leaves are packed left to right, the key after each full
+     * leaf becomes a separator, and the levels above are packed from the separators the
+     * same way. Each node gets about fillFactor * (order - 1) keys, but never fewer than
+     * the minimum; a fill factor below 1 leaves room for later inserts to land without
+     * splits. The last node of each level is merged with or evened out against the node
+     * before it if it would be under the minimum.
+     */
+    public static <K extends Comparable<K>> BTree<K> bulkLoad(int order, Iterator<? extends K> keys, double fillFactor) {
+        if (!(fillFactor > 0 && fillFactor <= 1)) {
+            throw new IllegalArgumentException("fill factor must be in (0, 1]: " + fillFactor);
+        }
+
+        BTree<K> tree = new BTree<>(order);
+        double keysPerNode = Math.max(Math.max(1, tree.minKeys), fillFactor * (order - 1));
+
+        List<Node<K>> level = new ArrayList<>();
+        List<K> separators = new ArrayList<>();
+        Node<K> leaf = new Node<>(order, true);
+        int quota = quota(keysPerNode, 0);
+        K previous = null;
+        while (keys.hasNext()) {
+            K key = keys.next();
+            if (previous != null && previous.compareTo(key) >= 0) {
+                throw new IllegalArgumentException("keys must be strictly increasing: " + key);
+            }
+            previous = key;
+            tree.size++;
+
+            if (leaf.count < quota) {
+                leaf.keys[leaf.count++] = key;
+            } else {
+                level.add(leaf);
+                separators.add(key);
+                leaf = new Node<>(order, true);
+                quota = quota(keysPerNode, level.size());
+            }
+        }
+
+        if (tree.size == 0) {
+            return tree;
+        }
+        level.add(leaf);
+        tree.evenOutLast(level, separators);
+        tree.height = 1;
+
+        while (level.size() > 1) {
+            List<Node<K>> parents = new ArrayList<>();
+            List<K> upper = new ArrayList<>();
+            Node<K> parent = new Node<>(order, false);
+            parent.children[0] = level.get(0);
+            quota = quota(keysPerNode, 0);
+            for (int i = 1; i < level.size(); i++) {
+                K separator = separators.get(i - 1);
+                if (parent.count < quota) {
+                    parent.keys[parent.count++] = separator;
+                    parent.children[parent.count] = level.get(i);
+                } else {
+                    parents.add(parent);
+                    upper.add(separator);
+                    parent = new Node<>(order, false);
+                    parent.children[0] = level.get(i);
+                    quota = quota(keysPerNode, parents.size());
+                }
+            }
+            parents.add(parent);
+            tree.evenOutLast(parents, upper);
+
+            level = parents;
+            separators = upper;
+            tree.height++;
+        }
+
+        tree.root = level.get(0);
+        return tree;
+    }
+
+    public int order() {
+        return this.order;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Returns the number of levels; 0 for an empty tree.
+     */
+    public int height() {
+        return this.height;
+    }
+
+    public boolean contains(K key) {
+        Node<K> node = this.root;
+        while (node != null) {
+            int index = search(node, key);
+            if (index >= 0) {
+                return true;
+            }
+            node = node.isLeaf() ? null : node.children[-index - 1];
+        }
+
+        return false;
+    }
+
+    /**
+     * Adds key unless it is present; returns whether it was added.
+     */
+    public boolean insert(K key) {
+        if (this.root == null) {
+            this.root = new Node<>(this.order, true);
+            this.root.keys[0] = key;
+            this.root.count = 1;
+            this.size = 1;
+            this.height = 1;
+            return true;
+        }
+
+        this.ensurePathCapacity();
+
+        int depth = 0;
+        Node<K> node = this.root;
+        int index;
+        while (true) {
+            index = search(node, key);
+            if (index >= 0) {
+                return false;
+            }
+            index = -index - 1;
+            if (node.isLeaf()) {
+                break;
+            }
+
+            this.path[depth] = node;
+            this.indexes[depth] = index;
+            depth++;
+            node = node.children[index];
+        }
+
+        insertAt(node, index, key, null);
+        this.size++;
+
+        // split overflowing nodes on the way up
+        while (node.count == this.order) {
+            int middle = this.order / 2;
+            K median = node.key(middle);
+            Node<K> right = this.splitOff(node, middle);
+
+            if (depth == 0) {
+                Node<K> newRoot = new Node<>(this.order, false);
+                newRoot.keys[0] = median;
+                newRoot.children[0] = node;
+                newRoot.children[1] = right;
+                newRoot.count = 1;
+                this.root = newRoot;
+                this.height++;
+                break;
+            }
+
+            depth--;
+            Node<K> parent = this.path[depth];
+            insertAt(parent, this.indexes[depth], median, right);
+            node = parent;
+        }
+
+        return true;
+    }
+
+    /**
+     * Removes key if present; returns whether it was removed.
+     */
+    public boolean delete(K key) {
+        if (this.root == null) {
+            return false;
+        }
+
+        this.ensurePathCapacity();
+
+        int depth = 0;
+        Node<K> node = this.root;
+        int index;
+        while (true) {
+            index = search(node, key);
+            if (index >= 0) {
+                break;
+            }
+            if (node.isLeaf()) {
+                return false;
+            }
+
+            this.path[depth] = node;
+            this.indexes[depth] = -index - 1;
+            depth++;
+            node = node.children[-index - 1];
+        }
+
+        if (!node.isLeaf()) {
+            // the predecessor, the last key of the left subtree, takes the key's place
+            Node<K> found = node;
+            int foundIndex = index;
+            this.path[depth] = node;
+            this.indexes[depth] = index;
+            depth++;
+            node = node.children[index];
+            while (!node.isLeaf()) {
+                this.path[depth] = node;
+                this.indexes[depth] = node.count;
+                depth++;
+                node = node.children[node.count];
+            }
+            index = node.count - 1;
+            found.keys[foundIndex] = node.keys[index];
+        }
+
+        removeAt(node, index);
+        this.size--;
+
+        // borrow from or merge with a sibling on the way up
+        while (node.count < this.minKeys && depth > 0) {
+            depth--;
+            Node<K> parent = this.path[depth];
+            int child = this.indexes[depth];
+            Node<K> left = child > 0 ? parent.children[child - 1] : null;
+            Node<K> right = child < parent.count ? parent.children[child + 1] : null;
+
+            if (left != null && left.count > this.minKeys) {
+                insertAt(node, 0, parent.key(child - 1), null);
+                if (!node.isLeaf()) {
+                    System.arraycopy(node.children, 0, node.children, 1, node.count);
+                    node.children[0] = left.children[left.count];
+                    left.children[left.count] = null;
+                }
+                parent.keys[child - 1] = left.keys[left.count - 1];
+                left.keys[--left.count] = null;
+                return true;
+            }
+
+            if (right != null && right.count > this.minKeys) {
+                node.keys[node.count] = parent.keys[child];
+                if (!node.isLeaf()) {
+                    node.children[node.count + 1] = right.children[0];
+                    System.arraycopy(right.children, 1, right.children, 0, right.count);
+                    right.children[right.count] = null;
+                }
+                node.count++;
+                parent.keys[child] = right.keys[0];
+                System.arraycopy(right.keys, 1, right.keys, 0, right.count - 1);
+                right.keys[--right.count] = null;
+                return true;
+            }
+
+            if (left != null) {
+                merge(parent, child - 1);
+            } else {
+                merge(parent, child);
+            }
+            node = parent;
+        }
+
+        if (this.root.count == 0) {
+            this.root = this.root.isLeaf() ? null : this.root.children[0];
+            this.height--;
+        }
+        return true;
+    }
+
+    public void eachInOrder(Consumer<K> consumer) {
+        eachInOrder(this.root, consumer);
+    }
+
+    public void clear() {
+        this.root = null;
+        this.size = 0;
+        this.height = 0;
+    }
+
+    /**
+     * Checks key order, the key count bounds of every node and that all leaves are at the
+     * same depth.
+     */
+    boolean isValid() {
+        return this.root == null || this.isValid(this.root, null, null, 1);
+    }
+
+    private boolean isValid(Node<K> node, K lo, K hi, int level) {
+        if (node.count > this.order - 1 || (node != this.root && node.count < this.minKeys)) {
+            return false;
+        }
+        K previous = lo;
+        for (int i = 0; i < node.count; i++) {
+            if (previous != null && previous.compareTo(node.key(i)) >= 0) {
+                return false;
+            }
+            previous = node.key(i);
+        }
+        if (hi != null && previous.compareTo(hi) >= 0) {
+            return false;
+        }
+        if (node.isLeaf()) {
+            return level == this.height;
+        }
+        for (int i = 0; i <= node.count; i++) {
+            K childLo = i == 0 ? lo : node.key(i - 1);
+            K childHi = i == node.count ? hi : node.key(i);
+            if (!this.isValid(node.children[i], childLo, childHi, level + 1)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // keys for node number index of a level, so that the level averages keysPerNode
+    private static int quota(double keysPerNode, int index) {
+        return (int) ((index + 1) * keysPerNode) - (int) (index * keysPerNode);
+    }
+
+    // Brings the last node of a bulk loaded level up to the minimum: merges it into the
+    // node before it if their keys and separator fit one node, and splits them evenly
+    // otherwise.
+    @SuppressWarnings("unchecked")
+    private void evenOutLast(List<Node<K>> level, List<K> separators) {
+        int lastIndex = level.size() - 1;
+        Node<K> last = level.get(lastIndex);
+        if (lastIndex == 0 || last.count >= this.minKeys) {
+            return;
+        }
+
+        Node<K> left = level.get(lastIndex - 1);
+        int total = left.count + 1 + last.count;
+        Object[] keys = new Object[total];
+        System.arraycopy(left.keys, 0, keys, 0, left.count);
+        keys[left.count] = separators.get(lastIndex - 1);
+        System.arraycopy(last.keys, 0, keys, left.count + 1, last.count);
+        Node<K>[] children = null;
+        if (!left.isLeaf()) {
+            children = (Node<K>[]) new Node[total + 1];
+            System.arraycopy(left.children, 0, children, 0, left.count + 1);
+            System.arraycopy(last.children, 0, children, left.count + 1, last.count + 1);
+        }
+
+        if (total <= this.order - 1) {
+            System.arraycopy(keys, 0, left.keys, 0, total);
+            if (children != null) {
+                System.arraycopy(children, 0, left.children, 0, total + 1);
+            }
+            left.count = total;
+            level.remove(lastIndex);
+            separators.remove(lastIndex - 1);
+            return;
+        }
+
+        int leftCount = (total - 1) / 2;
+        int lastCount = total - 1 - leftCount;
+        Arrays.fill(left.keys, null);
+        Arrays.fill(last.keys, null);
+        System.arraycopy(keys, 0, left.keys, 0, leftCount);
+        System.arraycopy(keys, leftCount + 1, last.keys, 0, lastCount);
+        if (children != null) {
+            Arrays.fill(left.children, null);
+            Arrays.fill(last.children, null);
+            System.arraycopy(children, 0, left.children, 0, leftCount + 1);
+            System.arraycopy(children, leftCount + 1, last.children, 0, lastCount + 1);
+        }
+        left.count = leftCount;
+        last.count = lastCount;
+        separators.set(lastIndex - 1, (K) keys[leftCount]);
+    }
+
+    // Moves the keys and children after middle into a new right sibling; the key at
+    // middle is dropped from node, as it moves up.
+    private Node<K> splitOff(Node<K> node, int middle) {
+        Node<K> right = new Node<>(this.order, node.isLeaf());
+        int moved = node.count - middle - 1;
+        System.arraycopy(node.keys, middle + 1, right.keys, 0, moved);
+        Arrays.fill(node.keys, middle, node.count, null);
+        if (!node.isLeaf()) {
+            System.arraycopy(node.children, middle + 1, right.children, 0, moved + 1);
+            Arrays.fill(node.children, middle + 1, node.count + 1, null);
+        }
+        right.count = moved;
+        node.count = middle;
+        return right;
+    }
+
+    // Folds the separator at index and the right child of it into the left child.
+    private static <K> void merge(Node<K> parent, int index) {
+        Node<K> left = parent.children[index];
+        Node<K> right = parent.children[index + 1];
+
+        left.keys[left.count] = parent.keys[index];
+        System.arraycopy(right.keys, 0, left.keys, left.count + 1, right.count);
+        if (!left.isLeaf()) {
+            System.arraycopy(right.children, 0, left.children, left.count + 1, right.count + 1);
+        }
+        left.count += right.count + 1;
+
+        System.arraycopy(parent.keys, index + 1, parent.keys, index, parent.count - index - 1);
+        System.arraycopy(parent.children, index + 2, parent.children, index + 1, parent.count - index - 1);
+        parent.count--;
+        parent.keys[parent.count] = null;
+        parent.children[parent.count + 1] = null;
+    }
+
+    // Inserts key at index and, for an inner node, rightChild just after it.
+    private static <K> void insertAt(Node<K> node, int index, K key, Node<K> rightChild) {
+        System.arraycopy(node.keys, index, node.keys, index + 1, node.count - index);
+        node.keys[index] = key;
+        if (rightChild != null) {
+            System.arraycopy(node.children, index + 1, node.children, index + 2, node.count - index);
+            node.children[index + 1] = rightChild;
+        }
+        node.count++;
+    }
+
+    // Removes the key at index and, for an inner node, the child to its right.
+    private static <K> void removeAt(Node<K> node, int index) {
+        System.arraycopy(node.keys, index + 1, node.keys, index, node.count - index - 1);
+        if (!node.isLeaf()) {
+            System.arraycopy(node.children, index + 2, node.children, index + 1, node.count - index - 1);
+            node.children[node.count] = null;
+        }
+        node.count--;
+        node.keys[node.count] = null;
+    }
+
+    // Index of key in node, or -(insertion point) - 1 as in Arrays.binarySearch.
+    private static <K extends Comparable<K>> int search(Node<K> node, K key) {
+        int lo = 0;
+        int hi = node.count - 1;
+        while (lo <= hi) {
+            int middle = (lo + hi) >>> 1;
+            int cmp = node.key(middle).compareTo(key);
+            if (cmp < 0) {
+                lo = middle + 1;
+            } else if (cmp > 0) {
+                hi = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -lo - 1;
+    }
+
+    private void ensurePathCapacity() {
+        if (this.path.length < this.height + 1) {
+            int capacity = Math.max(this.height + 1, this.path.length * 2);
+            this.path = Arrays.copyOf(this.path, capacity);
+            this.indexes = Arrays.copyOf(this.indexes, capacity);
+        }
+    }
+
+    private static <K> void eachInOrder(Node<K> node, Consumer<K> consumer) {
+        if (node == null) {
+            return;
+        }
+
+        for (int i = 0; i < node.count; i++) {
+            if (!node.isLeaf()) {
+                eachInOrder(node.children[i], consumer);
+            }
+            consumer.accept(node.key(i));
+        }
+        if (!node.isLeaf()) {
+            eachInOrder(node.children[node.count], consumer);
+        }
+    }
+}
@@ -0,0 +1,222 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Fixed number of page frames over a file. Page p occupies bytes [p * pageSize,
+ * (p + 1) * pageSize) of the file. A caller pins a page to get its frame, reads or
+ * writes the frame's buffer, marks it dirty if it wrote, and unpins it.
+ * <p>
+ * A miss evicts an unpinned frame chosen by the CLOCK algorithm: the hand sweeps the
+ * frames, gives every recently used frame a second chance by clearing its reference
+ * bit, and takes the first frame whose bit is already clear. A dirty victim is written
+ * back before the frame is reused. I/O errors surface as {@link UncheckedIOException}.
+ */
+public class BufferPool {
+
+    private final FileChannel channel;
+    private final int pageSize;
+
+    private final ByteBuffer[] buffers;
+    private final int[] pages;
+    private final int[] pins;
+    private final boolean[] dirty;
+    private final boolean[] referenced;
+    private final Map<Integer, Integer> frames;
+    private int hand;
+
+    private long hits;
+    private long reads;
+    private long writes;
+
+    public BufferPool(FileChannel channel, int pageSize, int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+
+        this.channel = channel;
+        this.pageSize = pageSize;
+        this.buffers = new ByteBuffer[capacity];
+        this.pages = new int[capacity];
+        this.pins = new int[capacity];
+        this.dirty = new boolean[capacity];
+        this.referenced = new boolean[capacity];
+        this.frames = new HashMap<>();
+        for (int i = 0; i < capacity; i++) {
+            this.buffers[i] = ByteBuffer.allocateDirect(pageSize);
+            this.pages[i] = -1;
+        }
+    }
+
+    public int pageSize() {
+        return this.pageSize;
+    }
+
+    public int capacity() {
+        return this.buffers.length;
+    }
+
+    /**
+     * Returns the frame holding page, reading the page from the file on a miss. Bytes
+     * past the end of the file read as zeros.
+     */
+    public int pin(int page) {
+        Integer cached = this.frames.get(page);
+        if (cached != null) {
+            int frame = cached;
+            this.pins[frame]++;
+            this.referenced[frame] = true;
+            this.hits++;
+            return frame;
+        }
+
+        int frame = this.claim(page);
+        ByteBuffer buffer = this.buffers[frame];
+        buffer.clear();
+        try {
+            long position = (long) page * this.pageSize;
+            while (buffer.hasRemaining()) {
+                if (this.channel.read(buffer, position + buffer.position()) < 0) {
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            this.release(frame);
+            throw new UncheckedIOException(e);
+        }
+        while (buffer.hasRemaining()) {
+            buffer.put((byte) 0);
+        }
+        this.reads++;
+        return frame;
+    }
+
+    /**
+     * Returns a frame for a page that is not in the file yet, zeroed and already dirty,
+     * without reading anything.
+     */
+    public int pinNew(int page) {
+        if (this.frames.containsKey(page)) {
+            throw new IllegalStateException("page " + page + " is cached already");
+        }
+
+        int frame = this.claim(page);
+        ByteBuffer buffer = this.buffers[frame];
+        buffer.clear();
+        while (buffer.hasRemaining()) {
+            buffer.put((byte) 0);
+        }
+        this.dirty[frame] = true;
+        return frame;
+    }
+
+    public ByteBuffer buffer(int frame) {
+        return this.buffers[frame];
+    }
+
+    public void markDirty(int frame) {
+        this.dirty[frame] = true;
+    }
+
+    public void unpin(int frame) {
+        if (this.pins[frame] == 0) {
+            throw new IllegalStateException("frame " + frame + " is not pinned");
+        }
+        this.pins[frame]--;
+    }
+
+    /**
+     * Writes every dirty frame back and forces the file to the device.
+     */
+    public void flush() {
+        for (int frame = 0; frame < this.buffers.length; frame++) {
+            if (this.dirty[frame]) {
+                this.writeBack(frame);
+            }
+        }
+        try {
+            this.channel.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Returns how many pins were served from a frame without reading the file.
+     */
+    public long hits() {
+        return this.hits;
+    }
+
+    public long reads() {
+        return this.reads;
+    }
+
+    public long writes() {
+        return this.writes;
+    }
+
+    // Finds a free or evictable frame, assigns it to page and pins it once.
+    private int claim(int page) {
+        int frame = this.victim();
+        if (this.pages[frame] >= 0) {
+            if (this.dirty[frame]) {
+                this.writeBack(frame);
+            }
+            this.frames.remove(this.pages[frame]);
+        }
+
+        this.pages[frame] = page;
+        this.pins[frame] = 1;
+        this.referenced[frame] = true;
+        this.frames.put(page, frame);
+        return frame;
+    }
+
+    private void release(int frame) {
+        this.frames.remove(this.pages[frame]);
+        this.pages[frame] = -1;
+        this.pins[frame] = 0;
+        this.dirty[frame] = false;
+        this.referenced[frame] = false;
+    }
+
+    // two sweeps clear every reference bit, so a third finds nothing only if all are pinned
+    private int victim() {
+        for (int step = 0; step < 3 * this.buffers.length; step++) {
+            int frame = this.hand;
+            this.hand = (this.hand + 1) % this.buffers.length;
+            if (this.pages[frame] < 0) {
+                return frame;
+            }
+            if (this.pins[frame] > 0) {
+                continue;
+            }
+            if (this.referenced[frame]) {
+                this.referenced[frame] = false;
+                continue;
+            }
+            return frame;
+        }
+
+        throw new IllegalStateException("all " + this.buffers.length + " frames are pinned");
+    }
+
+    private void writeBack(int frame) {
+        ByteBuffer buffer = this.buffers[frame].duplicate();
+        buffer.clear();
+        try {
+            long position = (long) this.pages[frame] * this.pageSize;
+            while (buffer.hasRemaining()) {
+                this.channel.write(buffer, position + buffer.position());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.dirty[frame] = false;
+        this.writes++;
+    }
+}
@@ -0,0 +1,363 @@
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * AVL tree for many concurrent readers. Lookups take no locks: they walk the tree
+ * hand over hand and validate a per-node version that writers bump whenever a node
+ * loses keys from its subtree (a rotation moves it down, or it is unlinked). A reader
+ * that sees a version change steps back to the parent and retries from there.
+ * <p>
+ * Writers take a single write lock, so they never block readers. A key whose node
+ * has two children is removed by clearing its present flag, which keeps the node as
+ * a routing node. The node is unlinked later, once a delete passing through it finds
+ * it with fewer than two children and removing it lowers its subtree by one level at most.
+ */
+public class ConcurrentAVL<T extends Comparable<T>> {
+
+    private static final long CHANGING = 1L;
+    private static final long UNLINKED = 2L;
+    private static final long STEP = 4L;
+
+    private static final Object RETRY = new Object();
+    private static final int INITIAL_PATH_CAPACITY = 32;
+
+    private static final class Node<T> {
+        private final T value;
+        private volatile boolean present;
+        private volatile Node<T> left;
+        private volatile Node<T> right;
+        private volatile long version;
+        // written and read by writers only, under the write lock
+        private int height;
+
+        private Node(T value) {
+            this.value = value;
+            this.present = true;
+            this.height = 1;
+        }
+    }
+
+    // sentinel whose right child is the root; it never rotates, so its version never changes
+    private final Node<T> holder;
+    private final ReentrantLock writeLock;
+    private volatile int size;
+
+    private Node<T>[] path;
+
+    @SuppressWarnings("unchecked")
+    public ConcurrentAVL() {
+        this.holder = new Node<>(null);
+        this.writeLock = new ReentrantLock();
+        this.path = (Node<T>[]) new Node[INITIAL_PATH_CAPACITY];
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public boolean contains(T item) {
+        while (true) {
+            Node<T> root = this.holder.right;
+            if (root == null) {
+                return false;
+            }
+
+            long version = root.version;
+            if ((version & CHANGING) != 0) {
+                waitUntilNotChanging(root);
+                continue;
+            }
+            if ((version & UNLINKED) != 0 || root != this.holder.right) {
+                continue;
+            }
+
+            Object result = this.attemptContains(item, root, version);
+            if (result != RETRY) {
+                return (Boolean) result;
+            }
+        }
+    }
+
+    // Searches below node, which was reached while its version was nodeVersion.
+    private Object attemptContains(T item, Node<T> node, long nodeVersion) {
+        while (true) {
+            int cmp = item.compareTo(node.value);
+            if (cmp == 0) {
+                boolean present = node.present;
+                return node.version == nodeVersion ? present : RETRY;
+            }
+
+            Node<T> child = cmp < 0 ? node.left : node.right;
+            if (node.version != nodeVersion) {
+                return RETRY;
+            }
+            if (child == null) {
+                return false;
+            }
+
+            long childVersion = child.version;
+            if ((childVersion & CHANGING) != 0) {
+                waitUntilNotChanging(child);
+            } else if ((childVersion & UNLINKED) == 0 && child == (cmp < 0 ? node.left : node.right)) {
+                if (node.version != nodeVersion) {
+                    return RETRY;
+                }
+
+                Object result = this.attemptContains(item, child, childVersion);
+                if (result != RETRY) {
+                    return result;
+                }
+            }
+
+            if (node.version != nodeVersion) {
+                return RETRY;
+            }
+        }
+    }
+
+    public boolean insert(T item) {
+        this.writeLock.lock();
+        try {
+            Node<T> node = this.holder.right;
+            if (node == null) {
+                this.holder.right = new Node<>(item);
+                this.size = 1;
+                return true;
+            }
+
+            this.ensurePathCapacity();
+
+            int depth = 0;
+            this.path[depth++] = this.holder;
+            while (true) {
+                int cmp = item.compareTo(node.value);
+                if (cmp == 0) {
+                    if (node.present) {
+                        return false;
+                    }
+                    node.present = true;
+                    this.size++;
+                    return true;
+                }
+
+                this.path[depth++] = node;
+                if (cmp < 0) {
+                    if (node.left == null) {
+                        node.left = new Node<>(item);
+                        break;
+                    }
+                    node = node.left;
+                } else {
+                    if (node.right == null) {
+                        node.right = new Node<>(item);
+                        break;
+                    }
+                    node = node.right;
+                }
+            }
+
+            this.size++;
+            this.retrace(depth);
+            return true;
+        } finally {
+            this.writeLock.unlock();
+        }
+    }
+
+    public boolean delete(T item) {
+        this.writeLock.lock();
+        try {
+            this.ensurePathCapacity();
+
+            int depth = 0;
+            this.path[depth++] = this.holder;
+            Node<T> node = this.holder.right;
+            while (node != null) {
+                int cmp = item.compareTo(node.value);
+                if (cmp == 0) {
+                    break;
+                }
+
+                this.path[depth++] = node;
+                node = cmp < 0 ? node.left : node.right;
+            }
+
+            if (node == null || !node.present) {
+                return false;
+            }
+
+            node.present = false;
+            this.size--;
+            if (node.left != null && node.right != null) {
+                return true;
+            }
+
+            this.unlink(this.path[depth - 1], node);
+            this.retrace(depth);
+            return true;
+        } finally {
+            this.writeLock.unlock();
+        }
+    }
+
+    /**
+     * Visits the present keys in order. Writers are held off for the duration of the walk.
+     */
+    public void eachInOrder(Consumer<T> consumer) {
+        this.writeLock.lock();
+        try {
+            this.eachInOrder(this.holder.right, consumer);
+        } finally {
+            this.writeLock.unlock();
+        }
+    }
+
+    /**
+     * Checks, while no writer is active, that the heights and balance factors describe a
+     * strict AVL tree.
+     */
+    boolean isBalanced() {
+        return checkedHeight(this.holder.right) >= 0;
+    }
+
+    // height of node's subtree, or -1 if it breaks an invariant
+    private static <T> int checkedHeight(Node<T> node) {
+        if (node == null) {
+            return 0;
+        }
+
+        int left = checkedHeight(node.left);
+        int right = checkedHeight(node.right);
+        if (left < 0 || right < 0 || Math.abs(left - right) > 1 || node.height != Math.max(left, right) + 1) {
+            return -1;
+        }
+        return node.height;
+    }
+
+    private void eachInOrder(Node<T> node, Consumer<T> action) {
+        if (node == null) {
+            return;
+        }
+
+        this.eachInOrder(node.left, action);
+        if (node.present) {
+            action.accept(node.value);
+        }
+        this.eachInOrder(node.right, action);
+    }
+
+    // path[0] is the holder; path[1..depth) are the ancestors of the changed position
+    private void retrace(int depth) {
+        for (int i = depth - 1; i >= 1; i--) {
+            Node<T> node = this.path[i];
+            Node<T> parent = this.path[i - 1];
+
+            // parent was balanced against node.height, so unlinking may lower it by one at most
+            if (!node.present && (node.left == null || node.right == null)
+                    && node.height - height(node.left == null ? node.right : node.left) <= 1) {
+                this.unlink(parent, node);
+                continue;
+            }
+
+            int oldHeight = node.height;
+            this.updateHeight(node);
+            Node<T> balanced = this.balance(node, parent);
+            if (balanced.height == oldHeight) {
+                return;
+            }
+        }
+    }
+
+    // Replaces node, which has at most one child, by that child.
+    private void unlink(Node<T> parent, Node<T> node) {
+        Node<T> child = node.left == null ? node.right : node.left;
+
+        long version = node.version;
+        node.version = version | CHANGING;
+        this.replaceChild(parent, node, child);
+        node.version = UNLINKED;
+    }
+
+    private Node<T> balance(Node<T> node, Node<T> parent) {
+        int balance = this.balanceFactor(node);
+
+        if (balance < -1) {
+            if (this.balanceFactor(node.right) > 0) {
+                this.rotateRight(node.right, node);
+            }
+            return this.rotateLeft(node, parent);
+        } else if (balance > 1) {
+            if (this.balanceFactor(node.left) < 0) {
+                this.rotateLeft(node.left, node);
+            }
+            return this.rotateRight(node, parent);
+        }
+
+        return node;
+    }
+
+    // node moves down and loses the right child's left subtree, so its readers must retry
+    private Node<T> rotateLeft(Node<T> node, Node<T> parent) {
+        Node<T> right = node.right;
+
+        long version = node.version;
+        node.version = version | CHANGING;
+        node.right = right.left;
+        right.left = node;
+        this.replaceChild(parent, node, right);
+        node.version = version + STEP;
+
+        this.updateHeight(node);
+        this.updateHeight(right);
+        return right;
+    }
+
+    private Node<T> rotateRight(Node<T> node, Node<T> parent) {
+        Node<T> left = node.left;
+
+        long version = node.version;
+        node.version = version | CHANGING;
+        node.left = left.right;
+        left.right = node;
+        this.replaceChild(parent, node, left);
+        node.version = version + STEP;
+
+        this.updateHeight(node);
+        this.updateHeight(left);
+        return left;
+    }
+
+    private void replaceChild(Node<T> parent, Node<T> node, Node<T> replacement) {
+        if (parent.left == node) {
+            parent.left = replacement;
+        } else {
+            parent.right = replacement;
+        }
+    }
+
+    private void ensurePathCapacity() {
+        int required = height(this.holder.right) + 2;
+        if (this.path.length < required) {
+            this.path = Arrays.copyOf(this.path, Math.max(required, this.path.length * 2));
+        }
+    }
+
+    private int balanceFactor(Node<T> node) {
+        return height(node.left) - height(node.right);
+    }
+
+    private void updateHeight(Node<T> node) {
+        node.height = Math.max(height(node.left), height(node.right)) + 1;
+    }
+
+    private static int height(Node<?> node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static void waitUntilNotChanging(Node<?> node) {
+        while ((node.version & CHANGING) != 0) {
+            Thread.onSpinWait();
+        }
+    }
+}
@@ -0,0 +1,404 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.LongConsumer;
+
+/**
+ * B-tree of long keys in which every node is one fixed-size page of a file, read and
+ * written through a {@link BufferPool}. Only the pool's frames live in memory, so the
+ * number of keys is bounded by the disk. With 4 KB pages a node holds 340 keys, a
+ * million keys fit in three levels, and once the few inner pages are cached a cold
+ * lookup costs one page read.
+ * <p>
+ * Full nodes are split on the way down, so an insert pins at most three pages at once
+ * and never walks back up. Page 0 is the header; it is written only by {@link #flush()}
+ * and {@link #close()}. The pool may write any other page back when it evicts it, so
+ * the first insert after a checkpoint sets and forces a dirty flag in the header, and
+ * the next checkpoint clears it once every page is on the device. {@link #open} refuses
+ * a file whose flag is set: the process that wrote it died, or still has it open,
+ * between checkpoints.
+ */
+public class DiskLongBTree implements Closeable {
+
+    public static final int DEFAULT_PAGE_SIZE = 4096;
+
+    private static final long MAGIC = 0x4254524545303031L;
+
+    // header page
+    private static final int MAGIC_OFFSET = 0;
+    private static final int PAGE_SIZE_OFFSET = 8;
+    private static final int ROOT_OFFSET = 12;
+    private static final int HEIGHT_OFFSET = 16;
+    private static final int PAGE_COUNT_OFFSET = 20;
+    private static final int SIZE_OFFSET = 24;
+    private static final int DIRTY_OFFSET = 32;
+
+    // node page: count, leaf flag, keys[maxKeys], children[maxKeys + 1]
+    private static final int COUNT = 0;
+    private static final int LEAF = 4;
+    private static final int KEYS = 8;
+
+    private static final int HEADER_PAGE = 0;
+    private static final int NIL = 0;
+
+    private final FileChannel channel;
+    private final BufferPool pool;
+    private final int maxKeys;
+    private final int childrenOffset;
+
+    private int root;
+    private int height;
+    private int pageCount;
+    private long size;
+    // whether the file holds updates made after the last checkpoint
+    private boolean dirty;
+
+    private DiskLongBTree(FileChannel channel, int pageSize, int cachedPages) {
+        this.channel = channel;
+        this.pool = new BufferPool(channel, pageSize, cachedPages);
+        this.maxKeys = (pageSize - KEYS - 4) / 12;
+        this.childrenOffset = KEYS + 8 * this.maxKeys;
+        this.pageCount = 1;
+    }
+
+    /**
+     * Opens the tree stored in file with 4 KB pages, or creates an empty one.
+     */
+    public static DiskLongBTree open(Path file, int cachedPages) throws IOException {
+        return open(file, DEFAULT_PAGE_SIZE, cachedPages);
+    }
+
+    /**
+     * Opens the tree stored in file, or creates an empty one if the file is new or empty.
+     * An existing file must have been created with the same page size. The pool keeps
+     * cachedPages pages in memory and needs at least three.
+     */
+    public static DiskLongBTree open(Path file, int pageSize, int cachedPages) throws IOException {
+        if (pageSize < KEYS + 4 + 12 * 3) {
+            throw new IllegalArgumentException("page too small for three keys: " + pageSize);
+        }
+        if (cachedPages < 3) {
+            throw new IllegalArgumentException("at least three pages must be cached: " + cachedPages);
+        }
+
+        FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            boolean empty = channel.size() == 0;
+            DiskLongBTree tree = new DiskLongBTree(channel, pageSize, cachedPages);
+            if (empty) {
+                tree.flush();
+            } else {
+                tree.load(pageSize);
+            }
+            return tree;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public long size() {
+        return this.size;
+    }
+
+    public int height() {
+        return this.height;
+    }
+
+    /**
+     * Returns the number of keys a page holds.
+     */
+    public int maxKeys() {
+        return this.maxKeys;
+    }
+
+    public BufferPool bufferPool() {
+        return this.pool;
+    }
+
+    public boolean contains(long key) {
+        int page = this.root;
+        while (page != NIL) {
+            int frame = this.pool.pin(page);
+            ByteBuffer node = this.pool.buffer(frame);
+            int index = this.search(node, key);
+            if (index >= 0) {
+                this.pool.unpin(frame);
+                return true;
+            }
+            page = isLeaf(node) ? NIL : this.child(node, -index - 1);
+            this.pool.unpin(frame);
+        }
+
+        return false;
+    }
+
+    /**
+     * Adds key unless it is present; returns whether it was added.
+     */
+    public boolean insert(long key) {
+        this.beforeUpdate();
+        if (this.root == NIL) {
+            int page = this.pageCount++;
+            int frame = this.pool.pinNew(page);
+            ByteBuffer node = this.pool.buffer(frame);
+            node.putInt(LEAF, 1);
+            node.putLong(KEYS, key);
+            node.putInt(COUNT, 1);
+            this.pool.unpin(frame);
+            this.root = page;
+            this.height = 1;
+            this.size = 1;
+            return true;
+        }
+
+        int frame = this.pool.pin(this.root);
+        if (count(this.pool.buffer(frame)) == this.maxKeys) {
+            int page = this.pageCount++;
+            int rootFrame = this.pool.pinNew(page);
+            this.setChild(this.pool.buffer(rootFrame), 0, this.root);
+            this.splitChild(rootFrame, 0, frame);
+            this.pool.unpin(frame);
+            this.root = page;
+            this.height++;
+            frame = rootFrame;
+        }
+
+        while (true) {
+            ByteBuffer node = this.pool.buffer(frame);
+            int index = this.search(node, key);
+            if (index >= 0) {
+                this.pool.unpin(frame);
+                return false;
+            }
+            index = -index - 1;
+
+            if (isLeaf(node)) {
+                this.insertAt(node, index, key, NIL);
+                this.pool.markDirty(frame);
+                this.pool.unpin(frame);
+                this.size++;
+                return true;
+            }
+
+            int childFrame = this.pool.pin(this.child(node, index));
+            if (count(this.pool.buffer(childFrame)) == this.maxKeys) {
+                this.splitChild(frame, index, childFrame);
+                long median = this.key(node, index);
+                if (key == median) {
+                    this.pool.unpin(childFrame);
+                    this.pool.unpin(frame);
+                    return false;
+                }
+                if (key > median) {
+                    this.pool.unpin(childFrame);
+                    childFrame = this.pool.pin(this.child(node, index + 1));
+                }
+            }
+
+            this.pool.unpin(frame);
+            frame = childFrame;
+        }
+    }
+
+    /**
+     * Visits the keys in order. Each node is copied out of its frame before its
+     * children are visited, so only one page is pinned at a time.
+     */
+    public void eachInOrder(LongConsumer consumer) {
+        if (this.root != NIL) {
+            this.eachInOrder(this.root, consumer);
+        }
+    }
+
+    /**
+     * Checkpoint: writes every dirty page and forces the file, then writes the header
+     * and forces it.
+     */
+    public void flush() {
+        this.pool.flush();
+
+        int frame = this.pool.pin(HEADER_PAGE);
+        ByteBuffer header = this.pool.buffer(frame);
+        header.putLong(MAGIC_OFFSET, MAGIC);
+        header.putInt(PAGE_SIZE_OFFSET, this.pool.pageSize());
+        header.putInt(ROOT_OFFSET, this.root);
+        header.putInt(HEIGHT_OFFSET, this.height);
+        header.putInt(PAGE_COUNT_OFFSET, this.pageCount);
+        header.putLong(SIZE_OFFSET, this.size);
+        header.putInt(DIRTY_OFFSET, 0);
+        this.pool.markDirty(frame);
+        this.pool.unpin(frame);
+        this.pool.flush();
+        this.dirty = false;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.flush();
+        this.channel.close();
+    }
+
+    private void load(int pageSize) throws IOException {
+        int frame = this.pool.pin(HEADER_PAGE);
+        ByteBuffer header = this.pool.buffer(frame);
+        try {
+            if (header.getLong(MAGIC_OFFSET) != MAGIC) {
+                throw new IOException("not a B-tree file");
+            }
+            if (header.getInt(PAGE_SIZE_OFFSET) != pageSize) {
+                throw new IOException("file has " + header.getInt(PAGE_SIZE_OFFSET) + " byte pages, not " + pageSize);
+            }
+            if (header.getInt(DIRTY_OFFSET) != 0) {
+                throw new IOException("B-tree file has updates after its last checkpoint");
+            }
+
+            this.root = header.getInt(ROOT_OFFSET);
+            this.height = header.getInt(HEIGHT_OFFSET);
+            this.pageCount = header.getInt(PAGE_COUNT_OFFSET);
+            this.size = header.getLong(SIZE_OFFSET);
+        } finally {
+            this.pool.unpin(frame);
+        }
+
+        if (this.channel.size() < (long) this.pageCount * pageSize) {
+            throw new IOException("truncated B-tree file");
+        }
+    }
+
+    // Sets the header's dirty flag on the device before the first page changes.
+    private void beforeUpdate() {
+        if (this.dirty) {
+            return;
+        }
+
+        int frame = this.pool.pin(HEADER_PAGE);
+        this.pool.buffer(frame).putInt(DIRTY_OFFSET, 1);
+        this.pool.markDirty(frame);
+        this.pool.unpin(frame);
+        this.pool.flush();
+        this.dirty = true;
+    }
+
+    // Splits the full child at index of parent: the upper half moves to a new page and
+    // the median moves up into parent. Both stay pinned by the caller.
+    private void splitChild(int parentFrame, int index, int childFrame) {
+        ByteBuffer parent = this.pool.buffer(parentFrame);
+        ByteBuffer child = this.pool.buffer(childFrame);
+
+        int page = this.pageCount++;
+        int siblingFrame = this.pool.pinNew(page);
+        ByteBuffer sibling = this.pool.buffer(siblingFrame);
+
+        int middle = this.maxKeys / 2;
+        int moved = this.maxKeys - middle - 1;
+        boolean leaf = isLeaf(child);
+        sibling.putInt(LEAF, leaf ? 1 : 0);
+        for (int i = 0; i < moved; i++) {
+            this.setKey(sibling, i, this.key(child, middle + 1 + i));
+        }
+        if (!leaf) {
+            for (int i = 0; i <= moved; i++) {
+                this.setChild(sibling, i, this.child(child, middle + 1 + i));
+            }
+        }
+        sibling.putInt(COUNT, moved);
+        child.putInt(COUNT, middle);
+
+        this.insertAt(parent, index, this.key(child, middle), page);
+
+        this.pool.markDirty(parentFrame);
+        this.pool.markDirty(childFrame);
+        this.pool.unpin(siblingFrame);
+    }
+
+    // Inserts key at index and, for an inner node, rightChild just after it.
+    private void insertAt(ByteBuffer node, int index, long key, int rightChild) {
+        int count = count(node);
+        for (int i = count; i > index; i--) {
+            this.setKey(node, i, this.key(node, i - 1));
+        }
+        this.setKey(node, index, key);
+        if (!isLeaf(node)) {
+            for (int i = count + 1; i > index + 1; i--) {
+                this.setChild(node, i, this.child(node, i - 1));
+            }
+            this.setChild(node, index + 1, rightChild);
+        }
+        node.putInt(COUNT, count + 1);
+    }
+
+    private void eachInOrder(int page, LongConsumer consumer) {
+        int frame = this.pool.pin(page);
+        ByteBuffer node = this.pool.buffer(frame);
+        int count = count(node);
+        long[] keys = new long[count];
+        for (int i = 0; i < count; i++) {
+            keys[i] = this.key(node, i);
+        }
+        int[] children = null;
+        if (!isLeaf(node)) {
+            children = new int[count + 1];
+            for (int i = 0; i <= count; i++) {
+                children[i] = this.child(node, i);
+            }
+        }
+        this.pool.unpin(frame);
+
+        for (int i = 0; i < count; i++) {
+            if (children != null) {
+                this.eachInOrder(children[i], consumer);
+            }
+            consumer.accept(keys[i]);
+        }
+        if (children != null) {
+            this.eachInOrder(children[count], consumer);
+        }
+    }
+
+    // Index of key in node, or -(insertion point) - 1 as in Arrays.binarySearch.
+    private int search(ByteBuffer node, long key) {
+        int lo = 0;
+        int hi = count(node) - 1;
+        while (lo <= hi) {
+            int middle = (lo + hi) >>> 1;
+            long current = this.key(node, middle);
+            if (current < key) {
+                lo = middle + 1;
+            } else if (current > key) {
+                hi = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -lo - 1;
+    }
+
+    private long key(ByteBuffer node, int index) {
+        return node.getLong(KEYS + 8 * index);
+    }
+
+    private void setKey(ByteBuffer node, int index, long key) {
+        node.putLong(KEYS + 8 * index, key);
+    }
+
+    private int child(ByteBuffer node, int index) {
+        return node.getInt(this.childrenOffset + 4 * index);
+    }
+
+    private void setChild(ByteBuffer node, int index, int page) {
+        node.putInt(this.childrenOffset + 4 * index, page);
+    }
+
+    private static int count(ByteBuffer node) {
+        return node.getInt(COUNT);
+    }
+
+    private static boolean isLeaf(ByteBuffer node) {
+        return node.getInt(LEAF) != 0;
+    }
+}
@@ -0,0 +1,345 @@
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * AVL tree of int keys stored as parallel arrays: a node is an index into the key, link
+ * and height arrays, so it costs 13 bytes and no object header, and the keys are never
+ * boxed. Slot 0 is a NIL sentinel of height 0 that every empty link points to, and
+ * slots freed by delete are chained through left[] and reused by later inserts.
+ */
+public class IntAVL {
+
+    private static final int NIL = 0;
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final int INITIAL_PATH_CAPACITY = 32;
+
+    // slot 0 is the NIL sentinel with height 0, so empty links need no null checks
+    private int[] keys;
+    private int[] left;
+    private int[] right;
+    private byte[] height;
+
+    private int root;
+    private int size;
+    // first never-used slot; slots below it are either live or on the free list
+    private int top;
+    // freed slots are chained through left[]
+    private int free;
+
+    private int[] path;
+
+    public IntAVL() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public IntAVL(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException();
+        }
+
+        this.keys = new int[capacity + 1];
+        this.left = new int[capacity + 1];
+        this.right = new int[capacity + 1];
+        this.height = new byte[capacity + 1];
+        this.root = NIL;
+        this.top = 1;
+        this.free = NIL;
+        this.path = new int[INITIAL_PATH_CAPACITY];
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public int capacity() {
+        return this.keys.length - 1;
+    }
+
+    public int height() {
+        return this.height[this.root];
+    }
+
+    public boolean contains(int item) {
+        int node = this.root;
+        while (node != NIL) {
+            int key = this.keys[node];
+            if (item < key) {
+                node = this.left[node];
+            } else if (item > key) {
+                node = this.right[node];
+            } else {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    public void insert(int item) {
+        if (this.root == NIL) {
+            this.root = this.allocate(item);
+            return;
+        }
+
+        this.ensurePathCapacity();
+
+        int depth = 0;
+        int node = this.root;
+        while (true) {
+            int key = this.keys[node];
+            if (item == key) {
+                return;
+            }
+
+            this.path[depth++] = node;
+            if (item < key) {
+                if (this.left[node] == NIL) {
+                    int created = this.allocate(item);
+                    this.left[node] = created;
+                    break;
+                }
+                node = this.left[node];
+            } else {
+                if (this.right[node] == NIL) {
+                    int created = this.allocate(item);
+                    this.right[node] = created;
+                    break;
+                }
+                node = this.right[node];
+            }
+        }
+
+        this.retrace(depth);
+    }
+
+    public void eachInOrder(IntConsumer consumer) {
+        this.eachInOrder(this.root, consumer);
+    }
+
+    public void delete(int item) {
+        if (this.root == NIL) {
+            return;
+        }
+
+        this.ensurePathCapacity();
+
+        int depth = 0;
+        int node = this.root;
+        while (node != NIL) {
+            int key = this.keys[node];
+            if (item == key) {
+                break;
+            }
+
+            this.path[depth++] = node;
+            node = item < key ? this.left[node] : this.right[node];
+        }
+
+        if (node == NIL) {
+            return;
+        }
+
+        if (this.left[node] == NIL || this.right[node] == NIL) {
+            this.replaceChild(depth, node, this.left[node] == NIL ? this.right[node] : this.left[node]);
+            this.release(node);
+            this.retrace(depth);
+            return;
+        }
+
+        int index = depth;
+        this.path[depth++] = node;
+
+        int minParent = node;
+        int min = this.right[node];
+        while (this.left[min] != NIL) {
+            this.path[depth++] = min;
+            minParent = min;
+            min = this.left[min];
+        }
+
+        if (minParent == node) {
+            this.right[node] = this.right[min];
+        } else {
+            this.left[minParent] = this.right[min];
+        }
+
+        this.left[min] = this.left[node];
+        this.right[min] = this.right[node];
+        this.height[min] = this.height[node];
+        this.path[index] = min;
+        this.replaceChild(index, node, min);
+        this.release(node);
+
+        this.retrace(depth);
+    }
+
+    public void deleteMin() {
+        if (this.root == NIL) {
+            return;
+        }
+
+        this.ensurePathCapacity();
+
+        int depth = 0;
+        int node = this.root;
+        while (this.left[node] != NIL) {
+            this.path[depth++] = node;
+            node = this.left[node];
+        }
+
+        this.replaceChild(depth, node, this.right[node]);
+        this.release(node);
+        this.retrace(depth);
+    }
+
+    public void deleteMax() {
+        if (this.root == NIL) {
+            throw new IllegalArgumentException();
+        }
+
+        this.ensurePathCapacity();
+
+        int depth = 0;
+        int node = this.root;
+        while (this.right[node] != NIL) {
+            this.path[depth++] = node;
+            node = this.right[node];
+        }
+
+        this.replaceChild(depth, node, this.left[node]);
+        this.release(node);
+        this.retrace(depth);
+    }
+
+    private int allocate(int item) {
+        int node;
+        if (this.free != NIL) {
+            node = this.free;
+            this.free = this.left[node];
+        } else {
+            if (this.top == this.keys.length) {
+                this.grow();
+            }
+            node = this.top++;
+        }
+
+        this.keys[node] = item;
+        this.left[node] = NIL;
+        this.right[node] = NIL;
+        this.height[node] = 1;
+        this.size++;
+        return node;
+    }
+
+    private void release(int node) {
+        this.right[node] = NIL;
+        this.height[node] = 0;
+        this.left[node] = this.free;
+        this.free = node;
+        this.size--;
+    }
+
+    private void grow() {
+        int capacity = Math.max(this.keys.length * 2, DEFAULT_CAPACITY + 1);
+        this.keys = Arrays.copyOf(this.keys, capacity);
+        this.left = Arrays.copyOf(this.left, capacity);
+        this.right = Arrays.copyOf(this.right, capacity);
+        this.height = Arrays.copyOf(this.height, capacity);
+    }
+
+    private void retrace(int depth) {
+        for (int i = depth - 1; i >= 0; i--) {
+            int node = this.path[i];
+            int oldHeight = this.height[node];
+
+            this.updateHeight(node);
+            int balanced = this.balance(node);
+            if (balanced != node) {
+                this.replaceChild(i, node, balanced);
+            }
+
+            if (this.height[balanced] == oldHeight) {
+                return;
+            }
+        }
+    }
+
+    private void replaceChild(int index, int node, int replacement) {
+        if (index == 0) {
+            this.root = replacement;
+            return;
+        }
+
+        int parent = this.path[index - 1];
+        if (this.left[parent] == node) {
+            this.left[parent] = replacement;
+        } else {
+            this.right[parent] = replacement;
+        }
+    }
+
+    private void ensurePathCapacity() {
+        int required = this.height[this.root] + 1;
+        if (this.path.length < required) {
+            this.path = Arrays.copyOf(this.path, Math.max(required, this.path.length * 2));
+        }
+    }
+
+    private void eachInOrder(int node, IntConsumer action) {
+        if (node == NIL) {
+            return;
+        }
+
+        this.eachInOrder(this.left[node], action);
+        action.accept(this.keys[node]);
+        this.eachInOrder(this.right[node], action);
+    }
+
+    private int rotateLeft(int node) {
+        int right = this.right[node];
+        this.right[node] = this.left[right];
+        this.left[right] = node;
+
+        this.updateHeight(node);
+        this.updateHeight(right);
+
+        return right;
+    }
+
+    private int rotateRight(int node) {
+        int left = this.left[node];
+        this.left[node] = this.right[left];
+        this.right[left] = node;
+
+        this.updateHeight(node);
+        this.updateHeight(left);
+
+        return left;
+    }
+
+    private int balance(int node) {
+        int balance = this.balanceFactor(node);
+
+        if (balance < -1) {
+            if (this.balanceFactor(this.right[node]) > 0) {
+                this.right[node] = this.rotateRight(this.right[node]);
+            }
+            return this.rotateLeft(node);
+        } else if (balance > 1) {
+            if (this.balanceFactor(this.left[node]) < 0) {
+                this.left[node] = this.rotateLeft(this.left[node]);
+            }
+            return this.rotateRight(node);
+        }
+
+        return node;
+    }
+
+    private int balanceFactor(int node) {
+        return this.height[this.left[node]] - this.height[this.right[node]];
+    }
+
+    private void updateHeight(int node) {
+        this.height[node] = (byte) (Math.max(this.height[this.left[node]], this.height[this.right[node]]) + 1);
+    }
+}
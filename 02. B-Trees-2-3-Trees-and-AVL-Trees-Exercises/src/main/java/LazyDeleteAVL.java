@@ -0,0 +1,425 @@
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * AVL tree whose deletes only mark the node dead: a tombstone keeps routing lookups but
+ * is never reported, and inserting its key again revives it. A delete is one descent with
+ * no rotations and no successor splicing.
+ * <p>
+ * Once tombstones exceed a configurable fraction of the nodes they are compacted away.
+ * With a compaction step of 0 the whole tree is rebuilt from its live nodes at once, in
+ * O(n) but only after O(n) deletes. With a positive step every following insert also
+ * unlinks up to that many tombstones, and every following delete one more, since it may
+ * add a tombstone of its own; so a compaction finishes even under deletes alone, and the
+ * pause of a single call stays bounded. Each node counts the tombstones below it, so a
+ * tombstone is found in O(log n).
+ */
+public class LazyDeleteAVL<T extends Comparable<T>> {
+
+    private static final int INITIAL_PATH_CAPACITY = 32;
+    private static final double DEFAULT_MAX_DEAD_FRACTION = 0.25;
+
+    private static final class Node<T> {
+        private final T value;
+        private boolean dead;
+        private Node<T> left;
+        private Node<T> right;
+        private int height;
+        // tombstones in this subtree, this node included
+        private int deadBelow;
+
+        private Node(T value) {
+            this.value = value;
+            this.height = 1;
+        }
+    }
+
+    private Node<T> root;
+    private int live;
+    private int dead;
+
+    private double maxDeadFraction;
+    private int compactionStep;
+    private boolean compacting;
+
+    // nodes from the root down to the last touched node, reused by every update
+    private Node<T>[] path;
+
+    @SuppressWarnings("unchecked")
+    public LazyDeleteAVL() {
+        this.path = (Node<T>[]) new Node[INITIAL_PATH_CAPACITY];
+        this.maxDeadFraction = DEFAULT_MAX_DEAD_FRACTION;
+    }
+
+    /**
+     * Sets the fraction of all nodes that may be tombstones before compaction starts.
+     */
+    public void setMaxDeadFraction(double fraction) {
+        if (!(fraction > 0 && fraction < 1)) {
+            throw new IllegalArgumentException("fraction must be between 0 and 1: " + fraction);
+        }
+        this.maxDeadFraction = fraction;
+    }
+
+    /**
+     * Sets how many tombstones each update unlinks while a compaction is running, or 0
+     * to rebuild the whole tree at once.
+     */
+    public void setCompactionStep(int step) {
+        if (step < 0) {
+            throw new IllegalArgumentException("negative step: " + step);
+        }
+        this.compactionStep = step;
+    }
+
+    /**
+     * Returns the number of live keys.
+     */
+    public int size() {
+        return this.live;
+    }
+
+    public int deadCount() {
+        return this.dead;
+    }
+
+    public int height() {
+        return height(this.root);
+    }
+
+    public boolean contains(T item) {
+        Node<T> node = this.root;
+        while (node != null) {
+            int cmp = item.compareTo(node.value);
+            if (cmp < 0) {
+                node = node.left;
+            } else if (cmp > 0) {
+                node = node.right;
+            } else {
+                return !node.dead;
+            }
+        }
+
+        return false;
+    }
+
+    public void insert(T item) {
+        this.compactStep(this.compactionStep);
+
+        if (this.root == null) {
+            this.root = new Node<>(item);
+            this.live = 1;
+            return;
+        }
+
+        this.ensurePathCapacity();
+
+        int depth = 0;
+        Node<T> node = this.root;
+        while (true) {
+            int cmp = item.compareTo(node.value);
+            if (cmp == 0) {
+                if (node.dead) {
+                    node.dead = false;
+                    node.deadBelow--;
+                    this.addToDeadCounts(depth, -1);
+                    this.dead--;
+                    this.live++;
+                }
+                return;
+            }
+
+            this.path[depth++] = node;
+            if (cmp < 0) {
+                if (node.left == null) {
+                    node.left = new Node<>(item);
+                    break;
+                }
+                node = node.left;
+            } else {
+                if (node.right == null) {
+                    node.right = new Node<>(item);
+                    break;
+                }
+                node = node.right;
+            }
+        }
+
+        this.live++;
+        this.retrace(depth);
+    }
+
+    public void delete(T item) {
+        // one more than the tombstone this delete may add, or the compaction never ends
+        this.compactStep(this.compactionStep + 1);
+        this.ensurePathCapacity();
+
+        int depth = 0;
+        Node<T> node = this.root;
+        while (node != null) {
+            int cmp = item.compareTo(node.value);
+            if (cmp == 0) {
+                break;
+            }
+
+            this.path[depth++] = node;
+            node = cmp < 0 ? node.left : node.right;
+        }
+
+        if (node == null || node.dead) {
+            return;
+        }
+
+        node.dead = true;
+        node.deadBelow++;
+        this.addToDeadCounts(depth, 1);
+        this.live--;
+        this.dead++;
+
+        if (!this.compacting && this.dead > this.maxDeadFraction * (this.live + this.dead)) {
+            if (this.compactionStep == 0) {
+                this.compact();
+            } else {
+                this.compacting = true;
+            }
+        }
+    }
+
+    /**
+     * Removes every tombstone now by relinking the live nodes perfectly balanced.
+     */
+    @SuppressWarnings("unchecked")
+    public void compact() {
+        this.compacting = false;
+        if (this.dead == 0) {
+            return;
+        }
+
+        Node<T>[] nodes = (Node<T>[]) new Node[this.live];
+        int[] count = {0};
+        this.collectLive(this.root, nodes, count);
+        this.root = this.link(nodes, 0, count[0]);
+        this.dead = 0;
+    }
+
+    /**
+     * Visits the live keys in order.
+     */
+    public void eachInOrder(Consumer<T> consumer) {
+        this.eachInOrder(this.root, consumer);
+    }
+
+    public void clear() {
+        this.root = null;
+        this.live = 0;
+        this.dead = 0;
+        this.compacting = false;
+    }
+
+    // one increment of a running compaction, unlinking up to count tombstones
+    private void compactStep(int count) {
+        if (!this.compacting) {
+            return;
+        }
+
+        for (int i = 0; i < count && this.dead > 0; i++) {
+            this.unlinkTombstone();
+        }
+        if (this.dead == 0) {
+            this.compacting = false;
+        }
+    }
+
+    // Physically removes some tombstone, found by following the dead counts.
+    private void unlinkTombstone() {
+        this.ensurePathCapacity();
+
+        int depth = 0;
+        Node<T> node = this.root;
+        while (!node.dead) {
+            this.path[depth++] = node;
+            node = deadBelow(node.left) > 0 ? node.left : node.right;
+        }
+        this.dead--;
+
+        if (node.left == null || node.right == null) {
+            this.replaceChild(depth, node, node.left == null ? node.right : node.left);
+            this.retrace(depth);
+            return;
+        }
+
+        // two children: the successor takes the place of the removed node
+        int index = depth;
+        this.path[depth++] = node;
+
+        Node<T> minParent = node;
+        Node<T> min = node.right;
+        while (min.left != null) {
+            this.path[depth++] = min;
+            minParent = min;
+            min = min.left;
+        }
+
+        if (minParent == node) {
+            node.right = min.right;
+        } else {
+            minParent.left = min.right;
+        }
+
+        min.left = node.left;
+        min.right = node.right;
+        min.height = node.height;
+        this.path[index] = min;
+        this.replaceChild(index, node, min);
+
+        this.retrace(depth);
+    }
+
+    // a node below path[0, depth) died or was revived without changing the shape
+    private void addToDeadCounts(int depth, int delta) {
+        for (int i = depth - 1; i >= 0; i--) {
+            this.path[i].deadBelow += delta;
+        }
+    }
+
+    private void retrace(int depth) {
+        int i = depth - 1;
+        for (; i >= 0; i--) {
+            Node<T> node = this.path[i];
+            int oldHeight = node.height;
+
+            this.update(node);
+            Node<T> balanced = this.balance(node);
+            if (balanced != node) {
+                this.replaceChild(i, node, balanced);
+            }
+
+            if (balanced.height == oldHeight) {
+                break;
+            }
+        }
+
+        for (i--; i >= 0; i--) {
+            Node<T> node = this.path[i];
+            node.deadBelow = deadBelow(node.left) + deadBelow(node.right) + (node.dead ? 1 : 0);
+        }
+    }
+
+    // Links replacement where path[index] used to hang; index 0 is the root.
+    private void replaceChild(int index, Node<T> node, Node<T> replacement) {
+        if (index == 0) {
+            this.root = replacement;
+            return;
+        }
+
+        Node<T> parent = this.path[index - 1];
+        if (parent.left == node) {
+            parent.left = replacement;
+        } else {
+            parent.right = replacement;
+        }
+    }
+
+    private void ensurePathCapacity() {
+        int required = height(this.root) + 1;
+        if (this.path.length < required) {
+            this.path = Arrays.copyOf(this.path, Math.max(required, this.path.length * 2));
+        }
+    }
+
+    private void collectLive(Node<T> node, Node<T>[] nodes, int[] count) {
+        if (node == null) {
+            return;
+        }
+
+        this.collectLive(node.left, nodes, count);
+        if (!node.dead) {
+            nodes[count[0]++] = node;
+        }
+        this.collectLive(node.right, nodes, count);
+    }
+
+    // Relinks nodes[from, to) into a perfectly balanced subtree.
+    private Node<T> link(Node<T>[] nodes, int from, int to) {
+        if (from == to) {
+            return null;
+        }
+
+        int middle = (from + to) >>> 1;
+        Node<T> node = nodes[middle];
+        node.left = this.link(nodes, from, middle);
+        node.right = this.link(nodes, middle + 1, to);
+        this.update(node);
+        return node;
+    }
+
+    private void eachInOrder(Node<T> node, Consumer<T> action) {
+        if (node == null) {
+            return;
+        }
+
+        this.eachInOrder(node.left, action);
+        if (!node.dead) {
+            action.accept(node.value);
+        }
+        this.eachInOrder(node.right, action);
+    }
+
+    private Node<T> rotateLeft(Node<T> node) {
+        Node<T> right = node.right;
+        node.right = right.left;
+        right.left = node;
+
+        this.update(node);
+        this.update(right);
+
+        return right;
+    }
+
+    private Node<T> rotateRight(Node<T> node) {
+        Node<T> left = node.left;
+        node.left = left.right;
+        left.right = node;
+
+        this.update(node);
+        this.update(left);
+
+        return left;
+    }
+
+    private Node<T> balance(Node<T> node) {
+        int balance = this.balanceFactor(node);
+
+        if (balance < -1) {
+            if (this.balanceFactor(node.right) > 0) {
+                node.right = this.rotateRight(node.right);
+            }
+            return this.rotateLeft(node);
+        } else if (balance > 1) {
+            if (this.balanceFactor(node.left) < 0) {
+                node.left = this.rotateLeft(node.left);
+            }
+            return this.rotateRight(node);
+        }
+
+        return node;
+    }
+
+    private int balanceFactor(Node<T> node) {
+        return height(node.left) - height(node.right);
+    }
+
+    // recomputes the height and tombstone count of node from its children
+    private void update(Node<T> node) {
+        node.height = Math.max(height(node.left), height(node.right)) + 1;
+        node.deadBelow = deadBelow(node.left) + deadBelow(node.right) + (node.dead ? 1 : 0);
+    }
+
+    private static int height(Node<?> node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static int deadBelow(Node<?> node) {
+        return node == null ? 0 : node.deadBelow;
+    }
+}
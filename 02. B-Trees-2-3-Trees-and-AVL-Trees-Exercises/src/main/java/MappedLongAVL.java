@@ -0,0 +1,137 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * {@link OffHeapLongAVL} whose chunks are regions of a memory-mapped file. Reopening the
+ * file maps the chunks back and reads the root from the header, so a restart costs
+ * O(chunks) instead of re-inserting every key.
+ * <p>
+ * The header is written only by {@link #force()} and {@link #close()}. Updates made after
+ * the last checkpoint may reach the file partly, so the first update after a checkpoint
+ * first sets and forces a dirty flag in the header, and the next checkpoint clears it.
+ * {@link #open(Path)} refuses a file whose flag is set: the process that wrote it died,
+ * or still has it open, between checkpoints.
+ */
+public class MappedLongAVL extends OffHeapLongAVL implements Closeable {
+
+    private static final long MAGIC = 0x41564c4d41503031L;
+    // the header gets a page of its own so that the chunks stay page aligned
+    private static final int HEADER_BYTES = 4096;
+
+    private static final int MAGIC_OFFSET = 0;
+    private static final int ROOT_OFFSET = 8;
+    private static final int SIZE_OFFSET = 12;
+    private static final int TOP_OFFSET = 16;
+    private static final int FREE_OFFSET = 20;
+    private static final int CHUNKS_OFFSET = 24;
+    private static final int DIRTY_OFFSET = 28;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer header;
+    // whether the file holds updates made after the last checkpoint
+    private boolean dirty;
+
+    private MappedLongAVL(FileChannel channel) throws IOException {
+        this.channel = channel;
+        this.header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+        this.header.order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * Opens the tree stored in file, or creates an empty one if the file is new or empty.
+     */
+    public static MappedLongAVL open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            boolean empty = channel.size() == 0;
+            MappedLongAVL avl = new MappedLongAVL(channel);
+            if (empty) {
+                avl.force();
+            } else {
+                avl.load();
+            }
+            return avl;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Checkpoint: writes the header and flushes every mapped chunk to the file.
+     */
+    public void force() {
+        for (int i = 0; i < this.chunkCount; i++) {
+            ((MappedByteBuffer) this.chunks[i]).force();
+        }
+
+        this.header.putLong(MAGIC_OFFSET, MAGIC);
+        this.header.putInt(ROOT_OFFSET, this.root);
+        this.header.putInt(SIZE_OFFSET, this.size);
+        this.header.putInt(TOP_OFFSET, this.top);
+        this.header.putInt(FREE_OFFSET, this.free);
+        this.header.putInt(CHUNKS_OFFSET, this.chunkCount);
+        this.header.putInt(DIRTY_OFFSET, 0);
+        this.header.force();
+        this.dirty = false;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.force();
+        this.channel.close();
+    }
+
+    @Override
+    protected void beforeUpdate() {
+        if (!this.dirty) {
+            this.header.putInt(DIRTY_OFFSET, 1);
+            this.header.force();
+            this.dirty = true;
+        }
+    }
+
+    @Override
+    protected ByteBuffer allocateChunk(int index) {
+        try {
+            long offset = HEADER_BYTES + (long) index * CHUNK_BYTES;
+            return this.channel.map(FileChannel.MapMode.READ_WRITE, offset, CHUNK_BYTES)
+                    .order(ByteOrder.nativeOrder());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void load() throws IOException {
+        if (this.header.getLong(MAGIC_OFFSET) != MAGIC) {
+            throw new IOException("not an AVL file, or written with another byte order");
+        }
+        if (this.header.getInt(DIRTY_OFFSET) != 0) {
+            throw new IOException("AVL file has updates after its last checkpoint");
+        }
+
+        int chunkCount = this.header.getInt(CHUNKS_OFFSET);
+        if (this.channel.size() < HEADER_BYTES + (long) chunkCount * CHUNK_BYTES) {
+            throw new IOException("truncated AVL file");
+        }
+
+        this.chunks = Arrays.copyOf(this.chunks, Math.max(this.chunks.length, chunkCount));
+        for (int i = 0; i < chunkCount; i++) {
+            this.chunks[i] = this.allocateChunk(i);
+        }
+        this.chunkCount = chunkCount;
+        this.root = this.header.getInt(ROOT_OFFSET);
+        this.size = this.header.getInt(SIZE_OFFSET);
+        this.top = this.header.getInt(TOP_OFFSET);
+        this.free = this.header.getInt(FREE_OFFSET);
+    }
+}
@@ -0,0 +1,426 @@
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * AVL tree that keeps an occurrence count in each node instead of dropping duplicates.
+ * Every node also holds the total count of its subtree, so rank, select and percentile
+ * queries count each key as many times as it was added, in O(log n) for n distinct keys.
+ * <p>
+ * Updates are iterative and reuse one path buffer, as in {@link AVL}. Changing the count
+ * of a key that is already present only touches the totals on its path.
+ */
+public class MultisetAVL<T extends Comparable<T>> {
+
+    private static final int INITIAL_PATH_CAPACITY = 32;
+
+    private static final class Node<T> {
+        private final T value;
+        private int count;
+        private Node<T> left;
+        private Node<T> right;
+        private int height;
+        // sum of the counts in this subtree
+        private long total;
+
+        private Node(T value, int count) {
+            this.value = value;
+            this.count = count;
+            this.height = 1;
+            this.total = count;
+        }
+    }
+
+    private Node<T> root;
+    private int distinct;
+
+    // nodes from the root down to the last touched node, reused by every update
+    private Node<T>[] path;
+
+    @SuppressWarnings("unchecked")
+    public MultisetAVL() {
+        this.path = (Node<T>[]) new Node[INITIAL_PATH_CAPACITY];
+    }
+
+    /**
+     * Returns the number of occurrences of all keys.
+     */
+    public long totalSize() {
+        return total(this.root);
+    }
+
+    /**
+     * Returns the number of different keys.
+     */
+    public int distinctSize() {
+        return this.distinct;
+    }
+
+    public int height() {
+        return height(this.root);
+    }
+
+    public int count(T item) {
+        Node<T> node = this.root;
+        while (node != null) {
+            int cmp = item.compareTo(node.value);
+            if (cmp < 0) {
+                node = node.left;
+            } else if (cmp > 0) {
+                node = node.right;
+            } else {
+                return node.count;
+            }
+        }
+
+        return 0;
+    }
+
+    public boolean contains(T item) {
+        return this.count(item) > 0;
+    }
+
+    public void add(T item) {
+        this.add(item, 1);
+    }
+
+    /**
+     * Adds n occurrences of item and returns how many there were before.
+     */
+    public int add(T item, int n) {
+        if (n < 0) {
+            throw new IllegalArgumentException("negative count: " + n);
+        }
+        if (n == 0) {
+            return this.count(item);
+        }
+
+        if (this.root == null) {
+            this.root = new Node<>(item, n);
+            this.distinct = 1;
+            return 0;
+        }
+
+        this.ensurePathCapacity();
+
+        int depth = 0;
+        Node<T> node = this.root;
+        while (true) {
+            int cmp = item.compareTo(node.value);
+            if (cmp == 0) {
+                int old = node.count;
+                if (n > Integer.MAX_VALUE - old) {
+                    throw new IllegalStateException("count overflow for " + item);
+                }
+                node.count += n;
+                node.total += n;
+                this.addToTotals(depth, n);
+                return old;
+            }
+
+            this.path[depth++] = node;
+            if (cmp < 0) {
+                if (node.left == null) {
+                    node.left = new Node<>(item, n);
+                    break;
+                }
+                node = node.left;
+            } else {
+                if (node.right == null) {
+                    node.right = new Node<>(item, n);
+                    break;
+                }
+                node = node.right;
+            }
+        }
+
+        this.distinct++;
+        this.retrace(depth);
+        return 0;
+    }
+
+    /**
+     * Removes one occurrence of item. Returns false if it was not present.
+     */
+    public boolean removeOne(T item) {
+        return this.remove(item, 1) == 1;
+    }
+
+    /**
+     * Removes up to n occurrences of item and returns how many were removed.
+     */
+    public int remove(T item, int n) {
+        if (n < 0) {
+            throw new IllegalArgumentException("negative count: " + n);
+        }
+        if (this.root == null || n == 0) {
+            return 0;
+        }
+
+        this.ensurePathCapacity();
+
+        int depth = 0;
+        Node<T> node = this.root;
+        while (node != null) {
+            int cmp = item.compareTo(node.value);
+            if (cmp == 0) {
+                break;
+            }
+
+            this.path[depth++] = node;
+            node = cmp < 0 ? node.left : node.right;
+        }
+
+        if (node == null) {
+            return 0;
+        }
+
+        if (node.count > n) {
+            node.count -= n;
+            node.total -= n;
+            this.addToTotals(depth, -n);
+            return n;
+        }
+
+        int removed = node.count;
+        this.unlink(depth, node);
+        return removed;
+    }
+
+    /**
+     * Removes every occurrence of item and returns how many there were.
+     */
+    public int removeAll(T item) {
+        return this.remove(item, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns the number of occurrences of keys strictly less than item.
+     */
+    public long rank(T item) {
+        long rank = 0;
+        Node<T> node = this.root;
+        while (node != null) {
+            int cmp = item.compareTo(node.value);
+            if (cmp < 0) {
+                node = node.left;
+            } else if (cmp > 0) {
+                rank += total(node.left) + node.count;
+                node = node.right;
+            } else {
+                return rank + total(node.left);
+            }
+        }
+
+        return rank;
+    }
+
+    /**
+     * Returns the key at the given 0-based position of the sorted sequence in which every
+     * key is repeated by its count.
+     */
+    public T select(long index) {
+        if (index < 0 || index >= this.totalSize()) {
+            throw new IllegalArgumentException();
+        }
+
+        Node<T> node = this.root;
+        while (true) {
+            long leftTotal = total(node.left);
+            if (index < leftTotal) {
+                node = node.left;
+            } else if (index < leftTotal + node.count) {
+                return node.value;
+            } else {
+                index -= leftTotal + node.count;
+                node = node.right;
+            }
+        }
+    }
+
+    /**
+     * Returns the nearest-rank percentile: the smallest key such that at least percent
+     * per cent of all occurrences are less than or equal to it.
+     */
+    public T percentile(double percent) {
+        if (!(percent >= 0 && percent <= 100)) {
+            throw new IllegalArgumentException("percent out of range: " + percent);
+        }
+
+        long total = this.totalSize();
+        if (total == 0) {
+            throw new NoSuchElementException();
+        }
+
+        long rank = (long) Math.ceil(percent / 100 * total);
+        return this.select(Math.max(rank, 1) - 1);
+    }
+
+    /**
+     * Visits the keys in order together with their counts.
+     */
+    public void eachInOrder(ObjIntConsumer<T> consumer) {
+        this.eachInOrder(this.root, consumer);
+    }
+
+    public void clear() {
+        this.root = null;
+        this.distinct = 0;
+    }
+
+    // Removes node, found below path[0, depth), from the tree.
+    private void unlink(int depth, Node<T> node) {
+        this.distinct--;
+        if (node.left == null || node.right == null) {
+            this.replaceChild(depth, node, node.left == null ? node.right : node.left);
+            this.retrace(depth);
+            return;
+        }
+
+        // two children: the successor takes the place of the removed node
+        int index = depth;
+        this.path[depth++] = node;
+
+        Node<T> minParent = node;
+        Node<T> min = node.right;
+        while (min.left != null) {
+            this.path[depth++] = min;
+            minParent = min;
+            min = min.left;
+        }
+
+        if (minParent == node) {
+            node.right = min.right;
+        } else {
+            minParent.left = min.right;
+        }
+
+        min.left = node.left;
+        min.right = node.right;
+        min.height = node.height;
+        this.path[index] = min;
+        this.replaceChild(index, node, min);
+
+        this.retrace(depth);
+    }
+
+    // a count changed below path[0, depth) without changing the shape
+    private void addToTotals(int depth, int delta) {
+        for (int i = depth - 1; i >= 0; i--) {
+            this.path[i].total += delta;
+        }
+    }
+
+    private void retrace(int depth) {
+        int i = depth - 1;
+        for (; i >= 0; i--) {
+            Node<T> node = this.path[i];
+            int oldHeight = node.height;
+
+            this.update(node);
+            Node<T> balanced = this.balance(node);
+            if (balanced != node) {
+                this.replaceChild(i, node, balanced);
+            }
+
+            if (balanced.height == oldHeight) {
+                break;
+            }
+        }
+
+        for (i--; i >= 0; i--) {
+            Node<T> node = this.path[i];
+            node.total = total(node.left) + total(node.right) + node.count;
+        }
+    }
+
+    // Links replacement where path[index] used to hang; index 0 is the root.
+    private void replaceChild(int index, Node<T> node, Node<T> replacement) {
+        if (index == 0) {
+            this.root = replacement;
+            return;
+        }
+
+        Node<T> parent = this.path[index - 1];
+        if (parent.left == node) {
+            parent.left = replacement;
+        } else {
+            parent.right = replacement;
+        }
+    }
+
+    private void ensurePathCapacity() {
+        int required = height(this.root) + 1;
+        if (this.path.length < required) {
+            this.path = Arrays.copyOf(this.path, Math.max(required, this.path.length * 2));
+        }
+    }
+
+    private void eachInOrder(Node<T> node, ObjIntConsumer<T> action) {
+        if (node == null) {
+            return;
+        }
+
+        this.eachInOrder(node.left, action);
+        action.accept(node.value, node.count);
+        this.eachInOrder(node.right, action);
+    }
+
+    private Node<T> rotateLeft(Node<T> node) {
+        Node<T> right = node.right;
+        node.right = right.left;
+        right.left = node;
+
+        this.update(node);
+        this.update(right);
+
+        return right;
+    }
+
+    private Node<T> rotateRight(Node<T> node) {
+        Node<T> left = node.left;
+        node.left = left.right;
+        left.right = node;
+
+        this.update(node);
+        this.update(left);
+
+        return left;
+    }
+
+    private Node<T> balance(Node<T> node) {
+        int balance = this.balanceFactor(node);
+
+        if (balance < -1) {
+            if (this.balanceFactor(node.right) > 0) {
+                node.right = this.rotateRight(node.right);
+            }
+            return this.rotateLeft(node);
+        } else if (balance > 1) {
+            if (this.balanceFactor(node.left) < 0) {
+                node.left = this.rotateLeft(node.left);
+            }
+            return this.rotateRight(node);
+        }
+
+        return node;
+    }
+
+    private int balanceFactor(Node<T> node) {
+        return height(node.left) - height(node.right);
+    }
+
+    // recomputes the height and subtree total of node from its children
+    private void update(Node<T> node) {
+        node.height = Math.max(height(node.left), height(node.right)) + 1;
+        node.total = total(node.left) + total(node.right) + node.count;
+    }
+
+    private static int height(Node<?> node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static long total(Node<?> node) {
+        return node == null ? 0 : node.total;
+    }
+}
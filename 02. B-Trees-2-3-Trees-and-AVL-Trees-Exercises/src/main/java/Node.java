@@ -5,10 +5,12 @@ public class Node<T extends Comparable<T>> {
     public Node<T> right;
 
     public int height;
+    public int size;
 
     public Node(T value) {
         this.value = value;
         this.height = 1;
+        this.size = 1;
     }
 
 }
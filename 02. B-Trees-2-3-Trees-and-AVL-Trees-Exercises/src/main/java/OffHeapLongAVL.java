@@ -0,0 +1,385 @@
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * AVL tree of long keys whose nodes live outside the Java heap, in direct byte buffer
+ * chunks. Child links are int node numbers, so the heap holds only this handle and the
+ * chunk table, and GC cost does not grow with the number of keys.
+ * <p>
+ * Node 0 is the NIL sentinel with height 0, as in {@link PooledAVL}. Freed nodes are
+ * chained through their left link and reused by later inserts.
+ */
+public class OffHeapLongAVL {
+
+    // node layout: key, left, right, height
+    private static final int NODE_BYTES = 20;
+    private static final int KEY = 0;
+    private static final int LEFT = 8;
+    private static final int RIGHT = 12;
+    private static final int HEIGHT = 16;
+
+    private static final int CHUNK_SHIFT = 16;
+    private static final int CHUNK_NODES = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_NODES - 1;
+    protected static final int CHUNK_BYTES = CHUNK_NODES * NODE_BYTES;
+
+    private static final int NIL = 0;
+    private static final int INITIAL_PATH_CAPACITY = 32;
+
+    // the arena state; subclasses that keep the chunks elsewhere save and restore it
+    protected ByteBuffer[] chunks;
+    protected int chunkCount;
+
+    protected int root;
+    protected int size;
+    // first never-used node; nodes below it are either live or on the free list
+    protected int top;
+    protected int free;
+
+    private int[] path;
+
+    public OffHeapLongAVL() {
+        this.chunks = new ByteBuffer[16];
+        this.root = NIL;
+        this.top = 1;
+        this.free = NIL;
+        this.path = new int[INITIAL_PATH_CAPACITY];
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public int height() {
+        return this.height(this.root);
+    }
+
+    /**
+     * Returns the number of bytes reserved outside the heap.
+     */
+    public long offHeapBytes() {
+        return (long) this.chunkCount * CHUNK_BYTES;
+    }
+
+    public boolean contains(long item) {
+        int node = this.root;
+        while (node != NIL) {
+            long key = this.key(node);
+            if (item < key) {
+                node = this.left(node);
+            } else if (item > key) {
+                node = this.right(node);
+            } else {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    public void insert(long item) {
+        this.beforeUpdate();
+        if (this.root == NIL) {
+            this.root = this.allocate(item);
+            return;
+        }
+
+        this.ensurePathCapacity();
+
+        int depth = 0;
+        int node = this.root;
+        while (true) {
+            long key = this.key(node);
+            if (item == key) {
+                return;
+            }
+
+            this.path[depth++] = node;
+            if (item < key) {
+                int left = this.left(node);
+                if (left == NIL) {
+                    this.setLeft(node, this.allocate(item));
+                    break;
+                }
+                node = left;
+            } else {
+                int right = this.right(node);
+                if (right == NIL) {
+                    this.setRight(node, this.allocate(item));
+                    break;
+                }
+                node = right;
+            }
+        }
+
+        this.retrace(depth);
+    }
+
+    public void eachInOrder(LongConsumer consumer) {
+        this.eachInOrder(this.root, consumer);
+    }
+
+    public void delete(long item) {
+        this.beforeUpdate();
+        if (this.root == NIL) {
+            return;
+        }
+
+        this.ensurePathCapacity();
+
+        int depth = 0;
+        int node = this.root;
+        while (node != NIL) {
+            long key = this.key(node);
+            if (item == key) {
+                break;
+            }
+
+            this.path[depth++] = node;
+            node = item < key ? this.left(node) : this.right(node);
+        }
+
+        if (node == NIL) {
+            return;
+        }
+
+        int left = this.left(node);
+        int right = this.right(node);
+        if (left == NIL || right == NIL) {
+            this.replaceChild(depth, node, left == NIL ? right : left);
+            this.release(node);
+            this.retrace(depth);
+            return;
+        }
+
+        int index = depth;
+        this.path[depth++] = node;
+
+        int minParent = node;
+        int min = right;
+        while (this.left(min) != NIL) {
+            this.path[depth++] = min;
+            minParent = min;
+            min = this.left(min);
+        }
+
+        if (minParent == node) {
+            this.setRight(node, this.right(min));
+        } else {
+            this.setLeft(minParent, this.right(min));
+        }
+
+        this.setLeft(min, this.left(node));
+        this.setRight(min, this.right(node));
+        this.setHeight(min, this.height(node));
+        this.path[index] = min;
+        this.replaceChild(index, node, min);
+        this.release(node);
+
+        this.retrace(depth);
+    }
+
+    /**
+     * Drops every key and hands the chunks back; the memory is reclaimed once the
+     * buffers are collected.
+     */
+    public void clear() {
+        this.beforeUpdate();
+        Arrays.fill(this.chunks, 0, this.chunkCount, null);
+        this.chunkCount = 0;
+        this.root = NIL;
+        this.size = 0;
+        this.top = 1;
+        this.free = NIL;
+    }
+
+    /**
+     * Called before insert, delete and clear touch the chunks. Does nothing here.
+     */
+    protected void beforeUpdate() {
+    }
+
+    /**
+     * Returns the buffer for chunk number index, in native byte order. Node 0 of chunk 0
+     * is the NIL sentinel and must read as zeros; every other node is written before use.
+     */
+    protected ByteBuffer allocateChunk(int index) {
+        return ByteBuffer.allocateDirect(CHUNK_BYTES).order(ByteOrder.nativeOrder());
+    }
+
+    // makes sure the chunks for nodes [0, nodes) exist
+    private void ensureChunks(int nodes) {
+        int required = (int) (((long) nodes + CHUNK_NODES - 1) >>> CHUNK_SHIFT);
+        while (this.chunkCount < required) {
+            if (this.chunkCount == this.chunks.length) {
+                this.chunks = Arrays.copyOf(this.chunks, this.chunks.length * 2);
+            }
+            this.chunks[this.chunkCount] = this.allocateChunk(this.chunkCount);
+            this.chunkCount++;
+        }
+    }
+
+    private int allocate(long item) {
+        int node;
+        if (this.free != NIL) {
+            node = this.free;
+            this.free = this.left(node);
+        } else {
+            if (this.top == Integer.MAX_VALUE) {
+                throw new IllegalStateException("node limit reached");
+            }
+            this.ensureChunks(this.top + 1);
+            node = this.top++;
+        }
+
+        ByteBuffer chunk = this.chunks[node >>> CHUNK_SHIFT];
+        int offset = offset(node);
+        chunk.putLong(offset + KEY, item);
+        chunk.putInt(offset + LEFT, NIL);
+        chunk.putInt(offset + RIGHT, NIL);
+        chunk.putInt(offset + HEIGHT, 1);
+        this.size++;
+        return node;
+    }
+
+    private void release(int node) {
+        this.setRight(node, NIL);
+        this.setHeight(node, 0);
+        this.setLeft(node, this.free);
+        this.free = node;
+        this.size--;
+    }
+
+    private void retrace(int depth) {
+        for (int i = depth - 1; i >= 0; i--) {
+            int node = this.path[i];
+            int oldHeight = this.height(node);
+
+            this.updateHeight(node);
+            int balanced = this.balance(node);
+            if (balanced != node) {
+                this.replaceChild(i, node, balanced);
+            }
+
+            if (this.height(balanced) == oldHeight) {
+                return;
+            }
+        }
+    }
+
+    private void replaceChild(int index, int node, int replacement) {
+        if (index == 0) {
+            this.root = replacement;
+            return;
+        }
+
+        int parent = this.path[index - 1];
+        if (this.left(parent) == node) {
+            this.setLeft(parent, replacement);
+        } else {
+            this.setRight(parent, replacement);
+        }
+    }
+
+    private void ensurePathCapacity() {
+        int required = this.height(this.root) + 1;
+        if (this.path.length < required) {
+            this.path = Arrays.copyOf(this.path, Math.max(required, this.path.length * 2));
+        }
+    }
+
+    private void eachInOrder(int node, LongConsumer action) {
+        if (node == NIL) {
+            return;
+        }
+
+        this.eachInOrder(this.left(node), action);
+        action.accept(this.key(node));
+        this.eachInOrder(this.right(node), action);
+    }
+
+    private int rotateLeft(int node) {
+        int right = this.right(node);
+        this.setRight(node, this.left(right));
+        this.setLeft(right, node);
+
+        this.updateHeight(node);
+        this.updateHeight(right);
+
+        return right;
+    }
+
+    private int rotateRight(int node) {
+        int left = this.left(node);
+        this.setLeft(node, this.right(left));
+        this.setRight(left, node);
+
+        this.updateHeight(node);
+        this.updateHeight(left);
+
+        return left;
+    }
+
+    private int balance(int node) {
+        int balance = this.balanceFactor(node);
+
+        if (balance < -1) {
+            if (this.balanceFactor(this.right(node)) > 0) {
+                this.setRight(node, this.rotateRight(this.right(node)));
+            }
+            return this.rotateLeft(node);
+        } else if (balance > 1) {
+            if (this.balanceFactor(this.left(node)) < 0) {
+                this.setLeft(node, this.rotateLeft(this.left(node)));
+            }
+            return this.rotateRight(node);
+        }
+
+        return node;
+    }
+
+    private int balanceFactor(int node) {
+        return this.height(this.left(node)) - this.height(this.right(node));
+    }
+
+    private void updateHeight(int node) {
+        this.setHeight(node, Math.max(this.height(this.left(node)), this.height(this.right(node))) + 1);
+    }
+
+    private long key(int node) {
+        return this.chunks[node >>> CHUNK_SHIFT].getLong(offset(node) + KEY);
+    }
+
+    private int left(int node) {
+        return this.chunks[node >>> CHUNK_SHIFT].getInt(offset(node) + LEFT);
+    }
+
+    private int right(int node) {
+        return this.chunks[node >>> CHUNK_SHIFT].getInt(offset(node) + RIGHT);
+    }
+
+    private int height(int node) {
+        if (node == NIL) {
+            return 0;
+        }
+        return this.chunks[node >>> CHUNK_SHIFT].getInt(offset(node) + HEIGHT);
+    }
+
+    private void setLeft(int node, int left) {
+        this.chunks[node >>> CHUNK_SHIFT].putInt(offset(node) + LEFT, left);
+    }
+
+    private void setRight(int node, int right) {
+        this.chunks[node >>> CHUNK_SHIFT].putInt(offset(node) + RIGHT, right);
+    }
+
+    private void setHeight(int node, int height) {
+        this.chunks[node >>> CHUNK_SHIFT].putInt(offset(node) + HEIGHT, height);
+    }
+
+    private static int offset(int node) {
+        return (node & CHUNK_MASK) * NODE_BYTES;
+    }
+}
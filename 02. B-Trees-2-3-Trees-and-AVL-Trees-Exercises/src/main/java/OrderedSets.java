@@ -0,0 +1,166 @@
+import java.util.NavigableSet;
+import java.util.function.Consumer;
+
+/**
+ * {@link OrderedSet} views of the trees in this module and of any {@link NavigableSet},
+ * the latter as a baseline. The views write through to the wrapped structure.
+ */
+public final class OrderedSets {
+
+    private OrderedSets() {
+    }
+
+    public static <T extends Comparable<T>> OrderedSet<T> of(AVL<T> tree) {
+        return new AVLSet<>(tree);
+    }
+
+    /**
+     * The 2-3 tree stores repeated inserts as separate keys, so the view inserts through
+     * {@link TwoThreeTree#add}, which skips keys that are already present.
+     */
+    public static <T extends Comparable<T>> OrderedSet<T> of(TwoThreeTree<T> tree) {
+        return new TwoThreeSet<>(tree);
+    }
+
+    public static <T extends Comparable<T>> OrderedSet<T> of(BTree<T> tree) {
+        return new BTreeSet<>(tree);
+    }
+
+    public static <T extends Comparable<T>> OrderedSet<T> of(NavigableSet<T> set) {
+        return new JdkSet<>(set);
+    }
+
+    private static final class AVLSet<T extends Comparable<T>> implements OrderedSet<T> {
+        private final AVL<T> tree;
+
+        private AVLSet(AVL<T> tree) {
+            this.tree = tree;
+        }
+
+        @Override
+        public void insert(T item) {
+            this.tree.insert(item);
+        }
+
+        @Override
+        public boolean contains(T item) {
+            return this.tree.contains(item);
+        }
+
+        @Override
+        public void delete(T item) {
+            this.tree.delete(item);
+        }
+
+        @Override
+        public int size() {
+            return this.tree.size();
+        }
+
+        @Override
+        public void eachInOrder(Consumer<T> consumer) {
+            this.tree.eachInOrder(consumer);
+        }
+    }
+
+    private static final class TwoThreeSet<T extends Comparable<T>> implements OrderedSet<T> {
+        private final TwoThreeTree<T> tree;
+
+        private TwoThreeSet(TwoThreeTree<T> tree) {
+            this.tree = tree;
+        }
+
+        @Override
+        public void insert(T item) {
+            this.tree.add(item);
+        }
+
+        @Override
+        public boolean contains(T item) {
+            return this.tree.contains(item);
+        }
+
+        @Override
+        public void delete(T item) {
+            this.tree.delete(item);
+        }
+
+        @Override
+        public int size() {
+            int[] count = {0};
+            this.tree.eachInOrder(key -> count[0]++);
+            return count[0];
+        }
+
+        @Override
+        public void eachInOrder(Consumer<T> consumer) {
+            this.tree.eachInOrder(consumer);
+        }
+    }
+
+    private static final class BTreeSet<T extends Comparable<T>> implements OrderedSet<T> {
+        private final BTree<T> tree;
+
+        private BTreeSet(BTree<T> tree) {
+            this.tree = tree;
+        }
+
+        @Override
+        public void insert(T item) {
+            this.tree.insert(item);
+        }
+
+        @Override
+        public boolean contains(T item) {
+            return this.tree.contains(item);
+        }
+
+        @Override
+        public void delete(T item) {
+            this.tree.delete(item);
+        }
+
+        @Override
+        public int size() {
+            return this.tree.size();
+        }
+
+        @Override
+        public void eachInOrder(Consumer<T> consumer) {
+            this.tree.eachInOrder(consumer);
+        }
+    }
+
+    private static final class JdkSet<T extends Comparable<T>> implements OrderedSet<T> {
+        private final NavigableSet<T> set;
+
+        private JdkSet(NavigableSet<T> set) {
+            this.set = set;
+        }
+
+        @Override
+        public void insert(T item) {
+            this.set.add(item);
+        }
+
+        @Override
+        public boolean contains(T item) {
+            return this.set.contains(item);
+        }
+
+        @Override
+        public void delete(T item) {
+            this.set.remove(item);
+        }
+
+        @Override
+        public int size() {
+            return this.set.size();
+        }
+
+        @Override
+        public void eachInOrder(Consumer<T> consumer) {
+            this.set.forEach(consumer);
+        }
+    }
+}
@@ -0,0 +1,212 @@
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+/**
+ * AVL tree with immutable nodes. Updates copy only the nodes on the path they touch and
+ * share the rest, so {@link #snapshot()} is O(1) and a snapshot never changes afterwards.
+ * Writers are serialized; readers never lock.
+ */
+public class PersistentAVL<T extends Comparable<T>> implements Iterable<T> {
+
+    private static final class Node<T> {
+        private final T value;
+        private final Node<T> left;
+        private final Node<T> right;
+        private final int height;
+        private final int size;
+
+        private Node(T value, Node<T> left, Node<T> right) {
+            this.value = value;
+            this.left = left;
+            this.right = right;
+            this.height = Math.max(height(left), height(right)) + 1;
+            this.size = size(left) + size(right) + 1;
+        }
+    }
+
+    private volatile Node<T> root;
+
+    public PersistentAVL() {
+    }
+
+    private PersistentAVL(Node<T> root) {
+        this.root = root;
+    }
+
+    /**
+     * Returns a tree holding the current keys. It shares every node with this tree, and
+     * later updates to either tree are not visible in the other.
+     */
+    public PersistentAVL<T> snapshot() {
+        return new PersistentAVL<>(this.root);
+    }
+
+    public int size() {
+        return size(this.root);
+    }
+
+    public int height() {
+        return height(this.root);
+    }
+
+    public boolean contains(T item) {
+        Node<T> node = this.root;
+        while (node != null) {
+            int cmp = item.compareTo(node.value);
+            if (cmp < 0) {
+                node = node.left;
+            } else if (cmp > 0) {
+                node = node.right;
+            } else {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    public synchronized void insert(T item) {
+        this.root = this.insert(this.root, item);
+    }
+
+    public synchronized void delete(T item) {
+        this.root = this.delete(this.root, item);
+    }
+
+    public void eachInOrder(Consumer<T> consumer) {
+        this.eachInOrder(this.root, consumer);
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        Node<T> start = this.root;
+        return new Iterator<>() {
+            private final Deque<Node<T>> stack = new ArrayDeque<>();
+
+            {
+                this.pushLeft(start);
+            }
+
+            @Override
+            public boolean hasNext() {
+                return !this.stack.isEmpty();
+            }
+
+            @Override
+            public T next() {
+                Node<T> node = this.stack.poll();
+                if (node == null) {
+                    throw new NoSuchElementException();
+                }
+
+                this.pushLeft(node.right);
+                return node.value;
+            }
+
+            private void pushLeft(Node<T> node) {
+                for (; node != null; node = node.left) {
+                    this.stack.push(node);
+                }
+            }
+        };
+    }
+
+    private Node<T> insert(Node<T> node, T item) {
+        if (node == null) {
+            return new Node<>(item, null, null);
+        }
+
+        int cmp = item.compareTo(node.value);
+        if (cmp < 0) {
+            Node<T> left = this.insert(node.left, item);
+            return left == node.left ? node : this.balance(node.value, left, node.right);
+        } else if (cmp > 0) {
+            Node<T> right = this.insert(node.right, item);
+            return right == node.right ? node : this.balance(node.value, node.left, right);
+        }
+
+        return node;
+    }
+
+    private Node<T> delete(Node<T> node, T item) {
+        if (node == null) {
+            return null;
+        }
+
+        int cmp = item.compareTo(node.value);
+        if (cmp < 0) {
+            Node<T> left = this.delete(node.left, item);
+            return left == node.left ? node : this.balance(node.value, left, node.right);
+        } else if (cmp > 0) {
+            Node<T> right = this.delete(node.right, item);
+            return right == node.right ? node : this.balance(node.value, node.left, right);
+        }
+
+        if (node.left == null) {
+            return node.right;
+        } else if (node.right == null) {
+            return node.left;
+        }
+
+        Node<T> min = node.right;
+        while (min.left != null) {
+            min = min.left;
+        }
+
+        return this.balance(min.value, node.left, this.deleteMin(node.right));
+    }
+
+    private Node<T> deleteMin(Node<T> node) {
+        if (node.left == null) {
+            return node.right;
+        }
+
+        return this.balance(node.value, this.deleteMin(node.left), node.right);
+    }
+
+    // builds the node for value over left and right, rotating with fresh nodes if needed
+    private Node<T> balance(T value, Node<T> left, Node<T> right) {
+        int balance = height(left) - height(right);
+
+        if (balance < -1) {
+            if (height(right.left) > height(right.right)) {
+                Node<T> pivot = right.left;
+                return new Node<>(pivot.value,
+                        new Node<>(value, left, pivot.left),
+                        new Node<>(right.value, pivot.right, right.right));
+            }
+            return new Node<>(right.value, new Node<>(value, left, right.left), right.right);
+        } else if (balance > 1) {
+            if (height(left.right) > height(left.left)) {
+                Node<T> pivot = left.right;
+                return new Node<>(pivot.value,
+                        new Node<>(left.value, left.left, pivot.left),
+                        new Node<>(value, pivot.right, right));
+            }
+            return new Node<>(left.value, left.left, new Node<>(value, left.right, right));
+        }
+
+        return new Node<>(value, left, right);
+    }
+
+    private void eachInOrder(Node<T> node, Consumer<T> action) {
+        if (node == null) {
+            return;
+        }
+
+        this.eachInOrder(node.left, action);
+        action.accept(node.value);
+        this.eachInOrder(node.right, action);
+    }
+
+    private static int height(Node<?> node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static int size(Node<?> node) {
+        return node == null ? 0 : node.size;
+    }
+}
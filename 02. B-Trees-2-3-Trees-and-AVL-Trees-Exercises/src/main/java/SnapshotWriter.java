@@ -0,0 +1,116 @@
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+
+/**
+ * Streams keys in ascending order into a tree snapshot: a header with the key count,
+ * blocks of up to {@link #BLOCK_KEYS} keys that are encoded independently and optionally
+ * deflated, and an empty block as terminator. {@link SnapshotReader} reads it back.
+ */
+public class SnapshotWriter<K> {
+
+    static final int MAGIC = 0x54524545;
+    static final int COMPRESSED = 1;
+    static final int BLOCK_KEYS = 4096;
+
+    private final DataOutputStream out;
+    private final KeyCodec<K> codec;
+    private final int count;
+    private final Deflater deflater;
+
+    private final ByteArrayOutputStream block;
+    private final DataOutputStream blockOut;
+    private byte[] compressed;
+    private int blockKeys;
+    private int written;
+    private K previous;
+
+    /**
+     * Starts a snapshot of exactly count keys. The stream is not closed by {@link #finish()}.
+     */
+    public SnapshotWriter(OutputStream out, KeyCodec<K> codec, int count, boolean compress) throws IOException {
+        if (count < 0) {
+            throw new IllegalArgumentException();
+        }
+
+        this.out = new DataOutputStream(new BufferedOutputStream(out, 1 << 16));
+        this.codec = codec;
+        this.count = count;
+        this.deflater = compress ? new Deflater(Deflater.BEST_SPEED) : null;
+        this.block = new ByteArrayOutputStream();
+        this.blockOut = new DataOutputStream(this.block);
+
+        this.out.writeInt(MAGIC);
+        this.out.writeByte(compress ? COMPRESSED : 0);
+        this.out.writeInt(count);
+    }
+
+    public void write(K key) throws IOException {
+        if (this.written == this.count) {
+            throw new IllegalStateException("More keys than announced");
+        }
+
+        this.codec.write(this.blockOut, this.previous, key);
+        this.previous = key;
+        this.written++;
+        if (++this.blockKeys == BLOCK_KEYS) {
+            this.flushBlock();
+        }
+    }
+
+    /**
+     * Writes the last block and the terminator and flushes the underlying stream.
+     */
+    public void finish() throws IOException {
+        if (this.written != this.count) {
+            throw new IllegalStateException("Fewer keys than announced");
+        }
+
+        this.flushBlock();
+        this.out.writeInt(0);
+        this.out.flush();
+        if (this.deflater != null) {
+            this.deflater.end();
+        }
+    }
+
+    private void flushBlock() throws IOException {
+        if (this.blockKeys == 0) {
+            return;
+        }
+
+        this.blockOut.flush();
+        this.out.writeInt(this.blockKeys);
+        this.out.writeInt(this.block.size());
+        if (this.deflater == null) {
+            this.block.writeTo(this.out);
+        } else {
+            byte[] raw = this.block.toByteArray();
+            if (this.compressed == null || this.compressed.length < raw.length + 64) {
+                this.compressed = new byte[raw.length + raw.length / 8 + 64];
+            }
+
+            this.deflater.reset();
+            this.deflater.setInput(raw);
+            this.deflater.finish();
+            int length = 0;
+            while (!this.deflater.finished()) {
+                if (length == this.compressed.length) {
+                    this.compressed = Arrays.copyOf(this.compressed, length * 2);
+                }
+                length += this.deflater.deflate(this.compressed, length, this.compressed.length - length);
+            }
+
+            this.out.writeInt(length);
+            this.out.write(this.compressed, 0, length);
+        }
+
+        this.block.reset();
+        this.blockKeys = 0;
+        this.previous = null;
+    }
+}
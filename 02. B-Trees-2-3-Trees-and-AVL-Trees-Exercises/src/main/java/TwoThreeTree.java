@@ -1,4 +1,21 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
 public class TwoThreeTree<K extends Comparable<K>> {
+    // child slots on a delete path; a 2-node uses only LEFT and RIGHT
+    private static final int LEFT = 0;
+    private static final int MIDDLE = 1;
+    private static final int RIGHT = 2;
+    // what insertNode returns when add finds the key already present
+    private static final TreeNode<?> PRESENT = new TreeNode<>(null);
+
     private TreeNode<K> root;
 
     public static class TreeNode<K> {
@@ -39,21 +56,360 @@ public class TwoThreeTree<K extends Comparable<K>> {
         }
     }
 
+    /**
+     * Builds a tree from the next n strictly increasing keys in O(n). Every leaf sits at
+     * depth floor(log2(n + 1)), and each node is a 3-node only where 2-nodes cannot hold
+     * the keys.
+     */
+    public static <K extends Comparable<K>> TwoThreeTree<K> fromSorted(Iterator<? extends K> keys, int n) {
+        if (n < 0) {
+            throw new IllegalArgumentException();
+        }
+
+        TwoThreeTree<K> tree = new TwoThreeTree<>();
+        if (n > 0) {
+            tree.root = build(new SortedKeys<>(keys), n, 31 - Integer.numberOfLeadingZeros(n + 1));
+        }
+        return tree;
+    }
+
+    /**
+     * Builds a tree of 3-nodes from strictly increasing keys; see
+     * {@link #bulkLoad(Iterator, double)}.
+     */
+    public static <K extends Comparable<K>> TwoThreeTree<K> bulkLoad(Iterator<? extends K> keys) {
+        return bulkLoad(keys, 1.0);
+    }
+
+    /**
+     * Builds a tree from strictly increasing keys in one pass and O(n), without knowing
+     * their number in advance. Leaves are packed left to right, the key after each full
+     * leaf becomes a separator, and the levels above are packed from the separators the
+     * same way. The fill factor is the share of the two key slots used per node: 1.0
+     * makes 3-nodes, 0.5 makes 2-nodes that leave room for later inserts, and values in
+     * between mix them evenly.
+     */
+    public static <K extends Comparable<K>> TwoThreeTree<K> bulkLoad(Iterator<? extends K> keys, double fillFactor) {
+        if (!(fillFactor > 0 && fillFactor <= 1)) {
+            throw new IllegalArgumentException("fill factor must be in (0, 1]: " + fillFactor);
+        }
+
+        double keysPerNode = Math.max(1, 2 * fillFactor);
+        SortedKeys<K> sorted = new SortedKeys<>(keys);
+        List<TreeNode<K>> level = new ArrayList<>();
+        List<K> separators = new ArrayList<>();
+        List<K> pending = new ArrayList<>(2);
+        while (sorted.hasNext()) {
+            K key = sorted.next();
+            if (pending.size() < quota(keysPerNode, level.size())) {
+                pending.add(key);
+            } else {
+                level.add(newNode(pending, null));
+                separators.add(key);
+                pending.clear();
+            }
+        }
+
+        TwoThreeTree<K> tree = new TwoThreeTree<>();
+        if (level.isEmpty() && pending.isEmpty()) {
+            return tree;
+        }
+        closeLevel(level, separators, pending, null);
+
+        List<TreeNode<K>> children = new ArrayList<>(3);
+        while (level.size() > 1) {
+            List<TreeNode<K>> parents = new ArrayList<>();
+            List<K> upper = new ArrayList<>();
+            pending.clear();
+            children.clear();
+            children.add(level.get(0));
+            for (int i = 1; i < level.size(); i++) {
+                K separator = separators.get(i - 1);
+                if (pending.size() < quota(keysPerNode, parents.size())) {
+                    pending.add(separator);
+                    children.add(level.get(i));
+                } else {
+                    parents.add(newNode(pending, children));
+                    upper.add(separator);
+                    pending.clear();
+                    children.clear();
+                    children.add(level.get(i));
+                }
+            }
+            closeLevel(parents, upper, pending, children);
+
+            level = parents;
+            separators = upper;
+        }
+
+        tree.root = level.get(0);
+        return tree;
+    }
+
+    /**
+     * Rebuilds a tree from a snapshot written by {@link #writeSnapshot} in O(n).
+     */
+    public static <K extends Comparable<K>> TwoThreeTree<K> readSnapshot(InputStream in, KeyCodec<K> codec) throws IOException {
+        SnapshotReader<K> reader = new SnapshotReader<>(in, codec);
+        try {
+            return fromSorted(reader, reader.count());
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Writes the keys in order as a binary snapshot; see {@link SnapshotWriter}.
+     */
+    public void writeSnapshot(OutputStream out, KeyCodec<K> codec, boolean compress) throws IOException {
+        SnapshotWriter<K> writer = new SnapshotWriter<>(out, codec, countKeys(this.root), compress);
+        writeInOrder(this.root, writer);
+        writer.finish();
+    }
+
+    public boolean contains(K key) {
+        TreeNode<K> node = this.root;
+        while (node != null) {
+            int cmp = key.compareTo(node.leftKey);
+            if (cmp == 0) {
+                return true;
+            }
+            if (cmp < 0) {
+                node = node.leftChild;
+            } else if (node.isTwoNode()) {
+                node = node.rightChild;
+            } else {
+                cmp = key.compareTo(node.rightKey);
+                if (cmp == 0) {
+                    return true;
+                }
+                node = cmp < 0 ? node.middleChild : node.rightChild;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Returns the greatest key less than or equal to key, or null if there is none.
+     */
+    public K floor(K key) {
+        K floor = null;
+        TreeNode<K> node = this.root;
+        while (node != null) {
+            int cmp = key.compareTo(node.leftKey);
+            if (cmp == 0) {
+                return node.leftKey;
+            }
+            if (cmp < 0) {
+                node = node.leftChild;
+                continue;
+            }
+
+            floor = node.leftKey;
+            if (node.isTwoNode()) {
+                node = node.rightChild;
+                continue;
+            }
+
+            cmp = key.compareTo(node.rightKey);
+            if (cmp == 0) {
+                return node.rightKey;
+            }
+            if (cmp < 0) {
+                node = node.middleChild;
+            } else {
+                floor = node.rightKey;
+                node = node.rightChild;
+            }
+        }
+
+        return floor;
+    }
+
+    /**
+     * Returns the least key greater than or equal to key, or null if there is none.
+     */
+    public K ceiling(K key) {
+        K ceiling = null;
+        TreeNode<K> node = this.root;
+        while (node != null) {
+            int cmp = key.compareTo(node.leftKey);
+            if (cmp == 0) {
+                return node.leftKey;
+            }
+            if (cmp < 0) {
+                ceiling = node.leftKey;
+                node = node.leftChild;
+                continue;
+            }
+
+            if (node.isTwoNode()) {
+                node = node.rightChild;
+                continue;
+            }
+
+            cmp = key.compareTo(node.rightKey);
+            if (cmp == 0) {
+                return node.rightKey;
+            }
+            if (cmp < 0) {
+                ceiling = node.rightKey;
+                node = node.middleChild;
+            } else {
+                node = node.rightChild;
+            }
+        }
+
+        return ceiling;
+    }
+
+    public void eachInOrder(Consumer<K> consumer) {
+        eachInOrder(this.root, consumer);
+    }
+
+    /**
+     * Removes one occurrence of key and returns whether there was one. A key in an inner
+     * node is first replaced by its successor, so the removal always starts at a leaf.
+     * A leaf left without keys borrows a key through the parent from a 3-node sibling,
+     * or merges with a 2-node sibling and the separating key; a merge can leave the
+     * parent empty, and the repair then continues one level up.
+     */
+    @SuppressWarnings("unchecked")
+    public boolean delete(K key) {
+        int height = 0;
+        for (TreeNode<K> node = this.root; node != null; node = node.leftChild) {
+            height++;
+        }
+
+        TreeNode<K>[] path = (TreeNode<K>[]) new TreeNode[height];
+        int[] slots = new int[height];
+        int depth = 0;
+
+        TreeNode<K> node = this.root;
+        boolean isLeftKey = true;
+        while (node != null) {
+            int cmp = key.compareTo(node.leftKey);
+            if (cmp == 0) {
+                break;
+            }
+
+            int slot;
+            if (cmp < 0) {
+                slot = LEFT;
+            } else if (node.isTwoNode()) {
+                slot = RIGHT;
+            } else {
+                cmp = key.compareTo(node.rightKey);
+                if (cmp == 0) {
+                    isLeftKey = false;
+                    break;
+                }
+                slot = cmp < 0 ? MIDDLE : RIGHT;
+            }
+
+            path[depth] = node;
+            slots[depth++] = slot;
+            node = child(node, slot);
+        }
+
+        if (node == null) {
+            return false;
+        }
+
+        if (!node.isLeaf()) {
+            int slot = isLeftKey && node.isThreeNode() ? MIDDLE : RIGHT;
+            TreeNode<K> target = node;
+            path[depth] = node;
+            slots[depth++] = slot;
+            node = child(node, slot);
+            while (!node.isLeaf()) {
+                path[depth] = node;
+                slots[depth++] = LEFT;
+                node = node.leftChild;
+            }
+
+            if (isLeftKey) {
+                target.leftKey = node.leftKey;
+            } else {
+                target.rightKey = node.leftKey;
+            }
+            isLeftKey = true;
+        }
+
+        if (node.isThreeNode()) {
+            if (isLeftKey) {
+                node.leftKey = node.rightKey;
+            }
+            node.rightKey = null;
+            return true;
+        }
+
+        // node is now an empty hole; orphan is the one subtree it still holds
+        TreeNode<K> hole = node;
+        TreeNode<K> orphan = null;
+        while (depth > 0) {
+            depth--;
+            TreeNode<K> parent = path[depth];
+            TreeNode<K> merged = fill(parent, slots[depth], hole, orphan);
+            if (merged == null) {
+                return true;
+            }
+
+            hole = parent;
+            orphan = merged;
+        }
+
+        this.root = orphan;
+        return true;
+    }
+
     public void insert(K key) {
         if (this.root == null) {
             this.root = new TreeNode<>(key);
             return;
         }
 
-        TreeNode<K> result = insertNode(this.root, key);
+        TreeNode<K> result = insertNode(this.root, key, false);
 
         if (result != null)
             this.root = result;
     }
 
-    private TreeNode<K> insertNode(TreeNode<K> node, K key) {
+    /**
+     * Inserts key unless it is already present and returns whether it was added. The
+     * check happens on the way down, so it costs no second descent.
+     */
+    public boolean add(K key) {
+        if (this.root == null) {
+            this.root = new TreeNode<>(key);
+            return true;
+        }
+
+        TreeNode<K> result = insertNode(this.root, key, true);
+        if (result == PRESENT) {
+            return false;
+        }
+
+        if (result != null)
+            this.root = result;
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <K> TreeNode<K> present() {
+        return (TreeNode<K>) PRESENT;
+    }
+
+    // returns the node to push up after a split, null if the subtree absorbed the key, or
+    // PRESENT if unique is set and the key was found before anything changed
+    private TreeNode<K> insertNode(TreeNode<K> node, K key, boolean unique) {
         if (node == null) return new TreeNode<>(key);
 
+        if (unique && (key.compareTo(node.leftKey) == 0
+                || (node.isThreeNode() && key.compareTo(node.rightKey) == 0)))
+            return present();
+
         if (node.isLeaf()) {
             if (node.isTwoNode()) {
                 if (node.leftKey.compareTo(key) < 0) {
@@ -82,20 +438,20 @@ public class TwoThreeTree<K extends Comparable<K>> {
 
         TreeNode<K> toFix;
         if (node.leftKey.compareTo(key) > 0)
-            toFix = insertNode(node.leftChild, key);
-        else if (node.isTwoNode() && node.leftKey.compareTo(key) < 0)
-            toFix = insertNode(node.rightChild, key);
+            toFix = insertNode(node.leftChild, key, unique);
+        else if (node.isTwoNode())
+            toFix = insertNode(node.rightChild, key, unique);
         else if (node.isThreeNode() && node.rightKey.compareTo(key) < 0)
-            toFix = insertNode(node.rightChild, key);
+            toFix = insertNode(node.rightChild, key, unique);
         else
-            toFix = insertNode(node.middleChild, key);
+            toFix = insertNode(node.middleChild, key, unique);
 
 
-        if (toFix == null)
-            return null;
+        if (toFix == null || toFix == PRESENT)
+            return toFix;
 
         if (node.isTwoNode()) {
-            if (node.leftKey.compareTo(toFix.leftKey) < 0) {
+            if (node.leftKey.compareTo(key) <= 0) {
                 node.rightKey = toFix.leftKey;
                 node.middleChild = toFix.leftChild;
                 node.rightChild = toFix.rightChild;
@@ -113,10 +469,15 @@ public class TwoThreeTree<K extends Comparable<K>> {
         if (node.leftKey.compareTo(key) > 0) {
             K newKey = node.leftKey;
             node.leftKey = node.rightKey;
+            node.rightKey = null;
+            node.leftChild = node.middleChild;
+            node.middleChild = null;
             newNode = new TreeNode<>(newKey, toFix, node);
         } else if (node.rightKey.compareTo(key) < 0) {
             K newKey = node.rightKey;
             node.rightKey = null;
+            node.rightChild = node.middleChild;
+            node.middleChild = null;
             newNode = new TreeNode<>(newKey, node, toFix);
         } else {
             TreeNode<K> newLeft = new TreeNode<>(node.leftKey, node.leftChild, toFix.leftChild);
@@ -128,6 +489,284 @@ public class TwoThreeTree<K extends Comparable<K>> {
         return newNode;
     }
 
+    /**
+     * Checks that keys are ordered, every leaf is at the same depth and every inner node
+     * has one child more than it has keys.
+     */
+    boolean isBalanced() {
+        return this.root == null || leafDepth(this.root, null, null) > 0;
+    }
+
+    // depth of the leaves below node, or -1 if the subtree is broken
+    private static <K extends Comparable<K>> int leafDepth(TreeNode<K> node, K lo, K hi) {
+        if (node.leftKey == null
+                || (lo != null && lo.compareTo(node.leftKey) > 0)
+                || (node.isThreeNode() && node.leftKey.compareTo(node.rightKey) > 0)
+                || (hi != null && hi.compareTo(node.isThreeNode() ? node.rightKey : node.leftKey) < 0)) {
+            return -1;
+        }
+        if (node.isLeaf()) {
+            return 1;
+        }
+        if (node.leftChild == null || node.rightChild == null || (node.middleChild == null) == node.isThreeNode()) {
+            return -1;
+        }
+
+        int depth = leafDepth(node.leftChild, lo, node.leftKey);
+        if (node.isThreeNode() && leafDepth(node.middleChild, node.leftKey, node.rightKey) != depth) {
+            return -1;
+        }
+        if (leafDepth(node.rightChild, node.isThreeNode() ? node.rightKey : node.leftKey, hi) != depth) {
+            return -1;
+        }
+        return depth < 0 ? -1 : depth + 1;
+    }
+
+    // Repairs the empty child hole of parent at slot, whose only subtree is orphan. Returns
+    // null when done, or the merged node that an emptied 2-node parent now holds.
+    private static <K> TreeNode<K> fill(TreeNode<K> parent, int slot, TreeNode<K> hole, TreeNode<K> orphan) {
+        if (parent.isTwoNode()) {
+            if (slot == LEFT) {
+                TreeNode<K> sibling = parent.rightChild;
+                if (sibling.isThreeNode()) {
+                    refill(hole, parent.leftKey, orphan, sibling.leftChild);
+                    parent.leftKey = shiftLeft(sibling);
+                    return null;
+                }
+
+                sibling.rightKey = sibling.leftKey;
+                sibling.leftKey = parent.leftKey;
+                sibling.middleChild = sibling.leftChild;
+                sibling.leftChild = orphan;
+                parent.leftKey = null;
+                return sibling;
+            }
+
+            TreeNode<K> sibling = parent.leftChild;
+            if (sibling.isThreeNode()) {
+                refill(hole, parent.leftKey, sibling.rightChild, orphan);
+                parent.leftKey = shiftRight(sibling);
+                return null;
+            }
+
+            sibling.rightKey = parent.leftKey;
+            sibling.middleChild = sibling.rightChild;
+            sibling.rightChild = orphan;
+            parent.leftKey = null;
+            return sibling;
+        }
+
+        TreeNode<K> left = parent.leftChild;
+        TreeNode<K> middle = parent.middleChild;
+        TreeNode<K> right = parent.rightChild;
+        if (slot == LEFT) {
+            if (middle.isThreeNode()) {
+                refill(hole, parent.leftKey, orphan, middle.leftChild);
+                parent.leftKey = shiftLeft(middle);
+                return null;
+            }
+
+            middle.rightKey = middle.leftKey;
+            middle.leftKey = parent.leftKey;
+            middle.middleChild = middle.leftChild;
+            middle.leftChild = orphan;
+            parent.leftKey = parent.rightKey;
+            parent.leftChild = middle;
+        } else if (slot == MIDDLE) {
+            if (left.isThreeNode()) {
+                refill(hole, parent.leftKey, left.rightChild, orphan);
+                parent.leftKey = shiftRight(left);
+                return null;
+            }
+            if (right.isThreeNode()) {
+                refill(hole, parent.rightKey, orphan, right.leftChild);
+                parent.rightKey = shiftLeft(right);
+                return null;
+            }
+
+            left.rightKey = parent.leftKey;
+            left.middleChild = left.rightChild;
+            left.rightChild = orphan;
+            parent.leftKey = parent.rightKey;
+        } else {
+            if (middle.isThreeNode()) {
+                refill(hole, parent.rightKey, middle.rightChild, orphan);
+                parent.rightKey = shiftRight(middle);
+                return null;
+            }
+
+            middle.rightKey = parent.rightKey;
+            middle.middleChild = middle.rightChild;
+            middle.rightChild = orphan;
+            parent.rightChild = middle;
+        }
+
+        parent.rightKey = null;
+        parent.middleChild = null;
+        return null;
+    }
+
+    // turns the empty hole into a 2-node
+    private static <K> void refill(TreeNode<K> hole, K key, TreeNode<K> leftChild, TreeNode<K> rightChild) {
+        hole.leftKey = key;
+        hole.rightKey = null;
+        hole.leftChild = leftChild;
+        hole.middleChild = null;
+        hole.rightChild = rightChild;
+    }
+
+    // Removes the left key and child of a 3-node, returning the key.
+    private static <K> K shiftLeft(TreeNode<K> node) {
+        K key = node.leftKey;
+        node.leftKey = node.rightKey;
+        node.rightKey = null;
+        node.leftChild = node.middleChild;
+        node.middleChild = null;
+        return key;
+    }
+
+    // Removes the right key and child of a 3-node, returning the key.
+    private static <K> K shiftRight(TreeNode<K> node) {
+        K key = node.rightKey;
+        node.rightKey = null;
+        node.rightChild = node.middleChild;
+        node.middleChild = null;
+        return key;
+    }
+
+    private static <K> TreeNode<K> child(TreeNode<K> node, int slot) {
+        return slot == LEFT ? node.leftChild : slot == MIDDLE ? node.middleChild : node.rightChild;
+    }
+
+    // keys for node number index of a level, so that the level averages keysPerNode
+    private static int quota(double keysPerNode, int index) {
+        return (int) ((index + 1) * keysPerNode) - (int) (index * keysPerNode);
+    }
+
+    private static <K> TreeNode<K> newNode(List<K> keys, List<TreeNode<K>> children) {
+        TreeNode<K> node = new TreeNode<>(keys.get(0));
+        if (keys.size() == 2) {
+            node.rightKey = keys.get(1);
+        }
+        if (children != null) {
+            node.leftChild = children.get(0);
+            if (keys.size() == 2) {
+                node.middleChild = children.get(1);
+            }
+            node.rightChild = children.get(keys.size());
+        }
+        return node;
+    }
+
+    // Adds the last node of a level. If it got no key, the level ended right after a
+    // separator, which then joins the node before it together with the one child left.
+    private static <K> void closeLevel(List<TreeNode<K>> level, List<K> separators, List<K> keys, List<TreeNode<K>> children) {
+        if (!keys.isEmpty()) {
+            level.add(newNode(keys, children));
+            return;
+        }
+
+        TreeNode<K> last = level.get(level.size() - 1);
+        K separator = separators.remove(separators.size() - 1);
+        TreeNode<K> orphan = children == null ? null : children.get(0);
+        if (last.isTwoNode()) {
+            last.rightKey = separator;
+            last.middleChild = last.rightChild;
+            last.rightChild = orphan;
+            return;
+        }
+
+        TreeNode<K> right = new TreeNode<>(separator);
+        right.leftChild = last.rightChild;
+        right.rightChild = orphan;
+        separators.add(last.rightKey);
+        last.rightKey = null;
+        last.rightChild = last.middleChild;
+        last.middleChild = null;
+        level.add(right);
+    }
+
+    // count keys into a subtree whose leaves are height levels down; see fromSorted
+    private static <K extends Comparable<K>> TreeNode<K> build(SortedKeys<K> keys, int count, int height) {
+        if (height == 1) {
+            TreeNode<K> leaf = new TreeNode<>(keys.next());
+            if (count == 2) {
+                leaf.rightKey = keys.next();
+            }
+            return leaf;
+        }
+
+        if (count - 1 <= 2 * maxKeys(height - 1)) {
+            int leftCount = (count - 1) / 2;
+            TreeNode<K> left = build(keys, leftCount, height - 1);
+            K key = keys.next();
+            TreeNode<K> right = build(keys, count - 1 - leftCount, height - 1);
+            return new TreeNode<>(key, left, right);
+        }
+
+        int third = (count - 2) / 3;
+        int remainder = (count - 2) % 3;
+        TreeNode<K> left = build(keys, third + (remainder > 0 ? 1 : 0), height - 1);
+        K leftKey = keys.next();
+        TreeNode<K> middle = build(keys, third + (remainder > 1 ? 1 : 0), height - 1);
+        K rightKey = keys.next();
+        TreeNode<K> right = build(keys, third, height - 1);
+
+        TreeNode<K> node = new TreeNode<>(leftKey, left, right);
+        node.rightKey = rightKey;
+        node.middleChild = middle;
+        return node;
+    }
+
+    // keys in a full tree of 3-nodes with the given height
+    private static long maxKeys(int height) {
+        long max = 1;
+        for (int i = 0; i < height; i++) {
+            max *= 3;
+        }
+        return max - 1;
+    }
+
+    private static int countKeys(TreeNode<?> node) {
+        if (node == null) {
+            return 0;
+        }
+
+        int count = 1 + countKeys(node.leftChild) + countKeys(node.rightChild);
+        if (node.isThreeNode()) {
+            count += 1 + countKeys(node.middleChild);
+        }
+        return count;
+    }
+
+    private static <K> void eachInOrder(TreeNode<K> node, Consumer<K> consumer) {
+        if (node == null) {
+            return;
+        }
+
+        eachInOrder(node.leftChild, consumer);
+        consumer.accept(node.leftKey);
+        if (node.isThreeNode()) {
+            eachInOrder(node.middleChild, consumer);
+            consumer.accept(node.rightKey);
+        }
+        eachInOrder(node.rightChild, consumer);
+    }
+
+    private static <K> void writeInOrder(TreeNode<K> node, SnapshotWriter<K> writer) throws IOException {
+        if (node == null) {
+            return;
+        }
+
+        writeInOrder(node.leftChild, writer);
+        writer.write(node.leftKey);
+        if (node.isThreeNode()) {
+            writeInOrder(node.middleChild, writer);
+            writer.write(node.rightKey);
+        }
+        writeInOrder(node.rightChild, writer);
+    }
+
     public String getAsString() {
         StringBuilder out = new StringBuilder();
         recursivePrint(this.root, out);
@@ -156,4 +795,31 @@ public class TwoThreeTree<K extends Comparable<K>> {
             recursivePrint(node.rightChild, out);
         }
     }
+
+    private static final class SortedKeys<K extends Comparable<K>> {
+        private final Iterator<? extends K> keys;
+        private K previous;
+
+        private SortedKeys(Iterator<? extends K> keys) {
+            this.keys = keys;
+        }
+
+        private boolean hasNext() {
+            return this.keys.hasNext();
+        }
+
+        private K next() {
+            if (!this.keys.hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            K key = this.keys.next();
+            if (this.previous != null && this.previous.compareTo(key) >= 0) {
+                throw new IllegalArgumentException("Keys must be strictly increasing");
+            }
+
+            this.previous = key;
+            return key;
+        }
+    }
 }
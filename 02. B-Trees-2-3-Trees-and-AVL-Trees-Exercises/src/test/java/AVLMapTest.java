@@ -0,0 +1,161 @@
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Random;
+import java.util.TreeMap;
+
+public class AVLMapTest {
+
+    @Test
+    public void putGetRemove_ShouldMatchTreeMap() {
+        // Arrange
+        Random random = new Random(3);
+        AVLMap<Integer, String> map = new AVLMap<>();
+        TreeMap<Integer, String> expected = new TreeMap<>();
+
+        // Act
+        // Assert
+        for (int i = 0; i < 20_000; i++) {
+            int key = random.nextInt(2_000);
+            int dice = random.nextInt(3);
+            if (dice == 0) {
+                Assert.assertEquals(expected.put(key, "v" + i), map.put(key, "v" + i));
+            } else if (dice == 1) {
+                Assert.assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                Assert.assertEquals(expected.get(key), map.get(key));
+            }
+        }
+
+        Assert.assertEquals(expected, map);
+        Assert.assertEquals(expected.hashCode(), map.hashCode());
+        Assert.assertEquals(new ArrayList<>(expected.entrySet()), new ArrayList<>(map.entrySet()));
+    }
+
+    @Test
+    public void navigation_ShouldMatchTreeMap() {
+        // Arrange
+        AVLMap<Integer, Integer> map = new AVLMap<>();
+        TreeMap<Integer, Integer> expected = new TreeMap<>();
+        for (int i = 0; i < 100; i += 3) {
+            map.put(i, -i);
+            expected.put(i, -i);
+        }
+
+        // Act
+        // Assert
+        for (int key = -2; key < 102; key++) {
+            Assert.assertEquals(expected.floorEntry(key), map.floorEntry(key));
+            Assert.assertEquals(expected.ceilingEntry(key), map.ceilingEntry(key));
+            Assert.assertEquals(expected.lowerKey(key), map.lowerKey(key));
+            Assert.assertEquals(expected.higherKey(key), map.higherKey(key));
+        }
+        Assert.assertEquals(expected.firstEntry(), map.firstEntry());
+        Assert.assertEquals(expected.lastKey(), map.lastKey());
+        Assert.assertEquals(expected.pollFirstEntry(), map.pollFirstEntry());
+        Assert.assertEquals(expected.pollLastEntry(), map.pollLastEntry());
+        Assert.assertEquals(expected, map);
+    }
+
+    @Test
+    public void views_ShouldMatchTreeMapViews() {
+        // Arrange
+        AVLMap<Integer, Integer> map = new AVLMap<>();
+        TreeMap<Integer, Integer> expected = new TreeMap<>();
+        for (int i = 0; i < 200; i += 2) {
+            map.put(i, i * i);
+            expected.put(i, i * i);
+        }
+
+        // Act
+        NavigableMap<Integer, Integer> sub = map.subMap(10, true, 60, false);
+        NavigableMap<Integer, Integer> expectedSub = expected.subMap(10, true, 60, false);
+        NavigableMap<Integer, Integer> nested = sub.descendingMap().headMap(40, true).tailMap(50, false);
+        NavigableMap<Integer, Integer> expectedNested = expectedSub.descendingMap().headMap(40, true).tailMap(50, false);
+
+        // Assert
+        assertSameView(expectedSub, sub);
+        assertSameView(expectedNested, nested);
+        assertSameView(expected.headMap(31, true), map.headMap(31, true));
+        assertSameView(expected.tailMap(150, false).descendingMap(), map.tailMap(150, false).descendingMap());
+        Assert.assertEquals(new ArrayList<>(expected.descendingKeySet().headSet(100)),
+                new ArrayList<>(map.descendingKeySet().headSet(100)));
+
+        sub.put(11, 0);
+        expectedSub.put(11, 0);
+        sub.pollLastEntry();
+        expectedSub.pollLastEntry();
+        assertSameView(expectedNested, nested);
+        Assert.assertEquals(expected, map);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void subMapPut_OutOfRange_ShouldThrow() {
+        AVLMap<Integer, Integer> map = new AVLMap<>();
+        map.subMap(0, 10).put(10, 1);
+    }
+
+    @Test
+    public void iteratorRemove_ShouldRemoveThroughViews() {
+        // Arrange
+        AVLMap<Integer, Integer> map = new AVLMap<>();
+        TreeMap<Integer, Integer> expected = new TreeMap<>();
+        for (int i = 0; i < 1_000; i++) {
+            map.put(i, i);
+            expected.put(i, i);
+        }
+
+        // Act
+        for (Iterator<Integer> it = map.subMap(100, true, 900, false).descendingKeySet().iterator(); it.hasNext(); ) {
+            if (it.next() % 3 != 0) {
+                it.remove();
+            }
+        }
+        expected.subMap(100, 900).keySet().removeIf(key -> key % 3 != 0);
+        map.values().removeIf(value -> value % 7 == 0);
+        expected.values().removeIf(value -> value % 7 == 0);
+
+        // Assert
+        Assert.assertEquals(expected, map);
+    }
+
+    @Test(expected = ConcurrentModificationException.class)
+    public void iterator_ConcurrentPut_ShouldFailFast() {
+        AVLMap<Integer, Integer> map = new AVLMap<>();
+        map.put(1, 1);
+        map.put(2, 2);
+
+        for (Map.Entry<Integer, Integer> entry : map.entrySet()) {
+            map.put(entry.getKey() + 10, 0);
+        }
+    }
+
+    @Test
+    public void sequentialPuts_ShouldKeepLogarithmicHeight() {
+        AVLMap<Integer, Integer> map = new AVLMap<>();
+        for (int i = 0; i < (1 << 16) - 1; i++) {
+            map.put(i, i);
+        }
+
+        Assert.assertEquals(16, map.height());
+    }
+
+    private static void assertSameView(NavigableMap<Integer, Integer> expected, NavigableMap<Integer, Integer> actual) {
+        Assert.assertEquals(new ArrayList<>(expected.entrySet()), new ArrayList<>(actual.entrySet()));
+        Assert.assertEquals(expected.size(), actual.size());
+        Assert.assertEquals(expected.firstEntry(), actual.firstEntry());
+        Assert.assertEquals(expected.lastEntry(), actual.lastEntry());
+        for (int key = -1; key < 202; key++) {
+            Assert.assertEquals(expected.get(key), actual.get(key));
+            Assert.assertEquals(expected.floorKey(key), actual.floorKey(key));
+            Assert.assertEquals(expected.ceilingKey(key), actual.ceilingKey(key));
+            Assert.assertEquals(expected.lowerEntry(key), actual.lowerEntry(key));
+            Assert.assertEquals(expected.higherEntry(key), actual.higherEntry(key));
+        }
+    }
+}
@@ -0,0 +1,685 @@
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import test.types.PerformanceTests;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Predicate;
+
+public class AVLPerformanceTest {
+
+    private static final int KEYS = 500_000;
+    private static final int ROUNDS = 5;
+    private static final int POOLED_KEYS = 1_000_000;
+
+    @Category(PerformanceTests.class)
+    @Test
+    public void iterativeUpdates_ComparedToRecursiveUpdates() {
+        int[] keys = new Random(7).ints(KEYS).toArray();
+
+        long recursiveBest = Long.MAX_VALUE;
+        long iterativeBest = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            RecursiveAVL<Integer> recursive = new RecursiveAVL<>();
+            for (int key : keys) {
+                recursive.insert(key);
+            }
+            for (int key : keys) {
+                recursive.delete(key);
+            }
+            recursiveBest = Math.min(recursiveBest, System.nanoTime() - start);
+            Assert.assertNull(recursive.root);
+
+            start = System.nanoTime();
+            AVL<Integer> iterative = new AVL<>();
+            for (int key : keys) {
+                iterative.insert(key);
+            }
+            for (int key : keys) {
+                iterative.delete(key);
+            }
+            iterativeBest = Math.min(iterativeBest, System.nanoTime() - start);
+            Assert.assertNull(iterative.getRoot());
+        }
+
+        System.out.printf("AVL insert+delete of %d keys: recursive %d ms, iterative %d ms%n",
+                KEYS, recursiveBest / 1_000_000, iterativeBest / 1_000_000);
+    }
+
+    @Category(PerformanceTests.class)
+    @Test
+    public void pooledNodes_ComparedToObjectNodes() {
+        Integer[] keys = new Random(11).ints(POOLED_KEYS).boxed().toArray(Integer[]::new);
+
+        long before = usedMemory();
+        AVL<Integer> objects = new AVL<>();
+        for (Integer key : keys) {
+            objects.insert(key);
+        }
+        long objectFootprint = usedMemory() - before;
+
+        before = usedMemory();
+        PooledAVL<Integer> pooled = new PooledAVL<>();
+        for (Integer key : keys) {
+            pooled.insert(key);
+        }
+        pooled.trimToSize();
+        long pooledFootprint = usedMemory() - before;
+
+        long objectLookups = Long.MAX_VALUE;
+        long pooledLookups = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (Integer key : keys) {
+                Assert.assertTrue(objects.contains(key));
+            }
+            objectLookups = Math.min(objectLookups, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            for (Integer key : keys) {
+                Assert.assertTrue(pooled.contains(key));
+            }
+            pooledLookups = Math.min(pooledLookups, System.nanoTime() - start);
+        }
+
+        System.out.printf("AVL nodes for %d keys: objects %d KB, %d ns/lookup; pooled %d KB, %d ns/lookup%n",
+                POOLED_KEYS, objectFootprint / 1024, objectLookups / POOLED_KEYS,
+                pooledFootprint / 1024, pooledLookups / POOLED_KEYS);
+    }
+
+    // heap retained after a full collection; the keys themselves are shared by both trees
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    @Category(PerformanceTests.class)
+    @Test
+    public void fromSorted_ComparedToRepeatedInserts() {
+        Integer[] keys = new Integer[POOLED_KEYS];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = i;
+        }
+
+        long insertBest = Long.MAX_VALUE;
+        long bulkBest = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            AVL<Integer> inserted = new AVL<>();
+            for (Integer key : keys) {
+                inserted.insert(key);
+            }
+            insertBest = Math.min(insertBest, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            AVL<Integer> bulk = AVL.fromSorted(keys);
+            bulkBest = Math.min(bulkBest, System.nanoTime() - start);
+
+            Assert.assertEquals(inserted.size(), bulk.size());
+            Assert.assertTrue(bulk.height() <= inserted.height());
+        }
+
+        System.out.printf("AVL from %d sorted keys: insert %d ms, fromSorted %d ms%n",
+                POOLED_KEYS, insertBest / 1_000_000, bulkBest / 1_000_000);
+    }
+
+    @Category(PerformanceTests.class)
+    @Test
+    public void snapshot_ComparedToTextAndReinsert() throws IOException {
+        AVL<Integer> avl = new AVL<>();
+        new Random(41).ints(POOLED_KEYS).forEach(avl::insert);
+
+        long textBest = Long.MAX_VALUE;
+        long snapshotBest = Long.MAX_VALUE;
+        long compressedBest = Long.MAX_VALUE;
+        int textBytes = 0;
+        int snapshotBytes = 0;
+        int compressedBytes = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            StringBuilder text = new StringBuilder();
+            avl.eachInOrder(key -> text.append(key).append(' '));
+            byte[] bytes = text.toString().getBytes(StandardCharsets.UTF_8);
+            AVL<Integer> parsed = new AVL<>();
+            for (String key : new String(bytes, StandardCharsets.UTF_8).split(" ")) {
+                parsed.insert(Integer.parseInt(key));
+            }
+            textBest = Math.min(textBest, System.nanoTime() - start);
+            textBytes = bytes.length;
+
+            start = System.nanoTime();
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            avl.writeSnapshot(out, KeyCodec.integers(), false);
+            AVL<Integer> restored = AVL.readSnapshot(new ByteArrayInputStream(out.toByteArray()), KeyCodec.integers());
+            snapshotBest = Math.min(snapshotBest, System.nanoTime() - start);
+            snapshotBytes = out.size();
+
+            start = System.nanoTime();
+            out = new ByteArrayOutputStream();
+            avl.writeSnapshot(out, KeyCodec.integers(), true);
+            AVL<Integer> inflated = AVL.readSnapshot(new ByteArrayInputStream(out.toByteArray()), KeyCodec.integers());
+            compressedBest = Math.min(compressedBest, System.nanoTime() - start);
+            compressedBytes = out.size();
+
+            Assert.assertEquals(parsed.size(), restored.size());
+            Assert.assertEquals(parsed.size(), inflated.size());
+        }
+
+        System.out.printf("Ship %d keys: text+reinsert %d ms/%d KB, snapshot %d ms/%d KB, deflated snapshot %d ms/%d KB%n",
+                POOLED_KEYS, textBest / 1_000_000, textBytes / 1024, snapshotBest / 1_000_000, snapshotBytes / 1024,
+                compressedBest / 1_000_000, compressedBytes / 1024);
+    }
+
+    @Category(PerformanceTests.class)
+    @Test
+    public void setOperations_ScalingWithParallelism() {
+        Random random = new Random(13);
+        Integer[] first = random.ints(POOLED_KEYS / 2, 0, POOLED_KEYS * 4).sorted().distinct()
+                .boxed().toArray(Integer[]::new);
+        Integer[] second = random.ints(POOLED_KEYS / 2, 0, POOLED_KEYS * 4).sorted().distinct()
+                .boxed().toArray(Integer[]::new);
+
+        int processors = Runtime.getRuntime().availableProcessors();
+        for (int parallelism = 1; parallelism <= 16; parallelism *= 2) {
+            if (parallelism > processors && parallelism > 1) {
+                break;
+            }
+
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            long best = Long.MAX_VALUE;
+            int size = 0;
+            for (int round = 0; round < ROUNDS; round++) {
+                AVL<Integer> union = AVL.fromSorted(first);
+                AVL<Integer> other = AVL.fromSorted(second);
+
+                long start = System.nanoTime();
+                union.union(other, pool);
+                best = Math.min(best, System.nanoTime() - start);
+                size = union.size();
+            }
+            pool.shutdown();
+
+            System.out.printf("AVL union of %d and %d keys on %d threads: %d ms%n",
+                    first.length, second.length, parallelism, best / 1_000_000);
+            Assert.assertTrue(size >= Math.max(first.length, second.length));
+        }
+    }
+
+    @Category(PerformanceTests.class)
+    @Test
+    public void concurrentAVL_ThroughputByReadWriteMix() throws InterruptedException {
+        int keyRange = 100_000;
+        int operationsPerThread = 200_000;
+        int processors = Runtime.getRuntime().availableProcessors();
+
+        for (int readPercent : new int[]{90, 50}) {
+            for (int threads = 1; threads <= Math.max(processors, 1) && threads <= 16; threads *= 2) {
+                ConcurrentAVL<Integer> concurrent = new ConcurrentAVL<>();
+                AVL<Integer> locked = new AVL<>();
+                for (int key = 0; key < keyRange; key += 2) {
+                    concurrent.insert(key);
+                    locked.insert(key);
+                }
+
+                long concurrentNanos = runMix(threads, operationsPerThread, keyRange, readPercent,
+                        concurrent::contains, concurrent::insert, concurrent::delete);
+                long lockedNanos = runMix(threads, operationsPerThread, keyRange, readPercent,
+                        key -> { synchronized (locked) { return locked.contains(key); } },
+                        key -> { synchronized (locked) { locked.insert(key); } return true; },
+                        key -> { synchronized (locked) { locked.delete(key); } return true; });
+
+                long operations = (long) threads * operationsPerThread;
+                System.out.printf("ConcurrentAVL %d/%d mix on %d threads: %d ops/ms (synchronized AVL %d ops/ms)%n",
+                        readPercent, 100 - readPercent, threads,
+                        operations * 1_000_000 / concurrentNanos, operations * 1_000_000 / lockedNanos);
+            }
+        }
+    }
+
+    private static long runMix(int threads, int operationsPerThread, int keyRange, int readPercent,
+                               Predicate<Integer> contains, Predicate<Integer> insert, Predicate<Integer> delete)
+            throws InterruptedException {
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            int seed = t;
+            workers[t] = new Thread(() -> {
+                Random random = new Random(seed);
+                for (int i = 0; i < operationsPerThread; i++) {
+                    int key = random.nextInt(keyRange);
+                    int dice = random.nextInt(100);
+                    if (dice < readPercent) {
+                        contains.test(key);
+                    } else if ((dice & 1) == 0) {
+                        insert.test(key);
+                    } else {
+                        delete.test(key);
+                    }
+                }
+            });
+        }
+
+        long start = System.nanoTime();
+        for (Thread worker : workers) {
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return System.nanoTime() - start;
+    }
+
+    @Category(PerformanceTests.class)
+    @Test
+    public void priorityQueue_MixedPushAndPoll() {
+        int operations = 1_000_000;
+        int[] keys = new Random(19).ints(operations).toArray();
+
+        long avlBest = Long.MAX_VALUE;
+        long treeSetBest = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            AVL<Integer> avl = new AVL<>();
+            long avlSum = 0;
+            for (int i = 0; i < operations; i++) {
+                if ((i & 3) == 3) {
+                    avlSum += (i & 4) == 0 ? avl.pollMin() : avl.pollMax();
+                } else {
+                    avl.insert(keys[i]);
+                }
+            }
+            avlBest = Math.min(avlBest, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            TreeSet<Integer> treeSet = new TreeSet<>();
+            long treeSetSum = 0;
+            for (int i = 0; i < operations; i++) {
+                if ((i & 3) == 3) {
+                    treeSetSum += (i & 4) == 0 ? treeSet.pollFirst() : treeSet.pollLast();
+                } else {
+                    treeSet.add(keys[i]);
+                }
+            }
+            treeSetBest = Math.min(treeSetBest, System.nanoTime() - start);
+
+            Assert.assertEquals(treeSetSum, avlSum);
+            Assert.assertEquals(treeSet.size(), avl.size());
+        }
+
+        System.out.printf("%d mixed push/poll operations: AVL %d ms, TreeSet %d ms%n",
+                operations, avlBest / 1_000_000, treeSetBest / 1_000_000);
+    }
+
+    @Category(PerformanceTests.class)
+    @Test
+    public void fingerSearch_ComparedToRootSearchByKeyOrder() {
+        Random random = new Random(23);
+        int[] sorted = new int[KEYS];
+        int[] nearlySorted = new int[KEYS];
+        for (int i = 0; i < KEYS; i++) {
+            sorted[i] = i;
+            nearlySorted[i] = i + random.nextInt(16);
+        }
+        int[] shuffled = random.ints(KEYS).toArray();
+
+        String[] names = {"sorted", "nearly sorted", "random"};
+        int[][] streams = {sorted, nearlySorted, shuffled};
+        for (int s = 0; s < streams.length; s++) {
+            long fingerBest = Long.MAX_VALUE;
+            long rootBest = Long.MAX_VALUE;
+            for (int round = 0; round < ROUNDS; round++) {
+                fingerBest = Math.min(fingerBest, timeInsertAndLookup(streams[s], true));
+                rootBest = Math.min(rootBest, timeInsertAndLookup(streams[s], false));
+            }
+
+            System.out.printf("%d %s inserts and lookups: finger %d ms, root %d ms%n",
+                    KEYS, names[s], fingerBest / 1_000_000, rootBest / 1_000_000);
+        }
+    }
+
+    private static long timeInsertAndLookup(int[] keys, boolean finger) {
+        long start = System.nanoTime();
+        AVL<Integer> avl = new AVL<>();
+        avl.setFingerSearch(finger);
+        for (int key : keys) {
+            avl.insert(key);
+        }
+        int found = 0;
+        for (int key : keys) {
+            if (avl.contains(key)) {
+                found++;
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+
+        Assert.assertEquals(keys.length, found);
+        return elapsed;
+    }
+
+    @Category(PerformanceTests.class)
+    @Test
+    public void metricsListener_CountersAndOverhead() {
+        Random random = new Random(29);
+        int[] keys = random.ints(KEYS, 0, KEYS * 2).toArray();
+
+        AVLMetrics metrics = new AVLMetrics();
+        long plainBest = Long.MAX_VALUE;
+        long listenedBest = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            plainBest = Math.min(plainBest, timeMixedWorkload(keys, null));
+            metrics.reset();
+            listenedBest = Math.min(listenedBest, timeMixedWorkload(keys, metrics));
+        }
+
+        System.out.printf("%d random inserts, lookups and deletes: no listener %d ms, metrics %d ms%n",
+                KEYS, plainBest / 1_000_000, listenedBest / 1_000_000);
+        System.out.printf("AVL metrics: %s%n", metrics.snapshot());
+    }
+
+    private static long timeMixedWorkload(int[] keys, AVLListener listener) {
+        long start = System.nanoTime();
+        AVL<Integer> avl = new AVL<>();
+        avl.setListener(listener);
+        for (int key : keys) {
+            avl.insert(key);
+        }
+        for (int key : keys) {
+            avl.contains(key + 1);
+        }
+        for (int i = 0; i < keys.length; i += 2) {
+            avl.delete(keys[i]);
+        }
+        return System.nanoTime() - start;
+    }
+
+    @Category(PerformanceTests.class)
+    @Test
+    public void multiset_ComparedToAVLWithSideCounts() {
+        // skewed stream: about 50_000 distinct keys, each seen many times
+        Random random = new Random(31);
+        Integer[] stream = new Integer[POOLED_KEYS];
+        for (int i = 0; i < stream.length; i++) {
+            stream[i] = (int) (50_000 * Math.pow(random.nextDouble(), 3));
+        }
+
+        long sideBest = Long.MAX_VALUE;
+        long multisetBest = Long.MAX_VALUE;
+        long sideFootprint = 0;
+        long multisetFootprint = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            long before = usedMemory();
+            long start = System.nanoTime();
+            AVL<Integer> keys = new AVL<>();
+            Map<Integer, Integer> counts = new HashMap<>();
+            for (Integer key : stream) {
+                keys.insert(key);
+                counts.merge(key, 1, Integer::sum);
+            }
+            sideBest = Math.min(sideBest, System.nanoTime() - start);
+            sideFootprint = usedMemory() - before;
+            Assert.assertEquals(keys.size(), counts.size());
+            int distinct = keys.size();
+            keys = null;
+            counts = null;
+
+            before = usedMemory();
+            start = System.nanoTime();
+            MultisetAVL<Integer> multiset = new MultisetAVL<>();
+            for (Integer key : stream) {
+                multiset.add(key);
+            }
+            multisetBest = Math.min(multisetBest, System.nanoTime() - start);
+            multisetFootprint = usedMemory() - before;
+            Assert.assertEquals(distinct, multiset.distinctSize());
+        }
+
+        System.out.printf("Count %d keys: AVL + HashMap %d ms/%d KB, MultisetAVL %d ms/%d KB%n",
+                POOLED_KEYS, sideBest / 1_000_000, sideFootprint / 1024,
+                multisetBest / 1_000_000, multisetFootprint / 1024);
+    }
+
+    @Category(PerformanceTests.class)
+    @Test
+    public void applyBatch_ComparedToSingleUpdatesByBatchSize() {
+        Random random = new Random(37);
+        Integer[] initial = new Integer[KEYS];
+        for (int i = 0; i < KEYS; i++) {
+            initial[i] = 4 * i;
+        }
+        int operations = 1 << 20;
+
+        for (int batchSize = 16; batchSize <= operations; batchSize *= 16) {
+            List<List<AVL.Update<Integer>>> batches = new ArrayList<>();
+            for (int done = 0; done < operations; done += batchSize) {
+                int[] keys = random.ints(batchSize, 0, 8 * KEYS).sorted().toArray();
+                List<AVL.Update<Integer>> batch = new ArrayList<>(batchSize);
+                for (int key : keys) {
+                    batch.add(random.nextBoolean() ? AVL.Update.insert(key) : AVL.Update.delete(key));
+                }
+                batches.add(batch);
+            }
+
+            long singleBest = Long.MAX_VALUE;
+            long batchBest = Long.MAX_VALUE;
+            for (int round = 0; round < ROUNDS; round++) {
+                AVL<Integer> single = AVL.fromSorted(initial);
+                long start = System.nanoTime();
+                for (List<AVL.Update<Integer>> batch : batches) {
+                    for (AVL.Update<Integer> update : batch) {
+                        if (update.isDelete()) {
+                            single.delete(update.getKey());
+                        } else {
+                            single.insert(update.getKey());
+                        }
+                    }
+                }
+                singleBest = Math.min(singleBest, System.nanoTime() - start);
+
+                AVL<Integer> batched = AVL.fromSorted(initial);
+                start = System.nanoTime();
+                for (List<AVL.Update<Integer>> batch : batches) {
+                    batched.applyBatch(batch);
+                }
+                batchBest = Math.min(batchBest, System.nanoTime() - start);
+                Assert.assertEquals(single.size(), batched.size());
+            }
+
+            System.out.printf("%d updates in batches of %d: single %d ops/ms, applyBatch %d ops/ms%n",
+                    operations, batchSize, operations * 1_000_000L / singleBest, operations * 1_000_000L / batchBest);
+        }
+    }
+
+    @Category(PerformanceTests.class)
+    @Test
+    public void lazyDelete_ComparedToEagerDeleteUnderChurn() {
+        Random random = new Random(43);
+        int[] initial = random.ints(KEYS).toArray();
+        int[] churn = random.ints(KEYS).toArray();
+
+        String[] names = {"AVL", "tombstones+rebuild", "tombstones+incremental"};
+        for (int variant = 0; variant < names.length; variant++) {
+            long best = Long.MAX_VALUE;
+            long worstPause = Long.MAX_VALUE;
+            for (int round = 0; round < ROUNDS; round++) {
+                AVL<Integer> eager = new AVL<>();
+                LazyDeleteAVL<Integer> lazy = new LazyDeleteAVL<>();
+                lazy.setCompactionStep(variant == 2 ? 4 : 0);
+                for (int key : initial) {
+                    if (variant == 0) {
+                        eager.insert(key);
+                    } else {
+                        lazy.insert(key);
+                    }
+                }
+
+                long pause = 0;
+                long start = System.nanoTime();
+                for (int i = 0; i < churn.length; i++) {
+                    long before = System.nanoTime();
+                    if (variant == 0) {
+                        eager.delete(initial[i]);
+                        eager.insert(churn[i]);
+                    } else {
+                        lazy.delete(initial[i]);
+                        lazy.insert(churn[i]);
+                    }
+                    pause = Math.max(pause, System.nanoTime() - before);
+                }
+                best = Math.min(best, System.nanoTime() - start);
+                worstPause = Math.min(worstPause, pause);
+            }
+
+            System.out.printf("%d deletes+inserts with %s: %d ms, worst pause %d us%n",
+                    KEYS, names[variant], best / 1_000_000, worstPause / 1_000);
+        }
+    }
+
+    @Category(PerformanceTests.class)
+    @Test
+    public void avlMap_ComparedToTreeMap() {
+        int[] keys = new Random(29).ints(KEYS, 0, KEYS * 4).toArray();
+
+        long[] avlBest = {Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE};
+        long[] treeMapBest = {Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE};
+        for (int round = 0; round < ROUNDS; round++) {
+            long[] avl = timeMap(new AVLMap<>(), keys);
+            long[] treeMap = timeMap(new TreeMap<>(), keys);
+            for (int i = 0; i < avl.length; i++) {
+                avlBest[i] = Math.min(avlBest[i], avl[i]);
+                treeMapBest[i] = Math.min(treeMapBest[i], treeMap[i]);
+            }
+        }
+
+        String[] phases = {"put", "get", "subMap iteration"};
+        for (int i = 0; i < phases.length; i++) {
+            System.out.printf("%d keys, %s: AVLMap %d ms, TreeMap %d ms%n",
+                    KEYS, phases[i], avlBest[i] / 1_000_000, treeMapBest[i] / 1_000_000);
+        }
+    }
+
+    // returns the put, get and subMap iteration times
+    private static long[] timeMap(NavigableMap<Integer, Integer> map, int[] keys) {
+        long start = System.nanoTime();
+        for (int key : keys) {
+            map.put(key, key);
+        }
+        long put = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        long sum = 0;
+        for (int round = 0; round < 4; round++) {
+            for (int key : keys) {
+                sum += map.get(key);
+            }
+        }
+        long get = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        long visited = 0;
+        for (int from = 0; from < KEYS * 4; from += 4_000) {
+            for (Map.Entry<Integer, Integer> entry : map.subMap(from, from + 1_000).entrySet()) {
+                visited += entry.getValue();
+            }
+        }
+        long subMap = System.nanoTime() - start;
+
+        Assert.assertTrue(sum > 0 && visited > 0);
+        return new long[]{put, get, subMap};
+    }
+
+    @Category(PerformanceTests.class)
+    @Test
+    public void offHeapNodes_ComparedToHeapNodes() {
+        long[] keys = new Random(31).longs(POOLED_KEYS).toArray();
+
+        long before = usedMemory();
+        LongAVL heap = new LongAVL();
+        for (long key : keys) {
+            heap.insert(key);
+        }
+        long heapFootprint = usedMemory() - before;
+        long heapGc = fullCollectionTime();
+        for (long key : keys) {
+            Assert.assertTrue(heap.contains(key));
+        }
+        heap = null;
+
+        before = usedMemory();
+        OffHeapLongAVL offHeap = new OffHeapLongAVL();
+        for (long key : keys) {
+            offHeap.insert(key);
+        }
+        long offHeapFootprint = usedMemory() - before;
+        long offHeapGc = fullCollectionTime();
+        for (long key : keys) {
+            Assert.assertTrue(offHeap.contains(key));
+        }
+
+        System.out.printf("%d long keys: heap nodes %d KB heap, %d ms/full GC; off-heap nodes %d KB heap + %d KB direct, %d ms/full GC%n",
+                POOLED_KEYS, heapFootprint / 1024, heapGc, offHeapFootprint / 1024,
+                offHeap.offHeapBytes() / 1024, offHeapGc);
+    }
+
+    @Category(PerformanceTests.class)
+    @Test
+    public void mappedRestart_ComparedToRebuildByInsert() throws IOException {
+        long[] keys = new Random(37).longs(POOLED_KEYS).toArray();
+        Path file = Files.createTempFile("avl", ".map");
+        try {
+            try (MappedLongAVL avl = MappedLongAVL.open(file)) {
+                for (long key : keys) {
+                    avl.insert(key);
+                }
+            }
+
+            long rebuildBest = Long.MAX_VALUE;
+            long reopenBest = Long.MAX_VALUE;
+            for (int round = 0; round < ROUNDS; round++) {
+                long start = System.nanoTime();
+                OffHeapLongAVL rebuilt = new OffHeapLongAVL();
+                for (long key : keys) {
+                    rebuilt.insert(key);
+                }
+                rebuildBest = Math.min(rebuildBest, System.nanoTime() - start);
+
+                start = System.nanoTime();
+                try (MappedLongAVL reopened = MappedLongAVL.open(file)) {
+                    Assert.assertTrue(reopened.contains(keys[round]));
+                    reopenBest = Math.min(reopenBest, System.nanoTime() - start);
+                    Assert.assertEquals(rebuilt.size(), reopened.size());
+                }
+            }
+
+            System.out.printf("Restart with %d keys: rebuild by insert %d ms, reopen mapped file %d us%n",
+                    POOLED_KEYS, rebuildBest / 1_000_000, reopenBest / 1_000);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    // best of a few forced full collections, which have to trace every live heap node
+    private static long fullCollectionTime() {
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            System.gc();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best / 1_000_000;
+    }
+}
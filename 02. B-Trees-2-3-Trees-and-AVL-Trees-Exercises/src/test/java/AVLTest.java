@@ -2,7 +2,15 @@ import org.junit.Assert;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
 
 public class AVLTest {
 
@@ -228,6 +236,23 @@ public class AVLTest {
         Assert.assertEquals(1, avl.getRoot().right.height);
     }
 
+    @Test
+    public void rebalance_DoubleRight() {
+        // Arrange
+        AVL<Integer> avl = new AVL<>();
+
+        // Act
+        avl.insert(7);
+        avl.insert(5);
+        avl.insert(6);
+
+        // Assert
+        Assert.assertEquals(Integer.valueOf(6), avl.getRoot().value);
+        Assert.assertEquals(2, avl.getRoot().height);
+        Assert.assertEquals(1, avl.getRoot().left.height);
+        Assert.assertEquals(1, avl.getRoot().right.height);
+    }
+
     // DELETE
 
     @Test
@@ -528,4 +553,670 @@ public class AVLTest {
         int[] expectedNodes = new int[] { };
         Assert.assertArrayEquals(expectedNodes, result);
     }
+
+    @Test
+    public void iterativeUpdates_ShouldBuildTheSameTreeAsRecursiveUpdates() {
+        Random random = new Random(42);
+        AVL<Integer> iterative = new AVL<>();
+        RecursiveAVL<Integer> recursive = new RecursiveAVL<>();
+
+        for (int i = 0; i < 20_000; i++) {
+            int key = random.nextInt(5_000);
+            switch (random.nextInt(3)) {
+                case 0:
+                    iterative.delete(key);
+                    recursive.delete(key);
+                    break;
+                case 1:
+                    if (random.nextInt(10) == 0) {
+                        iterative.deleteMin();
+                        recursive.deleteMin();
+                    }
+                    break;
+                default:
+                    iterative.insert(key);
+                    recursive.insert(key);
+            }
+        }
+
+        assertSameShape(recursive.root, iterative.getRoot());
+    }
+
+    // BULK LOAD
+
+    @Test
+    public void fromSorted_ShouldBuildBalancedTree() {
+        // Arrange
+        Integer[] items = new Integer[1000];
+        for (int i = 0; i < items.length; i++) {
+            items[i] = i * 2;
+        }
+
+        // Act
+        AVL<Integer> avl = AVL.fromSorted(items);
+        List<Integer> nodes = new ArrayList<>();
+        avl.eachInOrder(nodes::add);
+
+        // Assert
+        Assert.assertEquals(Arrays.asList(items), nodes);
+        Assert.assertEquals(1000, avl.size());
+        Assert.assertEquals(10, avl.height());
+        Assert.assertTrue(avl.contains(998));
+        Assert.assertFalse(avl.contains(999));
+    }
+
+    @Test
+    public void fromSorted_FromIterator_ShouldTakeOnlyNItems() {
+        // Arrange
+        Iterator<Integer> items = List.of(1, 2, 3, 4, 5).iterator();
+
+        // Act
+        AVL<Integer> avl = AVL.fromSorted(items, 3);
+        avl.insert(0);
+
+        // Assert
+        List<Integer> nodes = new ArrayList<>();
+        avl.eachInOrder(nodes::add);
+        Assert.assertEquals(List.of(0, 1, 2, 3), nodes);
+        Assert.assertEquals(Integer.valueOf(4), items.next());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void fromSorted_UnsortedItems_ShouldThrow() {
+        AVL.fromSorted(new Integer[]{1, 3, 2});
+    }
+
+    @Test
+    public void insertAll_ShouldMergeWithExistingKeys() {
+        // Arrange
+        AVL<Integer> avl = new AVL<>();
+        for (int i = 0; i < 10; i += 2) {
+            avl.insert(i);
+        }
+
+        // Act
+        avl.insertAll(List.of(9, 1, 4, 7, 3, 5, 1, 11));
+        List<Integer> nodes = new ArrayList<>();
+        avl.eachInOrder(nodes::add);
+
+        // Assert
+        Assert.assertEquals(List.of(0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 11), nodes);
+        Assert.assertEquals(11, avl.size());
+        Assert.assertEquals(4, avl.height());
+    }
+
+    // ORDER STATISTICS
+
+    @Test
+    public void select_ShouldReturnKeyWithRank() {
+        // Arrange
+        AVL<Integer> avl = new AVL<>();
+        for (int i = 1; i < 10; i++) {
+            avl.insert(i * 10);
+        }
+
+        // Act
+        avl.delete(40);
+
+        // Assert
+        Assert.assertEquals(Integer.valueOf(10), avl.select(0));
+        Assert.assertEquals(Integer.valueOf(50), avl.select(3));
+        Assert.assertEquals(Integer.valueOf(90), avl.select(7));
+        Assert.assertEquals(8, avl.getRoot().size);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void select_RankOutOfRange_ShouldThrow() {
+        AVL<Integer> avl = new AVL<>();
+        avl.insert(1);
+        avl.select(1);
+    }
+
+    @Test
+    public void rankAndCountInRange_ShouldMatchTreeSet() {
+        // Arrange
+        Random random = new Random(17);
+        AVL<Integer> avl = new AVL<>();
+        TreeSet<Integer> expected = new TreeSet<>();
+        for (int i = 0; i < 5_000; i++) {
+            int key = random.nextInt(2_000);
+            if (random.nextInt(3) == 0) {
+                avl.delete(key);
+                expected.remove(key);
+            } else {
+                avl.insert(key);
+                expected.add(key);
+            }
+        }
+
+        // Act
+        // Assert
+        Assert.assertEquals(expected.size(), avl.size());
+        for (int key = -1; key <= 2_000; key += 7) {
+            Assert.assertEquals(expected.headSet(key).size(), avl.rank(key));
+            Assert.assertEquals(expected.subSet(key, true, key + 100, true).size(), avl.countInRange(key, key + 100));
+        }
+        Assert.assertEquals(0, avl.countInRange(10, 5));
+    }
+
+    // ITERATION
+
+    @Test
+    public void iterator_ShouldReturnKeysInOrder() {
+        // Arrange
+        AVL<Integer> avl = new AVL<>();
+        for (int i = 9; i > 0; i--) {
+            avl.insert(i);
+        }
+
+        // Act
+        List<Integer> nodes = new ArrayList<>();
+        for (Integer value : avl) {
+            nodes.add(value);
+        }
+
+        // Assert
+        Assert.assertEquals(List.of(1, 2, 3, 4, 5, 6, 7, 8, 9), nodes);
+    }
+
+    @Test
+    public void iteratorInRange_ShouldReturnOnlyKeysInsideBounds() {
+        // Arrange
+        AVL<Integer> avl = new AVL<>();
+        for (int i = 0; i < 100; i += 3) {
+            avl.insert(i);
+        }
+
+        // Act
+        List<Integer> nodes = new ArrayList<>();
+        Iterator<Integer> iterator = avl.iterator(10, 30);
+        while (iterator.hasNext()) {
+            nodes.add(iterator.next());
+        }
+
+        // Assert
+        Assert.assertEquals(List.of(12, 15, 18, 21, 24, 27, 30), nodes);
+        Assert.assertFalse(avl.iterator(100, 200).hasNext());
+        Assert.assertEquals(Integer.valueOf(99), avl.iterator(98, null).next());
+    }
+
+    @Test
+    public void parallelStream_ShouldVisitEveryKeyInOrder() {
+        // Arrange
+        AVL<Integer> avl = new AVL<>();
+        for (int i = 0; i < 10_000; i++) {
+            avl.insert(i);
+        }
+
+        // Act
+        List<Integer> all = avl.stream().parallel().collect(Collectors.toList());
+        List<Integer> range = StreamSupport.stream(avl.spliterator(2_500, 7_499), true)
+                .collect(Collectors.toList());
+
+        // Assert
+        Assert.assertEquals(10_000, all.size());
+        Assert.assertEquals(10_000, avl.spliterator().estimateSize());
+        for (int i = 0; i < all.size(); i++) {
+            Assert.assertEquals(Integer.valueOf(i), all.get(i));
+        }
+        Assert.assertEquals(5_000, range.size());
+        Assert.assertEquals(Integer.valueOf(2_500), range.get(0));
+        Assert.assertEquals(Integer.valueOf(7_499), range.get(4_999));
+    }
+
+    @Test
+    public void spliterator_ShouldSplitIntoSubtrees() {
+        // Arrange
+        AVL<Integer> avl = AVL.fromSorted(new Integer[]{1, 2, 3, 4, 5, 6, 7});
+
+        // Act
+        Spliterator<Integer> suffix = avl.spliterator();
+        Spliterator<Integer> prefix = suffix.trySplit();
+
+        // Assert
+        Assert.assertEquals(3, prefix.estimateSize());
+        Assert.assertEquals(4, suffix.estimateSize());
+        List<Integer> nodes = new ArrayList<>();
+        prefix.forEachRemaining(nodes::add);
+        suffix.forEachRemaining(nodes::add);
+        Assert.assertEquals(List.of(1, 2, 3, 4, 5, 6, 7), nodes);
+    }
+
+    // SET OPERATIONS
+
+    @Test
+    public void splitOffAndJoin_ShouldPartitionAndRestoreKeys() {
+        // Arrange
+        AVL<Integer> avl = new AVL<>();
+        for (int i = 0; i < 100; i++) {
+            avl.insert(i);
+        }
+
+        // Act
+        AVL<Integer> greater = avl.splitOff(40);
+
+        // Assert
+        Assert.assertEquals(40, avl.size());
+        Assert.assertEquals(60, greater.size());
+        Assert.assertEquals(Integer.valueOf(40), greater.select(0));
+        assertBalanced(avl.getRoot());
+        assertBalanced(greater.getRoot());
+
+        avl.join(greater);
+        Assert.assertEquals(100, avl.size());
+        Assert.assertNull(greater.getRoot());
+        assertBalanced(avl.getRoot());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void join_OverlappingKeys_ShouldThrow() {
+        AVL<Integer> avl = AVL.fromSorted(new Integer[]{1, 5});
+        avl.join(AVL.fromSorted(new Integer[]{3, 7}));
+    }
+
+    @Test
+    public void unionIntersectionDifference_ShouldMatchTreeSet() {
+        // Arrange
+        Random random = new Random(23);
+        TreeSet<Integer> first = new TreeSet<>();
+        TreeSet<Integer> second = new TreeSet<>();
+        for (int i = 0; i < 20_000; i++) {
+            first.add(random.nextInt(50_000));
+            second.add(random.nextInt(50_000) + 10_000);
+        }
+
+        // Act
+        AVL<Integer> union = AVL.fromSorted(first.toArray(new Integer[0]));
+        union.union(AVL.fromSorted(second.toArray(new Integer[0])));
+        AVL<Integer> intersection = AVL.fromSorted(first.toArray(new Integer[0]));
+        intersection.intersection(AVL.fromSorted(second.toArray(new Integer[0])));
+        AVL<Integer> difference = AVL.fromSorted(first.toArray(new Integer[0]));
+        difference.difference(AVL.fromSorted(second.toArray(new Integer[0])));
+
+        // Assert
+        TreeSet<Integer> expected = new TreeSet<>(first);
+        expected.addAll(second);
+        Assert.assertEquals(new ArrayList<>(expected), union.stream().collect(Collectors.toList()));
+        assertBalanced(union.getRoot());
+
+        expected = new TreeSet<>(first);
+        expected.retainAll(second);
+        Assert.assertEquals(new ArrayList<>(expected), intersection.stream().collect(Collectors.toList()));
+        assertBalanced(intersection.getRoot());
+
+        expected = new TreeSet<>(first);
+        expected.removeAll(second);
+        Assert.assertEquals(new ArrayList<>(expected), difference.stream().collect(Collectors.toList()));
+        assertBalanced(difference.getRoot());
+    }
+
+    @Test
+    public void setOperations_WithItself_ShouldKeepOrEmptyTheTree() {
+        // Arrange
+        Integer[] keys = new Integer[10_000];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = i * 3;
+        }
+        AVL<Integer> union = AVL.fromSorted(keys);
+        AVL<Integer> intersection = AVL.fromSorted(keys);
+        AVL<Integer> difference = AVL.fromSorted(keys);
+
+        // Act
+        union.union(union);
+        intersection.intersection(intersection);
+        difference.difference(difference);
+
+        // Assert
+        Assert.assertEquals(Arrays.asList(keys), union.stream().collect(Collectors.toList()));
+        assertBalanced(union.getRoot());
+        Assert.assertEquals(Arrays.asList(keys), intersection.stream().collect(Collectors.toList()));
+        assertBalanced(intersection.getRoot());
+        Assert.assertNull(difference.getRoot());
+        Assert.assertNull(difference.peekMin());
+    }
+
+    // PRIORITY QUEUE
+
+    @Test
+    public void peekAndPoll_ShouldReturnExtremes() {
+        // Arrange
+        AVL<Integer> avl = new AVL<>();
+        for (int key : new int[]{5, 3, 8, 1, 4, 9, 7}) {
+            avl.insert(key);
+        }
+
+        // Act
+        // Assert
+        Assert.assertEquals(Integer.valueOf(1), avl.peekMin());
+        Assert.assertEquals(Integer.valueOf(9), avl.peekMax());
+        Assert.assertEquals(Integer.valueOf(1), avl.pollMin());
+        Assert.assertEquals(Integer.valueOf(9), avl.pollMax());
+        Assert.assertEquals(Integer.valueOf(3), avl.peekMin());
+        Assert.assertEquals(Integer.valueOf(8), avl.peekMax());
+
+        avl.insert(0);
+        avl.delete(8);
+        Assert.assertEquals(Integer.valueOf(0), avl.peekMin());
+        Assert.assertEquals(Integer.valueOf(7), avl.peekMax());
+        Assert.assertEquals(5, avl.size());
+    }
+
+    @Test
+    public void poll_EmptyTree_ShouldReturnNull() {
+        AVL<Integer> avl = new AVL<>();
+
+        Assert.assertNull(avl.peekMin());
+        Assert.assertNull(avl.pollMin());
+        Assert.assertNull(avl.pollMax());
+    }
+
+    @Test
+    public void deleteMax_Repeatedly_ShouldKeepTreeBalanced() {
+        // Arrange
+        AVL<Integer> avl = new AVL<>();
+        for (int i = 0; i < 1024; i++) {
+            avl.insert(i);
+        }
+
+        // Act
+        for (int i = 0; i < 600; i++) {
+            avl.deleteMax();
+        }
+
+        // Assert
+        Assert.assertEquals(Integer.valueOf(423), avl.peekMax());
+        Assert.assertEquals(424, avl.size());
+        assertBalanced(avl.getRoot());
+    }
+
+    @Test
+    public void mixedPushAndPoll_ShouldMatchTreeSet() {
+        // Arrange
+        Random random = new Random(37);
+        AVL<Integer> avl = new AVL<>();
+        TreeSet<Integer> expected = new TreeSet<>();
+
+        // Act
+        // Assert
+        for (int i = 0; i < 20_000; i++) {
+            int dice = random.nextInt(4);
+            if (dice < 2) {
+                int key = random.nextInt(5_000);
+                avl.insert(key);
+                expected.add(key);
+            } else if (dice == 2) {
+                Assert.assertEquals(expected.pollFirst(), avl.pollMin());
+            } else {
+                Assert.assertEquals(expected.pollLast(), avl.pollMax());
+            }
+            Assert.assertEquals(expected.isEmpty() ? null : expected.first(), avl.peekMin());
+            Assert.assertEquals(expected.isEmpty() ? null : expected.last(), avl.peekMax());
+        }
+        assertBalanced(avl.getRoot());
+    }
+
+    // FINGER SEARCH
+
+    @Test
+    public void fingerSearch_SequentialKeys_ShouldMatchTreeSet() {
+        // Arrange
+        AVL<Integer> avl = new AVL<>();
+        avl.setFingerSearch(true);
+        TreeSet<Integer> expected = new TreeSet<>();
+
+        // Act
+        for (int i = 0; i < 2_000; i++) {
+            avl.insert(i);
+            expected.add(i);
+        }
+        for (int i = 1_999; i >= 0; i -= 3) {
+            avl.delete(i);
+            expected.remove(i);
+        }
+
+        // Assert
+        Assert.assertEquals(new ArrayList<>(expected), avl.stream().collect(Collectors.toList()));
+        for (int i = -1; i <= 2_000; i++) {
+            Assert.assertEquals(expected.contains(i), avl.contains(i));
+        }
+        assertBalanced(avl.getRoot());
+    }
+
+    @Test
+    public void fingerSearch_RandomOperations_ShouldMatchTreeSet() {
+        // Arrange
+        Random random = new Random(11);
+        AVL<Integer> avl = new AVL<>();
+        avl.setFingerSearch(true);
+        TreeSet<Integer> expected = new TreeSet<>();
+
+        // Act
+        // Assert
+        int key = 0;
+        for (int i = 0; i < 30_000; i++) {
+            key = random.nextInt(8) == 0 ? random.nextInt(4_000) : Math.max(0, key + random.nextInt(9) - 4);
+            int dice = random.nextInt(6);
+            if (dice < 3) {
+                avl.insert(key);
+                expected.add(key);
+            } else if (dice < 5) {
+                Assert.assertEquals(expected.contains(key), avl.contains(key));
+            } else if (random.nextBoolean()) {
+                avl.delete(key);
+                expected.remove(key);
+            } else {
+                Assert.assertEquals(expected.pollFirst(), avl.pollMin());
+            }
+            Assert.assertEquals(expected.size(), avl.size());
+        }
+        Assert.assertEquals(new ArrayList<>(expected), avl.stream().collect(Collectors.toList()));
+        assertBalanced(avl.getRoot());
+    }
+
+    // BATCH UPDATES
+
+    @Test
+    public void applyBatch_RandomSortedBatches_ShouldMatchTreeSet() {
+        // Arrange
+        Random random = new Random(17);
+        AVL<Integer> avl = new AVL<>();
+        TreeSet<Integer> expected = new TreeSet<>();
+
+        // Act
+        // Assert
+        for (int round = 0; round < 200; round++) {
+            int size = 1 << random.nextInt(10);
+            List<Integer> keys = new ArrayList<>();
+            for (int i = 0; i < size; i++) {
+                keys.add(random.nextInt(3_000));
+            }
+            keys.sort(null);
+
+            List<AVL.Update<Integer>> batch = new ArrayList<>();
+            for (Integer key : keys) {
+                if (random.nextInt(3) == 0) {
+                    batch.add(AVL.Update.delete(key));
+                    expected.remove(key);
+                } else {
+                    batch.add(AVL.Update.insert(key));
+                    expected.add(key);
+                }
+            }
+            avl.applyBatch(batch);
+
+            Assert.assertEquals(expected.size(), avl.size());
+            assertBalanced(avl.getRoot());
+        }
+        Assert.assertEquals(new ArrayList<>(expected), avl.stream().collect(Collectors.toList()));
+    }
+
+    @Test
+    public void applyBatch_RepeatedKey_LastUpdateShouldWin() {
+        // Arrange
+        AVL<Integer> avl = new AVL<>();
+        avl.insert(1);
+        avl.insert(2);
+
+        // Act
+        avl.applyBatch(Arrays.asList(AVL.Update.delete(1), AVL.Update.insert(1),
+                AVL.Update.insert(2), AVL.Update.delete(2), AVL.Update.insert(3)));
+
+        // Assert
+        Assert.assertEquals(Arrays.asList(1, 3), avl.stream().collect(Collectors.toList()));
+        Assert.assertEquals(Integer.valueOf(1), avl.peekMin());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void applyBatch_UnsortedUpdates_ShouldThrow() {
+        new AVL<Integer>().applyBatch(Arrays.asList(AVL.Update.insert(2), AVL.Update.insert(1)));
+    }
+
+    // METRICS
+
+    @Test
+    public void metrics_AscendingInserts_ShouldCountSingleRotations() {
+        // Arrange
+        AVL<Integer> avl = new AVL<>();
+        AVLMetrics metrics = new AVLMetrics();
+        avl.setListener(metrics);
+
+        // Act
+        avl.insert(1);
+        avl.insert(2);
+        avl.insert(3);
+        AVLMetrics.Snapshot snapshot = metrics.snapshot();
+
+        // Assert
+        Assert.assertEquals(3, snapshot.getOperations());
+        Assert.assertEquals(3, snapshot.getComparisons());
+        Assert.assertEquals(3, snapshot.getMaxPathLength());
+        Assert.assertEquals(1, snapshot.getSingleRotations());
+        Assert.assertEquals(0, snapshot.getDoubleRotations());
+    }
+
+    @Test
+    public void metrics_ZigZagInsert_ShouldCountDoubleRotation() {
+        // Arrange
+        AVL<Integer> avl = new AVL<>();
+        AVLMetrics metrics = new AVLMetrics();
+        avl.setListener(metrics);
+
+        // Act
+        avl.insert(3);
+        avl.insert(1);
+        avl.insert(2);
+
+        // Assert
+        Assert.assertEquals(0, metrics.snapshot().getSingleRotations());
+        Assert.assertEquals(1, metrics.snapshot().getDoubleRotations());
+        Assert.assertEquals(Integer.valueOf(2), avl.getRoot().value);
+    }
+
+    @Test
+    public void metrics_Lookups_ShouldCountNodesOnPath() {
+        // Arrange
+        AVL<Integer> avl = new AVL<>();
+        for (int i = 1; i <= 7; i++) {
+            avl.insert(i);
+        }
+        AVLMetrics metrics = new AVLMetrics();
+        avl.setListener(metrics);
+
+        // Act
+        avl.contains(4);
+        avl.contains(1);
+        avl.contains(8);
+        AVLMetrics.Snapshot snapshot = metrics.snapshot();
+        metrics.reset();
+
+        // Assert
+        Assert.assertEquals(3, snapshot.getOperations());
+        Assert.assertEquals(1 + 3 + 3, snapshot.getNodesVisited());
+        Assert.assertEquals(3, snapshot.getMaxPathLength());
+        Assert.assertEquals("operations=3 comparisons=7 nodesVisited=7 maxPathLength=3"
+                + " singleRotations=0 doubleRotations=0", snapshot.toString());
+        Assert.assertEquals(0, metrics.snapshot().getOperations());
+    }
+
+    @Test
+    public void metrics_ListenerRemoved_ShouldStopCounting() {
+        // Arrange
+        AVL<Integer> avl = new AVL<>();
+        AVLMetrics metrics = new AVLMetrics();
+        avl.setListener(metrics);
+        avl.insert(1);
+
+        // Act
+        avl.setListener(null);
+        avl.insert(2);
+        avl.insert(3);
+        avl.delete(1);
+
+        // Assert
+        Assert.assertEquals(1, metrics.snapshot().getOperations());
+        Assert.assertEquals(0, metrics.snapshot().getSingleRotations());
+    }
+
+    @Test
+    public void metrics_ParallelUnion_ShouldCountEveryRotation() {
+        // Arrange
+        AVLMetrics sequential = new AVLMetrics();
+        AVLMetrics parallel = new AVLMetrics();
+        ForkJoinPool single = new ForkJoinPool(1);
+        ForkJoinPool workers = new ForkJoinPool(4);
+
+        // Act
+        try {
+            unionWithMetrics(sequential, single);
+            unionWithMetrics(parallel, workers);
+        } finally {
+            single.shutdown();
+            workers.shutdown();
+        }
+
+        // Assert
+        Assert.assertTrue(sequential.snapshot().getSingleRotations() > 0);
+        Assert.assertEquals(sequential.snapshot().getSingleRotations(), parallel.snapshot().getSingleRotations());
+        Assert.assertEquals(sequential.snapshot().getDoubleRotations(), parallel.snapshot().getDoubleRotations());
+    }
+
+    private static void unionWithMetrics(AVLMetrics metrics, ForkJoinPool pool) {
+        Random random = new Random(61);
+        AVL<Integer> first = new AVL<>();
+        AVL<Integer> second = new AVL<>();
+        for (int i = 0; i < 200_000; i++) {
+            first.insert(random.nextInt(1_000_000));
+            second.insert(random.nextInt(1_000_000));
+        }
+
+        first.setListener(metrics);
+        first.union(second, pool);
+    }
+
+    private static int assertBalanced(Node<Integer> node) {
+        if (node == null) {
+            return 0;
+        }
+
+        int left = assertBalanced(node.left);
+        int right = assertBalanced(node.right);
+        Assert.assertTrue(Math.abs(left - right) <= 1);
+        Assert.assertEquals(Math.max(left, right) + 1, node.height);
+        Assert.assertEquals((node.left == null ? 0 : node.left.size) + (node.right == null ? 0 : node.right.size) + 1,
+                node.size);
+        return node.height;
+    }
+
+    private static void assertSameShape(Node<Integer> expected, Node<Integer> actual) {
+        if (expected == null) {
+            Assert.assertNull(actual);
+            return;
+        }
+
+        Assert.assertNotNull(actual);
+        Assert.assertEquals(expected.value, actual.value);
+        Assert.assertEquals(expected.height, actual.height);
+        assertSameShape(expected.left, actual.left);
+        assertSameShape(expected.right, actual.right);
+    }
 }
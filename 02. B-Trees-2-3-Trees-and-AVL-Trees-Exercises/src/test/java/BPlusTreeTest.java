@@ -0,0 +1,126 @@
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+public class BPlusTreeTest {
+
+    private static final int[] ORDERS = {3, 4, 5, 8, 33, 256};
+
+    @Test
+    public void randomInserts_EveryOrder_ShouldMatchTreeSet() {
+        for (int order : ORDERS) {
+            // Arrange
+            Random random = new Random(order);
+            BPlusTree<Integer> tree = new BPlusTree<>(order);
+            TreeSet<Integer> expected = new TreeSet<>();
+
+            // Act
+            // Assert
+            for (int i = 0; i < 30_000; i++) {
+                int key = random.nextInt(20_000);
+                if (random.nextBoolean()) {
+                    Assert.assertEquals(expected.add(key), tree.insert(key));
+                } else {
+                    Assert.assertEquals(expected.contains(key), tree.contains(key));
+                }
+                if (i % 1_000 == 0) {
+                    Assert.assertTrue(tree.isValid());
+                }
+            }
+
+            Assert.assertTrue(tree.isValid());
+            Assert.assertEquals(expected.size(), tree.size());
+            Assert.assertEquals(new ArrayList<>(expected), toList(tree));
+        }
+    }
+
+    @Test
+    public void range_RandomBounds_ShouldMatchSubSet() {
+        for (int order : ORDERS) {
+            // Arrange
+            Random random = new Random(order);
+            BPlusTree<Integer> tree = new BPlusTree<>(order);
+            TreeSet<Integer> expected = new TreeSet<>();
+            for (int i = 0; i < 5_000; i++) {
+                int key = random.nextInt(10_000);
+                tree.insert(key);
+                expected.add(key);
+            }
+
+            for (int i = 0; i < 500; i++) {
+                int lo = random.nextInt(10_200) - 100;
+                int hi = lo + random.nextInt(2_000);
+
+                // Act
+                List<Integer> actual = new ArrayList<>();
+                tree.range(lo, hi, actual::add);
+
+                // Assert
+                Assert.assertEquals(new ArrayList<>(expected.subSet(lo, true, hi, true)), actual);
+            }
+        }
+    }
+
+    @Test
+    public void range_BoundsArePresentKeys_ShouldIncludeBoth() {
+        // Arrange
+        BPlusTree<Integer> tree = new BPlusTree<>();
+        for (int i = 0; i < 100; i += 10) {
+            tree.insert(i);
+        }
+
+        // Act
+        List<Integer> keys = new ArrayList<>();
+        tree.range(20, 50, keys::add);
+
+        // Assert
+        Assert.assertEquals(List.of(20, 30, 40, 50), keys);
+    }
+
+    @Test
+    public void range_EmptyTreeOrReversedBounds_ShouldVisitNothing() {
+        // Arrange
+        BPlusTree<Integer> tree = new BPlusTree<>();
+        List<Integer> keys = new ArrayList<>();
+
+        // Act
+        tree.range(0, 10, keys::add);
+        tree.insert(5);
+        tree.range(10, 0, keys::add);
+        tree.range(6, 10, keys::add);
+
+        // Assert
+        Assert.assertTrue(keys.isEmpty());
+    }
+
+    @Test
+    public void sequentialInserts_ShouldKeepHeightLogarithmic() {
+        // Arrange
+        BPlusTree<Integer> tree = new BPlusTree<>(64);
+
+        // Act
+        for (int i = 0; i < 100_000; i++) {
+            tree.insert(i);
+        }
+
+        // Assert
+        Assert.assertTrue(tree.isValid());
+        Assert.assertTrue(tree.height() <= 4);
+        Assert.assertEquals(100_000, tree.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_OrderBelowThree_ShouldThrow() {
+        new BPlusTree<Integer>(2);
+    }
+
+    private static List<Integer> toList(BPlusTree<Integer> tree) {
+        List<Integer> keys = new ArrayList<>();
+        tree.eachInOrder(keys::add);
+        return keys;
+    }
+}
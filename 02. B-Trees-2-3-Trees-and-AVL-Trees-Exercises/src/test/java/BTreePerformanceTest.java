@@ -0,0 +1,271 @@
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
+import test.types.PerformanceTests;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.stream.LongStream;
+
+// every benchmark here loads a million keys or more; they run only with -Pperformance
+@Category(PerformanceTests.class)
+public class BTreePerformanceTest {
+
+    private static final int KEYS = 1_000_000;
+    private static final int ROUNDS = 5;
+    private static final int[] ORDERS = {3, 4, 8, 16, 32, 64, 128, 256};
+    private static final int SCANS = 200;
+    private static final int SCAN_WIDTH = 1 << 24;
+    private static final int[] CACHED_PAGES = {16, 256, 4096};
+    private static final int HOT_KEYS = 1_000;
+    private static final int LOAD_KEYS = 2_000_000;
+    private static final double[] FILL_FACTORS = {1.0, 0.7, 0.5};
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void orderSweep_InsertAndLookupThroughput() {
+        Random random = new Random(47);
+        Integer[] keys = random.ints(KEYS).boxed().toArray(Integer[]::new);
+        Integer[] probes = random.ints(KEYS).boxed().toArray(Integer[]::new);
+        for (int i = 0; i < KEYS; i += 2) {
+            probes[i] = keys[random.nextInt(KEYS)];
+        }
+
+        for (int order : ORDERS) {
+            long insertBest = Long.MAX_VALUE;
+            long lookupBest = Long.MAX_VALUE;
+            int height = 0;
+            for (int round = 0; round < ROUNDS; round++) {
+                long start = System.nanoTime();
+                BTree<Integer> tree = new BTree<>(order);
+                for (Integer key : keys) {
+                    tree.insert(key);
+                }
+                insertBest = Math.min(insertBest, System.nanoTime() - start);
+
+                start = System.nanoTime();
+                int found = 0;
+                for (Integer probe : probes) {
+                    if (tree.contains(probe)) {
+                        found++;
+                    }
+                }
+                lookupBest = Math.min(lookupBest, System.nanoTime() - start);
+                Assert.assertTrue(found >= KEYS / 2);
+                height = tree.height();
+            }
+
+            System.out.printf("BTree order %d, %d keys, height %d: insert %d ops/ms, lookup %d ops/ms%n",
+                    order, KEYS, height, KEYS * 1_000_000L / insertBest, KEYS * 1_000_000L / lookupBest);
+        }
+
+        long insertBest = Long.MAX_VALUE;
+        long lookupBest = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            AVL<Integer> avl = new AVL<>();
+            for (Integer key : keys) {
+                avl.insert(key);
+            }
+            insertBest = Math.min(insertBest, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            for (Integer probe : probes) {
+                avl.contains(probe);
+            }
+            lookupBest = Math.min(lookupBest, System.nanoTime() - start);
+        }
+        System.out.printf("AVL reference, %d keys: insert %d ops/ms, lookup %d ops/ms%n",
+                KEYS, KEYS * 1_000_000L / insertBest, KEYS * 1_000_000L / lookupBest);
+    }
+
+    @Test
+    public void rangeScan_LinkedLeavesComparedToInOrderTrees() {
+        Random random = new Random(53);
+        int[] keys = random.ints(KEYS).toArray();
+        int[] starts = random.ints(SCANS, Integer.MIN_VALUE, Integer.MAX_VALUE - SCAN_WIDTH).toArray();
+
+        BPlusTree<Integer> twoThree = new BPlusTree<>();
+        BPlusTree<Integer> wide = new BPlusTree<>(64);
+        TreeSet<Integer> treeSet = new TreeSet<>();
+        for (int key : keys) {
+            twoThree.insert(key);
+            wide.insert(key);
+            treeSet.add(key);
+        }
+
+        long twoThreeBest = Long.MAX_VALUE;
+        long wideBest = Long.MAX_VALUE;
+        long treeSetBest = Long.MAX_VALUE;
+        long visited = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            long[] sum = {0};
+            long start = System.nanoTime();
+            for (int lo : starts) {
+                twoThree.range(lo, lo + SCAN_WIDTH, key -> sum[0] += key);
+            }
+            twoThreeBest = Math.min(twoThreeBest, System.nanoTime() - start);
+            long expected = sum[0];
+
+            sum[0] = 0;
+            start = System.nanoTime();
+            for (int lo : starts) {
+                wide.range(lo, lo + SCAN_WIDTH, key -> sum[0] += key);
+            }
+            wideBest = Math.min(wideBest, System.nanoTime() - start);
+            Assert.assertEquals(expected, sum[0]);
+
+            sum[0] = 0;
+            visited = 0;
+            start = System.nanoTime();
+            for (int lo : starts) {
+                for (Integer key : treeSet.subSet(lo, true, lo + SCAN_WIDTH, true)) {
+                    sum[0] += key;
+                    visited++;
+                }
+            }
+            treeSetBest = Math.min(treeSetBest, System.nanoTime() - start);
+            Assert.assertEquals(expected, sum[0]);
+        }
+
+        System.out.printf("%d range scans over %d keys, %d keys visited: BPlusTree(3) %d ms, BPlusTree(64) %d ms, TreeSet %d ms%n",
+                SCANS, KEYS, visited, twoThreeBest / 1_000_000, wideBest / 1_000_000, treeSetBest / 1_000_000);
+    }
+
+    @Test
+    public void diskBTree_ColdAndHotLookupsByCacheSize() throws IOException {
+        Random random = new Random(59);
+        long[] keys = random.longs(KEYS).toArray();
+        long[] cold = new long[KEYS];
+        for (int i = 0; i < KEYS; i++) {
+            cold[i] = keys[random.nextInt(KEYS)];
+        }
+        // a narrow key range, so the hot keys share a handful of leaves
+        long[] hot = Arrays.copyOfRange(LongStream.of(keys).sorted().toArray(), KEYS / 2, KEYS / 2 + HOT_KEYS);
+
+        for (int cachedPages : CACHED_PAGES) {
+            long insertBest = Long.MAX_VALUE;
+            long coldBest = Long.MAX_VALUE;
+            long hotBest = Long.MAX_VALUE;
+            long coldReads = 0;
+            long hotReads = 0;
+            long fileBytes = 0;
+            for (int round = 0; round < ROUNDS; round++) {
+                Path file = this.folder.newFile().toPath();
+                try (DiskLongBTree tree = DiskLongBTree.open(file, cachedPages)) {
+                    long start = System.nanoTime();
+                    for (long key : keys) {
+                        tree.insert(key);
+                    }
+                    tree.flush();
+                    insertBest = Math.min(insertBest, System.nanoTime() - start);
+
+                    long reads = tree.bufferPool().reads();
+                    start = System.nanoTime();
+                    for (long key : cold) {
+                        Assert.assertTrue(tree.contains(key));
+                    }
+                    coldBest = Math.min(coldBest, System.nanoTime() - start);
+                    coldReads = tree.bufferPool().reads() - reads;
+
+                    reads = tree.bufferPool().reads();
+                    start = System.nanoTime();
+                    for (int i = 0; i < KEYS; i++) {
+                        tree.contains(hot[i % HOT_KEYS]);
+                    }
+                    hotBest = Math.min(hotBest, System.nanoTime() - start);
+                    hotReads = tree.bufferPool().reads() - reads;
+                }
+                fileBytes = Files.size(file);
+                Files.delete(file);
+            }
+
+            System.out.printf("DiskLongBTree %d KB file, %d cached pages: insert %d ops/ms, cold lookup %d ops/ms %.2f reads/op, hot lookup %d ops/ms %.2f reads/op%n",
+                    fileBytes / 1024, cachedPages, KEYS * 1_000_000L / insertBest,
+                    KEYS * 1_000_000L / coldBest, (double) coldReads / KEYS,
+                    KEYS * 1_000_000L / hotBest, (double) hotReads / KEYS);
+        }
+    }
+
+    @Test
+    public void bulkLoad_ComparedToRepeatedInsert() {
+        List<Integer> sorted = Arrays.asList(new Integer[LOAD_KEYS]);
+        for (int i = 0; i < LOAD_KEYS; i++) {
+            sorted.set(i, i * 2);
+        }
+        // odd keys, so that every later insert adds a key
+        Random random = new Random(71);
+        Integer[] later = new Integer[LOAD_KEYS / 10];
+        for (int i = 0; i < later.length; i++) {
+            later[i] = random.nextInt(LOAD_KEYS) * 2 + 1;
+        }
+
+        long insertBest = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            TwoThreeTree<Integer> tree = new TwoThreeTree<>();
+            for (Integer key : sorted) {
+                tree.insert(key);
+            }
+            insertBest = Math.min(insertBest, System.nanoTime() - start);
+        }
+        System.out.printf("TwoThreeTree, %d sorted keys: insert %d ms%n", LOAD_KEYS, insertBest / 1_000_000);
+        for (double fill : FILL_FACTORS) {
+            long loadBest = Long.MAX_VALUE;
+            long laterBest = Long.MAX_VALUE;
+            for (int round = 0; round < ROUNDS; round++) {
+                long start = System.nanoTime();
+                TwoThreeTree<Integer> tree = TwoThreeTree.bulkLoad(sorted.iterator(), fill);
+                loadBest = Math.min(loadBest, System.nanoTime() - start);
+
+                start = System.nanoTime();
+                for (Integer key : later) {
+                    tree.insert(key);
+                }
+                laterBest = Math.min(laterBest, System.nanoTime() - start);
+            }
+            System.out.printf("TwoThreeTree, %d sorted keys: bulkLoad fill %.1f %d ms, then %d random inserts %d ms%n",
+                    LOAD_KEYS, fill, loadBest / 1_000_000, later.length, laterBest / 1_000_000);
+        }
+
+        insertBest = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            BTree<Integer> tree = new BTree<>(64);
+            for (Integer key : sorted) {
+                tree.insert(key);
+            }
+            insertBest = Math.min(insertBest, System.nanoTime() - start);
+        }
+        System.out.printf("BTree(64), %d sorted keys: insert %d ms%n", LOAD_KEYS, insertBest / 1_000_000);
+        for (double fill : FILL_FACTORS) {
+            long loadBest = Long.MAX_VALUE;
+            long laterBest = Long.MAX_VALUE;
+            int height = 0;
+            for (int round = 0; round < ROUNDS; round++) {
+                long start = System.nanoTime();
+                BTree<Integer> tree = BTree.bulkLoad(64, sorted.iterator(), fill);
+                loadBest = Math.min(loadBest, System.nanoTime() - start);
+                height = tree.height();
+
+                start = System.nanoTime();
+                for (Integer key : later) {
+                    tree.insert(key);
+                }
+                laterBest = Math.min(laterBest, System.nanoTime() - start);
+                Assert.assertTrue(tree.size() > LOAD_KEYS);
+            }
+            System.out.printf("BTree(64), %d sorted keys: bulkLoad fill %.1f %d ms, height %d, then %d random inserts %d ms%n",
+                    LOAD_KEYS, fill, loadBest / 1_000_000, height, later.length, laterBest / 1_000_000);
+        }
+    }
+}
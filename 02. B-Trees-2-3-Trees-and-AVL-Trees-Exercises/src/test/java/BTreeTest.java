@@ -0,0 +1,178 @@
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+public class BTreeTest {
+
+    private static final int[] ORDERS = {3, 4, 5, 8, 33, 256};
+
+    @Test
+    public void randomOperations_EveryOrder_ShouldMatchTreeSet() {
+        for (int order : ORDERS) {
+            // Arrange
+            Random random = new Random(order);
+            BTree<Integer> tree = new BTree<>(order);
+            TreeSet<Integer> expected = new TreeSet<>();
+
+            // Act
+            // Assert
+            for (int i = 0; i < 40_000; i++) {
+                int key = random.nextInt(4_000);
+                int dice = random.nextInt(3);
+                if (dice == 0) {
+                    Assert.assertEquals(expected.add(key), tree.insert(key));
+                } else if (dice == 1) {
+                    Assert.assertEquals(expected.remove(key), tree.delete(key));
+                } else {
+                    Assert.assertEquals(expected.contains(key), tree.contains(key));
+                }
+                if (i % 1_000 == 0) {
+                    Assert.assertTrue(tree.isValid());
+                }
+            }
+
+            Assert.assertTrue(tree.isValid());
+            Assert.assertEquals(expected.size(), tree.size());
+            Assert.assertEquals(new ArrayList<>(expected), toList(tree));
+        }
+    }
+
+    @Test
+    public void sequentialInserts_ShouldKeepHeightLogarithmicInOrder() {
+        // Arrange
+        BTree<Integer> tree = new BTree<>(64);
+
+        // Act
+        for (int i = 0; i < 100_000; i++) {
+            tree.insert(i);
+        }
+
+        // Assert
+        Assert.assertTrue(tree.isValid());
+        Assert.assertTrue(tree.height() <= 4);
+    }
+
+    @Test
+    public void deleteEverything_ShouldLeaveEmptyTree() {
+        // Arrange
+        BTree<Integer> tree = new BTree<>(4);
+        for (int i = 0; i < 1_000; i++) {
+            tree.insert(i);
+        }
+
+        // Act
+        for (int i = 999; i >= 0; i -= 2) {
+            tree.delete(i);
+        }
+        for (int i = 0; i < 1_000; i += 2) {
+            tree.delete(i);
+        }
+
+        // Assert
+        Assert.assertEquals(0, tree.size());
+        Assert.assertEquals(0, tree.height());
+        Assert.assertFalse(tree.contains(0));
+    }
+
+    @Test
+    public void bulkLoad_EveryOrderSizeAndFill_ShouldBuildValidTree() {
+        double[] fills = {0.01, 0.5, 0.7, 1.0};
+        int[] sizes = {1, 2, 3, 7, 100, 1_001, 20_000};
+        for (int order : ORDERS) {
+            for (double fill : fills) {
+                for (int n : sizes) {
+                    // Arrange
+                    List<Integer> keys = new ArrayList<>();
+                    for (int i = 0; i < n; i++) {
+                        keys.add(i * 2);
+                    }
+
+                    // Act
+                    BTree<Integer> tree = BTree.bulkLoad(order, keys.iterator(), fill);
+
+                    // Assert
+                    Assert.assertTrue(order + " " + fill + " " + n, tree.isValid());
+                    Assert.assertEquals(n, tree.size());
+                    Assert.assertEquals(keys, toList(tree));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void bulkLoad_WithSlack_ShouldAcceptLaterUpdates() {
+        // Arrange
+        List<Integer> keys = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            keys.add(i * 2);
+        }
+        BTree<Integer> tree = BTree.bulkLoad(16, keys.iterator(), 0.7);
+        TreeSet<Integer> expected = new TreeSet<>(keys);
+        Random random = new Random(61);
+
+        // Act
+        for (int i = 0; i < 20_000; i++) {
+            int key = random.nextInt(20_000);
+            if (random.nextBoolean()) {
+                Assert.assertEquals(expected.add(key), tree.insert(key));
+            } else {
+                Assert.assertEquals(expected.remove(key), tree.delete(key));
+            }
+        }
+
+        // Assert
+        Assert.assertTrue(tree.isValid());
+        Assert.assertEquals(new ArrayList<>(expected), toList(tree));
+    }
+
+    @Test
+    public void bulkLoad_LowerFill_ShouldUseMoreLevels() {
+        // Arrange
+        List<Integer> keys = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            keys.add(i);
+        }
+
+        // Act
+        BTree<Integer> full = BTree.bulkLoad(8, keys.iterator(), 1.0);
+        BTree<Integer> half = BTree.bulkLoad(8, keys.iterator(), 0.5);
+
+        // Assert
+        Assert.assertEquals(6, full.height());
+        Assert.assertEquals(8, half.height());
+    }
+
+    @Test
+    public void bulkLoad_NoKeys_ShouldBuildEmptyTree() {
+        BTree<Integer> tree = BTree.bulkLoad(5, new ArrayList<Integer>().iterator(), 1.0);
+
+        Assert.assertEquals(0, tree.size());
+        Assert.assertEquals(0, tree.height());
+        Assert.assertTrue(tree.insert(1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void bulkLoad_UnsortedKeys_ShouldThrow() {
+        BTree.bulkLoad(4, List.of(1, 3, 2).iterator(), 1.0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void bulkLoad_FillFactorAboveOne_ShouldThrow() {
+        BTree.bulkLoad(4, List.of(1, 2, 3).iterator(), 1.5);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_OrderBelowThree_ShouldThrow() {
+        new BTree<Integer>(2);
+    }
+
+    private static List<Integer> toList(BTree<Integer> tree) {
+        List<Integer> keys = new ArrayList<>();
+        tree.eachInOrder(keys::add);
+        return keys;
+    }
+}
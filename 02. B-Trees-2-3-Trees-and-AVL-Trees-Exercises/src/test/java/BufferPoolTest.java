@@ -0,0 +1,76 @@
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+public class BufferPoolTest {
+
+    private static final int PAGE = 64;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void evictedDirtyPage_ShouldBeWrittenBackAndReadAgain() throws IOException {
+        // Arrange
+        Path file = folder.getRoot().toPath().resolve("pages.bin");
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            BufferPool pool = new BufferPool(channel, PAGE, 2);
+            int frame = pool.pinNew(5);
+            pool.buffer(frame).putLong(8, 42);
+            pool.unpin(frame);
+
+            // Act
+            for (int page = 0; page < 4; page++) {
+                pool.unpin(pool.pin(page));
+            }
+            frame = pool.pin(5);
+
+            // Assert
+            Assert.assertEquals(42, pool.buffer(frame).getLong(8));
+            Assert.assertEquals(1, pool.writes());
+            Assert.assertEquals(6 * PAGE, channel.size());
+        }
+    }
+
+    @Test
+    public void referencedPage_ShouldGetASecondChance() throws IOException {
+        // Arrange
+        Path file = folder.getRoot().toPath().resolve("pages.bin");
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            BufferPool pool = new BufferPool(channel, PAGE, 2);
+            pool.unpin(pool.pin(0));
+            pool.unpin(pool.pin(1));
+            pool.unpin(pool.pin(2));
+
+            // Act
+            pool.unpin(pool.pin(2));
+            pool.unpin(pool.pin(3));
+            long hits = pool.hits();
+            pool.unpin(pool.pin(2));
+
+            // Assert
+            Assert.assertEquals(hits + 1, pool.hits());
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void pin_EveryFramePinned_ShouldThrow() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("pages.bin");
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            BufferPool pool = new BufferPool(channel, PAGE, 2);
+            pool.pin(0);
+            pool.pin(1);
+
+            pool.pin(2);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ConcurrentAVLTest {
+
+    @Test
+    public void randomOperations_ShouldMatchTreeSet() {
+        // Arrange
+        Random random = new Random(31);
+        ConcurrentAVL<Integer> avl = new ConcurrentAVL<>();
+        TreeSet<Integer> expected = new TreeSet<>();
+
+        // Act
+        for (int i = 0; i < 20_000; i++) {
+            int key = random.nextInt(1_000);
+            if (random.nextBoolean()) {
+                Assert.assertEquals(expected.add(key), avl.insert(key));
+            } else {
+                Assert.assertEquals(expected.remove(key), avl.delete(key));
+            }
+        }
+
+        // Assert
+        List<Integer> nodes = new ArrayList<>();
+        avl.eachInOrder(nodes::add);
+        Assert.assertEquals(new ArrayList<>(expected), nodes);
+        Assert.assertEquals(expected.size(), avl.size());
+        Assert.assertTrue(avl.isBalanced());
+        for (int key = 0; key < 1_000; key++) {
+            Assert.assertEquals(expected.contains(key), avl.contains(key));
+        }
+    }
+
+    @Test
+    public void contains_WhileWritersRebalance_ShouldAlwaysFindStableKeys() throws InterruptedException {
+        // Arrange
+        ConcurrentAVL<Integer> avl = new ConcurrentAVL<>();
+        for (int i = 0; i < 10_000; i += 2) {
+            avl.insert(i);
+        }
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicInteger misses = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 2; t++) {
+            int seed = t;
+            threads.add(new Thread(() -> {
+                Random random = new Random(seed);
+                while (running.get()) {
+                    int key = random.nextInt(5_000) * 2 + 1;
+                    if (random.nextBoolean()) {
+                        avl.insert(key);
+                    } else {
+                        avl.delete(key);
+                    }
+                }
+            }));
+        }
+        for (int t = 0; t < 2; t++) {
+            threads.add(new Thread(() -> {
+                for (int round = 0; round < 20; round++) {
+                    for (int i = 0; i < 10_000; i += 2) {
+                        if (!avl.contains(i)) {
+                            misses.incrementAndGet();
+                        }
+                    }
+                }
+            }));
+        }
+
+        // Act
+        threads.forEach(Thread::start);
+        for (int t = 2; t < threads.size(); t++) {
+            threads.get(t).join();
+        }
+        running.set(false);
+        threads.get(0).join();
+        threads.get(1).join();
+
+        // Assert
+        Assert.assertEquals(0, misses.get());
+        List<Integer> nodes = new ArrayList<>();
+        avl.eachInOrder(nodes::add);
+        Assert.assertEquals(avl.size(), nodes.size());
+        for (int i = 1; i < nodes.size(); i++) {
+            Assert.assertTrue(nodes.get(i - 1) < nodes.get(i));
+        }
+    }
+
+    @Test
+    public void concurrentWriters_ShouldLeaveABalancedTreeWithTheSurvivingKeys() throws InterruptedException {
+        // Arrange
+        ConcurrentAVL<Integer> avl = new ConcurrentAVL<>();
+        int threadCount = 4;
+        int keysPerThread = 20_000;
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < threadCount; t++) {
+            int first = t;
+            threads.add(new Thread(() -> {
+                // each thread owns the keys congruent to its index, so the outcome is known
+                Random random = new Random(first);
+                for (int i = 0; i < 100_000; i++) {
+                    int key = random.nextInt(keysPerThread) * threadCount + first;
+                    if (random.nextInt(3) == 0) {
+                        avl.delete(key);
+                    } else {
+                        avl.insert(key);
+                    }
+                }
+                for (int key = first; key < keysPerThread * threadCount; key += 2 * threadCount) {
+                    avl.delete(key);
+                }
+            }));
+        }
+
+        // Act
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // Assert
+        Assert.assertTrue(avl.isBalanced());
+        List<Integer> nodes = new ArrayList<>();
+        avl.eachInOrder(nodes::add);
+        Assert.assertEquals(avl.size(), nodes.size());
+        for (int i = 0; i < nodes.size(); i++) {
+            Assert.assertEquals(1, nodes.get(i) / threadCount % 2);
+            Assert.assertTrue(i == 0 || nodes.get(i - 1) < nodes.get(i));
+        }
+    }
+}
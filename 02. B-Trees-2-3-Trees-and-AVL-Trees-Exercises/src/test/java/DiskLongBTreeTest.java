@@ -0,0 +1,157 @@
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+public class DiskLongBTreeTest {
+
+    // four keys per page
+    private static final int SMALL_PAGE = 60;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void randomInserts_CacheSmallerThanTree_ShouldMatchTreeSet() throws IOException {
+        // Arrange
+        Path file = folder.getRoot().toPath().resolve("tree.btree");
+        Random random = new Random(31);
+        TreeSet<Long> expected = new TreeSet<>();
+
+        try (DiskLongBTree tree = DiskLongBTree.open(file, SMALL_PAGE, 3)) {
+            Assert.assertEquals(4, tree.maxKeys());
+
+            // Act
+            // Assert
+            for (int i = 0; i < 20_000; i++) {
+                long key = random.nextInt(30_000);
+                if (random.nextBoolean()) {
+                    Assert.assertEquals(expected.add(key), tree.insert(key));
+                } else {
+                    Assert.assertEquals(expected.contains(key), tree.contains(key));
+                }
+            }
+
+            Assert.assertEquals(expected.size(), tree.size());
+            Assert.assertEquals(new ArrayList<>(expected), toList(tree));
+            Assert.assertTrue(tree.bufferPool().writes() > 0);
+        }
+    }
+
+    @Test
+    public void reopen_ShouldRestoreKeysWrittenBeforeClose() throws IOException {
+        // Arrange
+        Path file = folder.getRoot().toPath().resolve("tree.btree");
+        TreeSet<Long> expected = new TreeSet<>();
+        Random random = new Random(37);
+        int height;
+        try (DiskLongBTree tree = DiskLongBTree.open(file, SMALL_PAGE, 8)) {
+            for (int i = 0; i < 5_000; i++) {
+                long key = random.nextLong();
+                tree.insert(key);
+                expected.add(key);
+            }
+            height = tree.height();
+        }
+
+        // Act
+        try (DiskLongBTree tree = DiskLongBTree.open(file, SMALL_PAGE, 8)) {
+
+            // Assert
+            Assert.assertEquals(expected.size(), tree.size());
+            Assert.assertEquals(height, tree.height());
+            Assert.assertEquals(new ArrayList<>(expected), toList(tree));
+
+            Assert.assertTrue(tree.insert(0));
+            Assert.assertFalse(tree.insert(expected.first()));
+            Assert.assertTrue(tree.contains(0));
+        }
+    }
+
+    @Test
+    public void hotLookups_ShouldNotReadPagesAgain() throws IOException {
+        // Arrange
+        Path file = folder.getRoot().toPath().resolve("tree.btree");
+        try (DiskLongBTree tree = DiskLongBTree.open(file, 64)) {
+            for (long i = 0; i < 100_000; i++) {
+                tree.insert(i * 7);
+            }
+            for (long i = 0; i < 1_000; i++) {
+                tree.contains(i * 7);
+            }
+            long reads = tree.bufferPool().reads();
+
+            // Act
+            for (int round = 0; round < 10; round++) {
+                for (long i = 0; i < 1_000; i++) {
+                    Assert.assertTrue(tree.contains(i * 7));
+                }
+            }
+
+            // Assert
+            Assert.assertEquals(reads, tree.bufferPool().reads());
+        }
+    }
+
+    @Test
+    public void open_UpdatedAfterTheLastFlush_ShouldThrowUntilTheNextOne() throws IOException {
+        // Arrange
+        Path file = folder.getRoot().toPath().resolve("tree.btree");
+        try (DiskLongBTree writer = DiskLongBTree.open(file, SMALL_PAGE, 3)) {
+            for (long i = 0; i < 100; i++) {
+                writer.insert(i);
+            }
+            writer.flush();
+            writer.insert(100);
+
+            // Act
+            try {
+                DiskLongBTree.open(file, SMALL_PAGE, 3).close();
+                Assert.fail("a file with unflushed updates was reopened");
+            } catch (IOException expected) {
+                // the writer has not flushed since its last insert
+            }
+        }
+
+        // Assert
+        try (DiskLongBTree reader = DiskLongBTree.open(file, SMALL_PAGE, 3)) {
+            Assert.assertEquals(101, reader.size());
+            Assert.assertTrue(reader.contains(100));
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void open_DifferentPageSize_ShouldThrow() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("tree.btree");
+        DiskLongBTree.open(file, SMALL_PAGE, 4).close();
+
+        DiskLongBTree.open(file, 4 * SMALL_PAGE, 4).close();
+    }
+
+    @Test(expected = IOException.class)
+    public void open_ForeignFile_ShouldThrow() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("foreign.bin");
+        Files.write(file, new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+
+        DiskLongBTree.open(file, 4).close();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void open_FewerThanThreeCachedPages_ShouldThrow() throws IOException {
+        DiskLongBTree.open(folder.getRoot().toPath().resolve("tree.btree"), 2);
+    }
+
+    private static List<Long> toList(DiskLongBTree tree) {
+        List<Long> keys = new ArrayList<>();
+        tree.eachInOrder(keys::add);
+        return keys;
+    }
+}
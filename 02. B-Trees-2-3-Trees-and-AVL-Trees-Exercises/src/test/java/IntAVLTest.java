@@ -0,0 +1,133 @@
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.TreeSet;
+
+public class IntAVLTest {
+
+    @Test
+    public void traverseInOrder_AfterMultipleInserts() {
+        // Arrange
+        IntAVL avl = new IntAVL();
+        avl.insert(2);
+        avl.insert(1);
+        avl.insert(3);
+        avl.insert(2);
+
+        // Act
+        StringBuilder result = new StringBuilder();
+        avl.eachInOrder(value -> result.append(value).append(' '));
+
+        // Assert
+        Assert.assertEquals("1 2 3 ", result.toString());
+    }
+
+    @Test
+    public void contains_AfterDelete_ShouldReturnFalse() {
+        // Arrange
+        IntAVL avl = new IntAVL();
+        for (int i = 1; i < 10; i++) {
+            avl.insert(i);
+        }
+
+        // Act
+        avl.delete(4);
+
+        // Assert
+        Assert.assertFalse(avl.contains(4));
+        Assert.assertTrue(avl.contains(5));
+        Assert.assertEquals(4, avl.height());
+    }
+
+    @Test
+    public void deleteMinAndDeleteMax_ShouldKeepTheTreeBalanced() {
+        // Arrange
+        IntAVL avl = new IntAVL();
+        for (int i = 1; i <= 1023; i++) {
+            avl.insert(i);
+        }
+
+        // Act
+        for (int i = 0; i < 500; i++) {
+            avl.deleteMax();
+        }
+        for (int i = 0; i < 200; i++) {
+            avl.deleteMin();
+        }
+
+        // Assert
+        Assert.assertFalse(avl.contains(200));
+        Assert.assertTrue(avl.contains(201));
+        Assert.assertTrue(avl.contains(523));
+        Assert.assertFalse(avl.contains(524));
+        Assert.assertTrue(avl.height() <= 10);
+    }
+
+    @Test
+    public void insert_BeyondInitialCapacity_ShouldGrow() {
+        // Arrange
+        IntAVL avl = new IntAVL(2);
+
+        // Act
+        for (int i = 1; i < 10; i++) {
+            avl.insert(i);
+        }
+
+        // Assert
+        Assert.assertEquals(9, avl.size());
+        Assert.assertTrue(avl.capacity() >= 9);
+        Assert.assertEquals(4, avl.height());
+    }
+
+    @Test
+    public void delete_ShouldReuseFreedSlots() {
+        // Arrange
+        IntAVL avl = new IntAVL(8);
+        for (int i = 1; i <= 8; i++) {
+            avl.insert(i);
+        }
+
+        // Act
+        avl.delete(3);
+        avl.deleteMin();
+        avl.deleteMax();
+        avl.insert(30);
+        avl.insert(10);
+        avl.insert(80);
+
+        // Assert
+        Assert.assertEquals(8, avl.size());
+        Assert.assertEquals(8, avl.capacity());
+        StringBuilder result = new StringBuilder();
+        avl.eachInOrder(value -> result.append(value).append(' '));
+        Assert.assertEquals("2 4 5 6 7 10 30 80 ", result.toString());
+    }
+
+    @Test
+    public void randomOperations_ShouldMatchTreeSet() {
+        // Arrange
+        Random random = new Random(3);
+        IntAVL avl = new IntAVL();
+        TreeSet<Integer> expected = new TreeSet<>();
+
+        // Act
+        for (int i = 0; i < 10_000; i++) {
+            int key = random.nextInt(1_000);
+            if (random.nextBoolean()) {
+                avl.insert(key);
+                expected.add(key);
+            } else {
+                avl.delete(key);
+                expected.remove(key);
+            }
+        }
+
+        // Assert
+        StringBuilder actualKeys = new StringBuilder();
+        avl.eachInOrder(value -> actualKeys.append(value).append(' '));
+        StringBuilder expectedKeys = new StringBuilder();
+        expected.forEach(value -> expectedKeys.append(value).append(' '));
+        Assert.assertEquals(expectedKeys.toString(), actualKeys.toString());
+    }
+}
@@ -0,0 +1,157 @@
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+public class LazyDeleteAVLTest {
+
+    @Test
+    public void randomOperations_Rebuild_ShouldMatchTreeSet() {
+        assertMatchesTreeSet(0);
+    }
+
+    @Test
+    public void randomOperations_Incremental_ShouldMatchTreeSet() {
+        assertMatchesTreeSet(4);
+    }
+
+    @Test
+    public void delete_ShouldOnlyMarkUntilThresholdIsPassed() {
+        // Arrange
+        LazyDeleteAVL<Integer> avl = new LazyDeleteAVL<>();
+        avl.setMaxDeadFraction(0.5);
+        for (int i = 0; i < 100; i++) {
+            avl.insert(i);
+        }
+        int height = avl.height();
+
+        // Act
+        for (int i = 0; i < 50; i++) {
+            avl.delete(i);
+        }
+
+        // Assert
+        Assert.assertEquals(50, avl.size());
+        Assert.assertEquals(50, avl.deadCount());
+        Assert.assertEquals(height, avl.height());
+        Assert.assertFalse(avl.contains(10));
+        Assert.assertTrue(avl.contains(50));
+        Assert.assertEquals(50, toList(avl).size());
+
+        avl.delete(50);
+        Assert.assertEquals(0, avl.deadCount());
+        Assert.assertEquals(49, toList(avl).size());
+    }
+
+    @Test
+    public void insert_DeadKey_ShouldReviveTombstone() {
+        // Arrange
+        LazyDeleteAVL<String> avl = new LazyDeleteAVL<>();
+        avl.insert("a");
+        avl.insert("b");
+        avl.insert("c");
+        avl.insert("d");
+        avl.delete("b");
+
+        // Act
+        avl.insert("b");
+
+        // Assert
+        Assert.assertEquals(0, avl.deadCount());
+        Assert.assertEquals(4, avl.size());
+        Assert.assertTrue(avl.contains("b"));
+    }
+
+    @Test
+    public void incrementalCompaction_ShouldDrainTombstonesOverLaterUpdates() {
+        // Arrange
+        LazyDeleteAVL<Integer> avl = new LazyDeleteAVL<>();
+        avl.setCompactionStep(8);
+        for (int i = 0; i < 1_000; i++) {
+            avl.insert(i);
+        }
+        for (int i = 0; i < 251; i++) {
+            avl.delete(i);
+        }
+        int deadAfterDeletes = avl.deadCount();
+
+        // Act
+        for (int i = 1_000; i < 1_040; i++) {
+            avl.insert(i);
+        }
+
+        // Assert
+        Assert.assertEquals(251, deadAfterDeletes);
+        Assert.assertEquals(0, avl.deadCount());
+        Assert.assertEquals(789, avl.size());
+        Assert.assertEquals(789, toList(avl).size());
+    }
+
+    @Test
+    public void incrementalCompaction_DeletesOnly_ShouldKeepDeadFractionBounded() {
+        // Arrange
+        LazyDeleteAVL<Integer> avl = new LazyDeleteAVL<>();
+        avl.setCompactionStep(1);
+        List<Integer> keys = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            avl.insert(i);
+            keys.add(i);
+        }
+        Collections.shuffle(keys, new Random(7));
+
+        // Act
+        int worstExcess = Integer.MIN_VALUE;
+        for (int key : keys) {
+            avl.delete(key);
+            int dead = avl.deadCount();
+            worstExcess = Math.max(worstExcess, dead - (int) (0.25 * (avl.size() + dead)));
+        }
+
+        // Assert
+        Assert.assertTrue(worstExcess <= 1);
+        Assert.assertEquals(0, avl.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void setMaxDeadFraction_OutOfRange_ShouldThrow() {
+        new LazyDeleteAVL<Integer>().setMaxDeadFraction(1);
+    }
+
+    private static void assertMatchesTreeSet(int step) {
+        // Arrange
+        Random random = new Random(13 + step);
+        LazyDeleteAVL<Integer> avl = new LazyDeleteAVL<>();
+        avl.setCompactionStep(step);
+        TreeSet<Integer> expected = new TreeSet<>();
+
+        // Act
+        // Assert
+        for (int i = 0; i < 50_000; i++) {
+            int key = random.nextInt(3_000);
+            if (random.nextInt(5) < 2) {
+                avl.insert(key);
+                expected.add(key);
+            } else if (random.nextBoolean()) {
+                avl.delete(key);
+                expected.remove(key);
+            } else {
+                Assert.assertEquals(expected.contains(key), avl.contains(key));
+            }
+            Assert.assertEquals(expected.size(), avl.size());
+
+            int nodes = avl.size() + avl.deadCount();
+            Assert.assertTrue(avl.height() <= 1.45 * Math.log(nodes + 2) / Math.log(2));
+        }
+        Assert.assertEquals(new ArrayList<>(expected), toList(avl));
+    }
+
+    private static List<Integer> toList(LazyDeleteAVL<Integer> avl) {
+        List<Integer> keys = new ArrayList<>();
+        avl.eachInOrder(keys::add);
+        return keys;
+    }
+}
@@ -0,0 +1,65 @@
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LongAVLTest {
+
+    @Test
+    public void traverseInOrder_WithKeysOutsideTheIntRange() {
+        // Arrange
+        LongAVL avl = new LongAVL();
+        avl.insert(Long.MAX_VALUE);
+        avl.insert(Long.MIN_VALUE);
+        avl.insert(1L << 40);
+
+        // Act
+        StringBuilder result = new StringBuilder();
+        avl.eachInOrder(value -> result.append(value).append(' '));
+
+        // Assert
+        Assert.assertEquals(Long.MIN_VALUE + " " + (1L << 40) + " " + Long.MAX_VALUE + " ", result.toString());
+    }
+
+    @Test
+    public void delete_NodeWithTwoChildren() {
+        // Arrange
+        LongAVL avl = new LongAVL();
+        avl.insert(5);
+        avl.insert(3);
+        avl.insert(1);
+        avl.insert(4);
+        avl.insert(8);
+        avl.insert(9);
+
+        // Act
+        avl.delete(3);
+        StringBuilder result = new StringBuilder();
+        avl.eachInOrder(value -> result.append(value).append(' '));
+
+        // Assert
+        Assert.assertEquals("1 4 5 8 9 ", result.toString());
+        Assert.assertFalse(avl.contains(3));
+    }
+
+    @Test
+    public void insert_BeyondInitialCapacity_ShouldGrow() {
+        // Arrange
+        LongAVL avl = new LongAVL(0);
+
+        // Act
+        for (long i = 1; i < 10; i++) {
+            avl.insert(i * Integer.MAX_VALUE);
+        }
+        avl.delete(5L * Integer.MAX_VALUE);
+
+        // Assert
+        Assert.assertEquals(8, avl.size());
+        Assert.assertTrue(avl.capacity() >= 9);
+        Assert.assertFalse(avl.contains(5L * Integer.MAX_VALUE));
+        Assert.assertTrue(avl.contains(9L * Integer.MAX_VALUE));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void deleteMax_EmptyTree_ShouldThrow() {
+        new LongAVL().deleteMax();
+    }
+}
@@ -0,0 +1,107 @@
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+public class MappedLongAVLTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void reopen_ShouldRestoreKeysWrittenBeforeClose() throws IOException {
+        // Arrange
+        Path file = folder.getRoot().toPath().resolve("tree.avl");
+        Random random = new Random(17);
+        TreeSet<Long> expected = new TreeSet<>();
+        try (MappedLongAVL avl = MappedLongAVL.open(file)) {
+            for (int i = 0; i < 150_000; i++) {
+                long key = random.nextInt(100_000);
+                if (random.nextInt(4) == 0) {
+                    avl.delete(key);
+                    expected.remove(key);
+                } else {
+                    avl.insert(key);
+                    expected.add(key);
+                }
+            }
+        }
+
+        // Act
+        List<Long> actual = new ArrayList<>();
+        try (MappedLongAVL avl = MappedLongAVL.open(file)) {
+            avl.eachInOrder(actual::add);
+
+            // Assert
+            Assert.assertEquals(expected.size(), avl.size());
+            Assert.assertEquals(new ArrayList<>(expected), actual);
+
+            avl.insert(-1);
+            avl.delete(expected.first());
+            Assert.assertTrue(avl.contains(-1));
+            Assert.assertFalse(avl.contains(expected.first()));
+        }
+    }
+
+    @Test
+    public void force_ShouldMakeTheCheckpointVisibleToASecondOpen() throws IOException {
+        // Arrange
+        Path file = folder.getRoot().toPath().resolve("tree.avl");
+        try (MappedLongAVL writer = MappedLongAVL.open(file)) {
+            for (long i = 0; i < 1_000; i++) {
+                writer.insert(i);
+            }
+
+            // Act
+            writer.force();
+            try (MappedLongAVL reader = MappedLongAVL.open(file)) {
+
+                // Assert
+                Assert.assertEquals(1_000, reader.size());
+                Assert.assertTrue(reader.contains(999));
+                Assert.assertEquals(writer.height(), reader.height());
+            }
+        }
+    }
+
+    @Test
+    public void open_UpdatedAfterTheLastCheckpoint_ShouldThrowUntilTheNextOne() throws IOException {
+        // Arrange
+        Path file = folder.getRoot().toPath().resolve("tree.avl");
+        try (MappedLongAVL writer = MappedLongAVL.open(file)) {
+            writer.insert(1);
+            writer.force();
+            writer.insert(2);
+
+            // Act
+            try {
+                MappedLongAVL.open(file).close();
+                Assert.fail("a file with unflushed updates was reopened");
+            } catch (IOException expected) {
+                // the writer has not reached a checkpoint since its last update
+            }
+        }
+
+        // Assert
+        try (MappedLongAVL reader = MappedLongAVL.open(file)) {
+            Assert.assertEquals(2, reader.size());
+            Assert.assertTrue(reader.contains(2));
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void open_ForeignFile_ShouldThrow() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("foreign.bin");
+        Files.write(file, new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+
+        MappedLongAVL.open(file).close();
+    }
+}
@@ -0,0 +1,126 @@
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.TreeMap;
+
+public class MultisetAVLTest {
+
+    @Test
+    public void addAndRemove_ShouldMatchCountingTreeMap() {
+        // Arrange
+        Random random = new Random(5);
+        MultisetAVL<Integer> multiset = new MultisetAVL<>();
+        TreeMap<Integer, Integer> expected = new TreeMap<>();
+
+        // Act
+        // Assert
+        for (int i = 0; i < 30_000; i++) {
+            int key = random.nextInt(1_000);
+            int n = random.nextInt(4);
+            switch (random.nextInt(4)) {
+                case 0:
+                case 1:
+                    Assert.assertEquals((int) expected.getOrDefault(key, 0), multiset.add(key, n));
+                    if (n > 0) {
+                        expected.merge(key, n, Integer::sum);
+                    }
+                    break;
+                case 2:
+                    Assert.assertEquals(expected.containsKey(key), multiset.removeOne(key));
+                    expected.computeIfPresent(key, (k, count) -> count == 1 ? null : count - 1);
+                    break;
+                default:
+                    int present = expected.getOrDefault(key, 0);
+                    Assert.assertEquals(Math.min(present, n), multiset.remove(key, n));
+                    expected.computeIfPresent(key, (k, count) -> count <= n ? null : count - n);
+            }
+            Assert.assertEquals((int) expected.getOrDefault(key, 0), multiset.count(key));
+        }
+
+        Assert.assertEquals(expected.size(), multiset.distinctSize());
+        Assert.assertEquals(expected.values().stream().mapToLong(Integer::longValue).sum(), multiset.totalSize());
+        Assert.assertEquals(expected, toMap(multiset));
+        Assert.assertTrue(multiset.height() <= 1.45 * (Math.log(expected.size() + 2) / Math.log(2)));
+    }
+
+    @Test
+    public void rankAndSelect_ShouldCountMultiplicity() {
+        // Arrange
+        MultisetAVL<String> multiset = new MultisetAVL<>();
+        multiset.add("b", 3);
+        multiset.add("d", 1);
+        multiset.add("a", 2);
+        multiset.add("c");
+
+        // Act
+        List<String> expanded = new ArrayList<>();
+        for (long i = 0; i < multiset.totalSize(); i++) {
+            expanded.add(multiset.select(i));
+        }
+
+        // Assert
+        Assert.assertEquals(List.of("a", "a", "b", "b", "b", "c", "d"), expanded);
+        Assert.assertEquals(0, multiset.rank("a"));
+        Assert.assertEquals(2, multiset.rank("b"));
+        Assert.assertEquals(5, multiset.rank("bb"));
+        Assert.assertEquals(7, multiset.rank("z"));
+    }
+
+    @Test
+    public void percentile_ShouldUseNearestRank() {
+        // Arrange
+        MultisetAVL<Integer> latencies = new MultisetAVL<>();
+        latencies.add(1, 90);
+        latencies.add(5, 9);
+        latencies.add(100, 1);
+
+        // Act
+        // Assert
+        Assert.assertEquals(Integer.valueOf(1), latencies.percentile(0));
+        Assert.assertEquals(Integer.valueOf(1), latencies.percentile(50));
+        Assert.assertEquals(Integer.valueOf(1), latencies.percentile(90));
+        Assert.assertEquals(Integer.valueOf(5), latencies.percentile(90.5));
+        Assert.assertEquals(Integer.valueOf(5), latencies.percentile(99));
+        Assert.assertEquals(Integer.valueOf(100), latencies.percentile(100));
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void percentile_Empty_ShouldThrow() {
+        new MultisetAVL<Integer>().percentile(50);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void add_NegativeCount_ShouldThrow() {
+        new MultisetAVL<Integer>().add(1, -1);
+    }
+
+    @Test
+    public void removeAll_ShouldDropTheKey() {
+        // Arrange
+        MultisetAVL<Integer> multiset = new MultisetAVL<>();
+        for (int i = 0; i < 100; i++) {
+            multiset.add(i, i + 1);
+        }
+
+        // Act
+        int removed = multiset.removeAll(49);
+
+        // Assert
+        Assert.assertEquals(50, removed);
+        Assert.assertEquals(0, multiset.count(49));
+        Assert.assertEquals(99, multiset.distinctSize());
+        Assert.assertEquals(5050 - 50, multiset.totalSize());
+        Assert.assertEquals(Integer.valueOf(50), multiset.select(49 * 50 / 2));
+    }
+
+    private static Map<Integer, Integer> toMap(MultisetAVL<Integer> multiset) {
+        Map<Integer, Integer> map = new TreeMap<>();
+        multiset.eachInOrder(map::put);
+        return map;
+    }
+}
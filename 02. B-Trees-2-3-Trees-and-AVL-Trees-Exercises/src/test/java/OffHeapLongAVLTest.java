@@ -0,0 +1,92 @@
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+public class OffHeapLongAVLTest {
+
+    @Test
+    public void randomOperations_ShouldMatchTreeSet() {
+        // Arrange
+        Random random = new Random(13);
+        OffHeapLongAVL avl = new OffHeapLongAVL();
+        TreeSet<Long> expected = new TreeSet<>();
+
+        // Act
+        for (int i = 0; i < 200_000; i++) {
+            long key = random.nextInt(50_000) * 1_000_000_007L;
+            if (random.nextInt(3) == 0) {
+                avl.delete(key);
+                expected.remove(key);
+            } else {
+                avl.insert(key);
+                expected.add(key);
+            }
+        }
+
+        // Assert
+        List<Long> actual = new ArrayList<>();
+        avl.eachInOrder(actual::add);
+        Assert.assertEquals(new ArrayList<>(expected), actual);
+        Assert.assertEquals(expected.size(), avl.size());
+        Assert.assertTrue(avl.contains(expected.first()));
+        Assert.assertFalse(avl.contains(expected.first() + 1));
+    }
+
+    @Test
+    public void sequentialInserts_ShouldSpanChunksAndStayBalanced() {
+        // Arrange
+        OffHeapLongAVL avl = new OffHeapLongAVL();
+
+        // Act
+        for (long i = 0; i < (1 << 18) - 1; i++) {
+            avl.insert(i);
+        }
+
+        // Assert
+        Assert.assertEquals(18, avl.height());
+        Assert.assertTrue(avl.offHeapBytes() >= 20L * (1 << 18));
+        Assert.assertTrue(avl.contains(0) && avl.contains((1 << 18) - 2));
+    }
+
+    @Test
+    public void delete_ShouldReuseFreedNodes() {
+        // Arrange
+        OffHeapLongAVL avl = new OffHeapLongAVL();
+        for (long i = 0; i < 70_000; i++) {
+            avl.insert(i);
+        }
+        long reserved = avl.offHeapBytes();
+
+        // Act
+        for (long i = 0; i < 70_000; i += 2) {
+            avl.delete(i);
+        }
+        for (long i = 100_000; i < 135_000; i++) {
+            avl.insert(i);
+        }
+
+        // Assert
+        Assert.assertEquals(70_000, avl.size());
+        Assert.assertEquals(reserved, avl.offHeapBytes());
+        Assert.assertFalse(avl.contains(68_000));
+        Assert.assertTrue(avl.contains(68_001));
+    }
+
+    @Test
+    public void clear_ShouldEmptyTheTree() {
+        OffHeapLongAVL avl = new OffHeapLongAVL();
+        avl.insert(Long.MIN_VALUE);
+        avl.insert(Long.MAX_VALUE);
+
+        avl.clear();
+        avl.insert(7);
+
+        Assert.assertEquals(1, avl.size());
+        Assert.assertFalse(avl.contains(Long.MAX_VALUE));
+        Assert.assertTrue(avl.contains(7));
+    }
+}
@@ -0,0 +1,85 @@
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import test.types.PerformanceTests;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.function.Supplier;
+
+public class OrderedSetShootoutTest {
+
+    private static final int KEYS = 400_000;
+    private static final int ROUNDS = 5;
+
+    private static final String[] NAMES = {"AVL", "TwoThreeTree", "BTree(32)", "TreeSet"};
+    private static final List<Supplier<OrderedSet<Integer>>> FACTORIES = List.of(
+            () -> OrderedSets.of(new AVL<Integer>()),
+            () -> OrderedSets.of(new TwoThreeTree<Integer>()),
+            () -> OrderedSets.of(new BTree<Integer>(32)),
+            () -> OrderedSets.of(new TreeSet<Integer>()));
+
+    @Test
+    public void adapters_SameWorkload_ShouldAgreeWithTreeSet() {
+        for (String distribution : OrderedSetWorkload.DISTRIBUTIONS) {
+            for (int[] mix : OrderedSetWorkload.MIXES) {
+                // Arrange
+                OrderedSetWorkload workload = new OrderedSetWorkload(distribution, mix, 20_000, 3);
+                OrderedSet<Integer> expected = OrderedSets.of(new TreeSet<Integer>());
+                workload.load(expected);
+                int expectedHits = workload.run(expected);
+
+                Assert.assertTrue(expectedHits > 0);
+
+                for (Supplier<OrderedSet<Integer>> factory : FACTORIES) {
+                    OrderedSet<Integer> set = factory.get();
+
+                    // Act
+                    workload.load(set);
+                    int hits = workload.run(set);
+
+                    // Assert
+                    Assert.assertEquals(expectedHits, hits);
+                    Assert.assertEquals(expected.size(), set.size());
+                    Assert.assertEquals(toList(expected), toList(set));
+                }
+            }
+        }
+    }
+
+    @Category(PerformanceTests.class)
+    @Test
+    public void shootout_ByDistributionAndMix() {
+        for (String distribution : OrderedSetWorkload.DISTRIBUTIONS) {
+            for (int m = 0; m < OrderedSetWorkload.MIXES.length; m++) {
+                OrderedSetWorkload workload = new OrderedSetWorkload(distribution, OrderedSetWorkload.MIXES[m], KEYS, 7);
+
+                StringBuilder line = new StringBuilder();
+                for (int s = 0; s < NAMES.length; s++) {
+                    line.append(String.format(" %s %d", NAMES[s], throughput(workload, FACTORIES.get(s))));
+                }
+                System.out.printf("%s keys, %s ops/ms:%s%n", distribution, OrderedSetWorkload.MIX_NAMES[m], line);
+            }
+        }
+    }
+
+    // best-of-rounds operations per millisecond
+    private static long throughput(OrderedSetWorkload workload, Supplier<OrderedSet<Integer>> factory) {
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            OrderedSet<Integer> set = factory.get();
+            workload.load(set);
+            long start = System.nanoTime();
+            workload.run(set);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return workload.operationCount() * 1_000_000L / best;
+    }
+
+    private static List<Integer> toList(OrderedSet<Integer> set) {
+        List<Integer> keys = new ArrayList<>();
+        set.eachInOrder(keys::add);
+        return keys;
+    }
+}
@@ -0,0 +1,121 @@
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * A reproducible stream of operations for {@link OrderedSet} implementations. The first
+ * half of the keys is loaded untimed, then contains, insert and delete calls follow in the
+ * proportions of the mix. Inserts add keys from the second half and deletes remove loaded
+ * ones. Lookups probe loaded keys, except for a fixed share that probe keys from the second
+ * half and mostly miss. Every implementation given the same workload must report the same
+ * number of hits.
+ */
+final class OrderedSetWorkload {
+
+    static final String[] DISTRIBUTIONS = {"random", "sorted", "zipfian"};
+    // percentages of contains, insert and delete
+    static final int[][] MIXES = {{90, 5, 5}, {20, 40, 40}, {50, 50, 0}};
+    static final String[] MIX_NAMES = {"read-heavy", "write-heavy", "insert-and-read"};
+
+    private static final int CONTAINS = 0;
+    private static final int INSERT = 1;
+    private static final int DELETE = 2;
+
+    private static final int MISS_PERCENT = 20;
+    private static final double ZIPF_EXPONENT = 0.99;
+
+    private final Integer[] keys;
+    private final byte[] operations;
+    // the key each contains call looks up
+    private final Integer[] probes;
+
+    OrderedSetWorkload(String distribution, int[] mix, int size, long seed) {
+        Random random = new Random(seed);
+        this.keys = keys(distribution, size, random);
+        int offset = size / 2;
+        this.operations = new byte[size - offset];
+        this.probes = new Integer[this.operations.length];
+        for (int i = 0; i < this.operations.length; i++) {
+            int dice = random.nextInt(100);
+            this.operations[i] = (byte) (dice < mix[0] ? CONTAINS : dice < mix[0] + mix[1] ? INSERT : DELETE);
+            if (this.operations[i] == CONTAINS) {
+                boolean miss = random.nextInt(100) < MISS_PERCENT;
+                this.probes[i] = this.keys[miss ? offset + i : random.nextInt(offset)];
+            }
+        }
+    }
+
+    void load(OrderedSet<Integer> set) {
+        for (int i = 0; i < this.keys.length / 2; i++) {
+            set.insert(this.keys[i]);
+        }
+    }
+
+    /**
+     * Runs the timed phase and returns the number of contains calls that found their key.
+     */
+    int run(OrderedSet<Integer> set) {
+        int hits = 0;
+        int offset = this.keys.length / 2;
+        for (int i = 0; i < this.operations.length; i++) {
+            switch (this.operations[i]) {
+                case CONTAINS:
+                    if (set.contains(this.probes[i])) {
+                        hits++;
+                    }
+                    break;
+                case INSERT:
+                    set.insert(this.keys[offset + i]);
+                    break;
+                default:
+                    // deletes aim at the loaded half so that they find something
+                    set.delete(this.keys[i]);
+            }
+        }
+        return hits;
+    }
+
+    int operationCount() {
+        return this.operations.length;
+    }
+
+    private static Integer[] keys(String distribution, int size, Random random) {
+        Integer[] keys = new Integer[size];
+        switch (distribution) {
+            case "random":
+                for (int i = 0; i < size; i++) {
+                    keys[i] = random.nextInt();
+                }
+                break;
+            case "sorted":
+                for (int i = 0; i < size; i++) {
+                    keys[i] = 2 * i;
+                }
+                break;
+            case "zipfian":
+                // ranks over a universe as large as the stream, scattered so that hot keys are not neighbours
+                double[] cumulative = zipfCumulative(size);
+                for (int i = 0; i < size; i++) {
+                    int rank = Arrays.binarySearch(cumulative, random.nextDouble());
+                    rank = rank < 0 ? -rank - 1 : rank;
+                    keys[i] = rank * 0x9E3779B1;
+                }
+                break;
+            default:
+                throw new IllegalArgumentException(distribution);
+        }
+        return keys;
+    }
+
+    private static double[] zipfCumulative(int universe) {
+        double[] cumulative = new double[universe];
+        double sum = 0;
+        for (int rank = 0; rank < universe; rank++) {
+            sum += 1 / Math.pow(rank + 1, ZIPF_EXPONENT);
+            cumulative[rank] = sum;
+        }
+        for (int rank = 0; rank < universe; rank++) {
+            cumulative[rank] /= sum;
+        }
+        return cumulative;
+    }
+}
@@ -0,0 +1,86 @@
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+public class PersistentAVLTest {
+
+    @Test
+    public void snapshot_ShouldNotSeeLaterUpdates() {
+        // Arrange
+        PersistentAVL<Integer> avl = new PersistentAVL<>();
+        for (int i = 1; i < 10; i++) {
+            avl.insert(i);
+        }
+
+        // Act
+        PersistentAVL<Integer> snapshot = avl.snapshot();
+        avl.delete(5);
+        avl.insert(42);
+        snapshot.insert(7_000);
+
+        // Assert
+        List<Integer> original = new ArrayList<>();
+        avl.eachInOrder(original::add);
+        List<Integer> snapshotted = new ArrayList<>();
+        snapshot.forEach(snapshotted::add);
+
+        Assert.assertEquals(List.of(1, 2, 3, 4, 6, 7, 8, 9, 42), original);
+        Assert.assertEquals(List.of(1, 2, 3, 4, 5, 6, 7, 8, 9, 7_000), snapshotted);
+    }
+
+    @Test
+    public void height_ShouldStayBalanced() {
+        // Arrange
+        PersistentAVL<Integer> avl = new PersistentAVL<>();
+
+        // Act
+        for (int i = 0; i < 1023; i++) {
+            avl.insert(i);
+        }
+
+        // Assert
+        Assert.assertEquals(1023, avl.size());
+        Assert.assertEquals(10, avl.height());
+    }
+
+    @Test
+    public void randomOperations_ShouldMatchTreeSetAtEverySnapshot() {
+        // Arrange
+        Random random = new Random(29);
+        PersistentAVL<Integer> avl = new PersistentAVL<>();
+        TreeSet<Integer> expected = new TreeSet<>();
+        List<PersistentAVL<Integer>> snapshots = new ArrayList<>();
+        List<List<Integer>> expectedSnapshots = new ArrayList<>();
+
+        // Act
+        for (int i = 0; i < 5_000; i++) {
+            int key = random.nextInt(500);
+            if (random.nextBoolean()) {
+                avl.insert(key);
+                expected.add(key);
+            } else {
+                avl.delete(key);
+                expected.remove(key);
+            }
+
+            if (i % 500 == 0) {
+                snapshots.add(avl.snapshot());
+                expectedSnapshots.add(new ArrayList<>(expected));
+            }
+        }
+
+        // Assert
+        for (int i = 0; i < snapshots.size(); i++) {
+            List<Integer> actual = new ArrayList<>();
+            snapshots.get(i).forEach(actual::add);
+            Assert.assertEquals(expectedSnapshots.get(i), actual);
+        }
+        Assert.assertEquals(expected.size(), avl.size());
+        Assert.assertTrue(avl.contains(expected.first()));
+        Assert.assertFalse(avl.contains(-1));
+    }
+}
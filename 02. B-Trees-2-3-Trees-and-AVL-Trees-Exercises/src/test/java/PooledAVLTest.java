@@ -0,0 +1,115 @@
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+public class PooledAVLTest {
+
+    @Test
+    public void traverseInOrder_AfterMultipleInserts() {
+        // Arrange
+        PooledAVL<Integer> avl = new PooledAVL<>();
+        avl.insert(2);
+        avl.insert(1);
+        avl.insert(3);
+
+        // Act
+        List<Integer> nodes = new ArrayList<>();
+        avl.eachInOrder(nodes::add);
+
+        // Assert
+        Assert.assertEquals(List.of(1, 2, 3), nodes);
+        Assert.assertEquals(2, avl.height());
+    }
+
+    @Test
+    public void insert_BeyondInitialCapacity_ShouldGrow() {
+        // Arrange
+        PooledAVL<Integer> avl = new PooledAVL<>(2);
+
+        // Act
+        for (int i = 1; i < 10; i++) {
+            avl.insert(i);
+        }
+
+        // Assert
+        Assert.assertEquals(9, avl.size());
+        Assert.assertTrue(avl.capacity() >= 9);
+        Assert.assertEquals(4, avl.height());
+    }
+
+    @Test
+    public void delete_ShouldReuseFreedSlots() {
+        // Arrange
+        PooledAVL<Integer> avl = new PooledAVL<>(8);
+        for (int i = 1; i <= 8; i++) {
+            avl.insert(i);
+        }
+
+        // Act
+        avl.delete(3);
+        avl.deleteMin();
+        avl.deleteMax();
+        avl.insert(30);
+        avl.insert(10);
+        avl.insert(80);
+
+        // Assert
+        Assert.assertEquals(8, avl.capacity());
+        List<Integer> nodes = new ArrayList<>();
+        avl.eachInOrder(nodes::add);
+        Assert.assertEquals(List.of(2, 4, 5, 6, 7, 10, 30, 80), nodes);
+    }
+
+    @Test
+    public void trimToSize_ShouldKeepContents() {
+        // Arrange
+        PooledAVL<Integer> avl = new PooledAVL<>();
+        for (int i = 0; i < 100; i++) {
+            avl.insert(i);
+        }
+        for (int i = 0; i < 100; i += 2) {
+            avl.delete(i);
+        }
+
+        // Act
+        avl.trimToSize();
+        avl.insert(1000);
+
+        // Assert
+        Assert.assertEquals(51, avl.size());
+        for (int i = 0; i < 100; i++) {
+            Assert.assertEquals(i % 2 == 1, avl.contains(i));
+        }
+        Assert.assertTrue(avl.contains(1000));
+    }
+
+    @Test
+    public void randomOperations_ShouldMatchTreeSet() {
+        // Arrange
+        Random random = new Random(5);
+        PooledAVL<Integer> avl = new PooledAVL<>();
+        TreeSet<Integer> expected = new TreeSet<>();
+
+        // Act
+        for (int i = 0; i < 10_000; i++) {
+            int key = random.nextInt(1_000);
+            if (random.nextBoolean()) {
+                avl.insert(key);
+                expected.add(key);
+            } else {
+                avl.delete(key);
+                expected.remove(key);
+            }
+        }
+
+        // Assert
+        List<Integer> nodes = new ArrayList<>();
+        avl.eachInOrder(nodes::add);
+        Assert.assertEquals(new ArrayList<>(expected), nodes);
+        Assert.assertEquals(expected.size(), avl.size());
+    }
+}
@@ -0,0 +1,138 @@
+/**
+ * The recursive implementation AVL used before insert/delete became iterative (with the
+ * left-right rotation fixed); kept as a reference for tests and benchmarks.
+ */
+class RecursiveAVL<T extends Comparable<T>> {
+
+    Node<T> root;
+
+    void insert(T item) {
+        this.root = this.insert(this.root, item);
+    }
+
+    void delete(T item) {
+        this.root = this.delete(this.root, item);
+    }
+
+    void deleteMin() {
+        this.root = this.deleteMin(this.root);
+    }
+
+    private Node<T> insert(Node<T> node, T item) {
+        if (node == null) {
+            return new Node<>(item);
+        }
+
+        int cmp = item.compareTo(node.value);
+        if (cmp < 0) {
+            node.left = this.insert(node.left, item);
+        } else if (cmp > 0) {
+            node.right = this.insert(node.right, item);
+        }
+
+        this.updateHeight(node);
+        return this.balance(node);
+    }
+
+    private Node<T> delete(Node<T> node, T item) {
+        if (node == null) {
+            return null;
+        }
+
+        int cmp = item.compareTo(node.value);
+        if (cmp < 0) {
+            node.left = this.delete(node.left, item);
+        } else if (cmp > 0) {
+            node.right = this.delete(node.right, item);
+        } else {
+            if (node.left == null) {
+                return node.right;
+            } else if (node.right == null) {
+                return node.left;
+            } else {
+                Node<T> minNode = this.getMin(node.right);
+                minNode.right = this.deleteMin(node.right);
+                minNode.left = node.left;
+                node = minNode;
+            }
+        }
+
+        this.updateHeight(node);
+        return this.balance(node);
+    }
+
+    private Node<T> deleteMin(Node<T> node) {
+        if (node == null) {
+            return null;
+        }
+
+        if (node.left == null) {
+            return node.right;
+        }
+
+        node.left = this.deleteMin(node.left);
+        node = this.balance(node);
+        this.updateHeight(node);
+        return node;
+    }
+
+    private Node<T> getMin(Node<T> node) {
+        if (node.left == null) {
+            return node;
+        }
+
+        return this.getMin(node.left);
+    }
+
+    private Node<T> rotateLeft(Node<T> node) {
+        Node<T> right = node.right;
+        node.right = right.left;
+        right.left = node;
+
+        this.updateHeight(node);
+        this.updateHeight(right);
+
+        return right;
+    }
+
+    private Node<T> rotateRight(Node<T> node) {
+        Node<T> left = node.left;
+        node.left = left.right;
+        left.right = node;
+
+        this.updateHeight(node);
+        this.updateHeight(left);
+
+        return left;
+    }
+
+    private Node<T> balance(Node<T> node) {
+        int balance = this.balanceFactor(node);
+
+        if (balance < -1) {
+            if (this.balanceFactor(node.right) > 0) {
+                node.right = this.rotateRight(node.right);
+            }
+            return this.rotateLeft(node);
+        } else if (balance > 1) {
+            if (this.balanceFactor(node.left) < 0) {
+                node.left = this.rotateLeft(node.left);
+            }
+            return this.rotateRight(node);
+        }
+
+        return node;
+    }
+
+    private int balanceFactor(Node<T> node) {
+        return this.height(node.left) - this.height(node.right);
+    }
+
+    private int height(Node<T> node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private void updateHeight(Node<T> node) {
+        node.height = Math.max(this.height(node.left), this.height(node.right)) + 1;
+    }
+}
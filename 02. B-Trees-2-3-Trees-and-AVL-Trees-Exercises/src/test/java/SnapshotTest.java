@@ -0,0 +1,132 @@
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+public class SnapshotTest {
+
+    @Test
+    public void avlRoundTrip_ShouldRestoreKeysAndBalance() throws IOException {
+        for (boolean compress : new boolean[]{false, true}) {
+            // Arrange
+            Random random = new Random(5);
+            AVL<Integer> avl = new AVL<>();
+            TreeSet<Integer> expected = new TreeSet<>();
+            for (int i = 0; i < 20_000; i++) {
+                int key = random.nextInt() >> 4;
+                avl.insert(key);
+                expected.add(key);
+            }
+
+            // Act
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            avl.writeSnapshot(out, KeyCodec.integers(), compress);
+            AVL<Integer> restored = AVL.readSnapshot(new ByteArrayInputStream(out.toByteArray()), KeyCodec.integers());
+
+            // Assert
+            List<Integer> actual = new ArrayList<>();
+            restored.forEach(actual::add);
+            Assert.assertEquals(new ArrayList<>(expected), actual);
+            Assert.assertTrue(restored.height() <= 15);
+        }
+    }
+
+    @Test
+    public void denseIntegers_ShouldTakeAboutOneBytePerKey() throws IOException {
+        AVL<Integer> avl = new AVL<>();
+        for (int i = 0; i < 100_000; i++) {
+            avl.insert(i);
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        avl.writeSnapshot(out, KeyCodec.integers(), false);
+
+        Assert.assertTrue(out.size() < 110_000);
+    }
+
+    @Test
+    public void strings_ShouldRoundTripWithSharedPrefixes() throws IOException {
+        // Arrange
+        String[] keys = {"", "alpha", "alphabet", "alphabetical", "beta", "\uD83D\uDE00a", "\uD83D\uDE01", "\u00E9t\u00E9"};
+        Arrays.sort(keys);
+        AVL<String> avl = AVL.fromSorted(keys);
+
+        // Act
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        avl.writeSnapshot(out, KeyCodec.strings(), true);
+        AVL<String> restored = AVL.readSnapshot(new ByteArrayInputStream(out.toByteArray()), KeyCodec.strings());
+
+        // Assert
+        List<String> actual = new ArrayList<>();
+        restored.forEach(actual::add);
+        Assert.assertEquals(Arrays.asList(keys), actual);
+    }
+
+    @Test
+    public void twoThreeTreeRoundTrip_ShouldRestoreKeys() throws IOException {
+        for (int n : new int[]{0, 1, 2, 3, 7, 8, 26, 27, 1_000, 10_000}) {
+            // Arrange
+            TwoThreeTree<Long> tree = new TwoThreeTree<>();
+            for (long i = 0; i < n; i++) {
+                tree.insert(i * 3);
+            }
+
+            // Act
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            tree.writeSnapshot(out, KeyCodec.longs(), true);
+            TwoThreeTree<Long> restored = TwoThreeTree.readSnapshot(new ByteArrayInputStream(out.toByteArray()), KeyCodec.longs());
+            ByteArrayOutputStream again = new ByteArrayOutputStream();
+            restored.writeSnapshot(again, KeyCodec.longs(), true);
+
+            // Assert
+            Assert.assertArrayEquals(out.toByteArray(), again.toByteArray());
+        }
+    }
+
+    @Test
+    public void twoThreeTreeFromSorted_ShouldKeepAllLeavesOnOneLevel() {
+        TwoThreeTree<Integer> tree = TwoThreeTree.fromSorted(Arrays.asList(1, 2, 3, 4, 5, 6, 7, 8).iterator(), 8);
+
+        Assert.assertEquals("4 " + System.lineSeparator() +
+                "2 " + System.lineSeparator() +
+                "1 " + System.lineSeparator() +
+                "3 " + System.lineSeparator() +
+                "6 " + System.lineSeparator() +
+                "5 " + System.lineSeparator() +
+                "7 8", tree.getAsString());
+    }
+
+    @Test(expected = IOException.class)
+    public void truncatedSnapshot_ShouldThrow() throws IOException {
+        AVL<Integer> avl = new AVL<>();
+        for (int i = 0; i < 10_000; i++) {
+            avl.insert(i);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        avl.writeSnapshot(out, KeyCodec.integers(), true);
+
+        byte[] truncated = Arrays.copyOf(out.toByteArray(), out.size() - 10);
+        AVL.readSnapshot(new ByteArrayInputStream(truncated), KeyCodec.integers());
+    }
+
+    @Test(expected = IOException.class)
+    public void emptySnapshotWithoutTerminator_ShouldThrow() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new AVL<Integer>().writeSnapshot(out, KeyCodec.integers(), true);
+
+        byte[] truncated = Arrays.copyOf(out.toByteArray(), out.size() - 4);
+        AVL.readSnapshot(new ByteArrayInputStream(truncated), KeyCodec.integers());
+    }
+
+    @Test(expected = IOException.class)
+    public void foreignStream_ShouldThrow() throws IOException {
+        AVL.readSnapshot(new ByteArrayInputStream("1 2 3 4 5".getBytes()), KeyCodec.integers());
+    }
+}
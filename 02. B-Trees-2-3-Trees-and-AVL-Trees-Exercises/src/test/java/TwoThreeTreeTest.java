@@ -1,6 +1,14 @@
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 public class TwoThreeTreeTest {
 
@@ -44,4 +52,174 @@ public class TwoThreeTreeTest {
                 "7037 " + System.lineSeparator() +
                 "8168", tree.getAsString());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testAddSkipsPresentKeys() {
+        TwoThreeTree<Integer> tree = new TwoThreeTree<>();
+        for (int i = 1; i <= 7; i++) {
+            assertTrue(tree.add(i));
+        }
+        String shape = tree.getAsString();
+
+        for (int i = 1; i <= 7; i++) {
+            assertFalse(tree.add(i));
+        }
+
+        assertEquals(shape, tree.getAsString());
+        assertTrue(tree.add(8));
+        assertTrue(tree.contains(8));
+        assertTrue(tree.isBalanced());
+    }
+
+    @Test
+    public void testFloorAndCeiling() {
+        TwoThreeTree<Integer> tree = new TwoThreeTree<>();
+        for (int i = 10; i <= 100; i += 10) {
+            tree.insert(i);
+        }
+
+        assertNull(tree.floor(5));
+        assertEquals(Integer.valueOf(10), tree.floor(10));
+        assertEquals(Integer.valueOf(40), tree.floor(45));
+        assertEquals(Integer.valueOf(100), tree.floor(1000));
+        assertEquals(Integer.valueOf(10), tree.ceiling(5));
+        assertEquals(Integer.valueOf(50), tree.ceiling(41));
+        assertEquals(Integer.valueOf(100), tree.ceiling(100));
+        assertNull(tree.ceiling(101));
+    }
+
+    @Test
+    public void testDeleteFromLeafAndInnerNodes() {
+        TwoThreeTree<Integer> tree = new TwoThreeTree<>();
+        tree.insert(13);
+        tree.insert(42);
+        tree.insert(69);
+
+        assertTrue(tree.delete(42));
+        assertEquals("13 69", tree.getAsString());
+        assertFalse(tree.delete(42));
+        assertTrue(tree.delete(13));
+        assertTrue(tree.delete(69));
+        assertEquals("", tree.getAsString());
+        assertFalse(tree.contains(69));
+    }
+
+    @Test
+    public void testRandomOperationsMatchTreeSet() {
+        Random random = new Random(19);
+        TwoThreeTree<Integer> tree = new TwoThreeTree<>();
+        TreeSet<Integer> expected = new TreeSet<>();
+
+        for (int i = 0; i < 40_000; i++) {
+            int key = random.nextInt(3_000);
+            int dice = random.nextInt(4);
+            if (dice == 0) {
+                if (expected.add(key)) {
+                    tree.insert(key);
+                }
+            } else if (dice == 1) {
+                assertEquals(expected.remove(key), tree.delete(key));
+            } else if (dice == 2) {
+                assertEquals(expected.contains(key), tree.contains(key));
+            } else {
+                assertEquals(expected.floor(key), tree.floor(key));
+                assertEquals(expected.ceiling(key), tree.ceiling(key));
+            }
+            if (i % 500 == 0) {
+                assertTrue(tree.isBalanced());
+            }
+        }
+
+        assertTrue(tree.isBalanced());
+        List<Integer> keys = new ArrayList<>();
+        tree.eachInOrder(keys::add);
+        assertEquals(new ArrayList<>(expected), keys);
+    }
+
+    @Test
+    public void testDeleteWithDuplicates() {
+        TwoThreeTree<Integer> tree = new TwoThreeTree<>();
+        int[] arr = {5494, 1937, 6209, 707, 1593, 2002, 2736, 8168, 6541, 6209, 6254, 7037, 8168};
+        for (int key : arr) {
+            tree.insert(key);
+        }
+
+        assertTrue(tree.delete(6209));
+        assertTrue(tree.contains(6209));
+        assertTrue(tree.delete(6209));
+        assertFalse(tree.contains(6209));
+        assertTrue(tree.isBalanced());
+    }
+
+    @Test
+    public void testBulkLoadFullNodes() {
+        List<Integer> keys = List.of(1, 2, 3, 4, 5, 6, 7, 8);
+
+        TwoThreeTree<Integer> tree = TwoThreeTree.bulkLoad(keys.iterator());
+
+        String expected = String.join(System.lineSeparator(), "3 6", "1 2", "4 5", "7 8");
+        assertEquals(expected, tree.getAsString());
+    }
+
+    @Test
+    public void testBulkLoadHalfFullNodes() {
+        List<Integer> keys = List.of(1, 2, 3, 4, 5, 6, 7);
+
+        TwoThreeTree<Integer> tree = TwoThreeTree.bulkLoad(keys.iterator(), 0.5);
+
+        String expected = String.join(" " + System.lineSeparator(), "4", "2", "1", "3", "6", "5", "7");
+        assertEquals(expected, tree.getAsString());
+    }
+
+    @Test
+    public void testBulkLoadEveryFillAndSize() {
+        double[] fills = {0.1, 0.5, 0.75, 0.9, 1.0};
+        for (double fill : fills) {
+            for (int n = 0; n < 300; n++) {
+                List<Integer> keys = new ArrayList<>();
+                for (int i = 0; i < n; i++) {
+                    keys.add(i * 3);
+                }
+
+                TwoThreeTree<Integer> tree = TwoThreeTree.bulkLoad(keys.iterator(), fill);
+
+                assertTrue(tree.isBalanced());
+                List<Integer> actual = new ArrayList<>();
+                tree.eachInOrder(actual::add);
+                assertEquals(keys, actual);
+            }
+        }
+    }
+
+    @Test
+    public void testBulkLoadThenUpdate() {
+        List<Integer> keys = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            keys.add(i * 2);
+        }
+        TwoThreeTree<Integer> tree = TwoThreeTree.bulkLoad(keys.iterator(), 0.75);
+        TreeSet<Integer> expected = new TreeSet<>(keys);
+        Random random = new Random(67);
+
+        for (int i = 0; i < 10_000; i++) {
+            int key = random.nextInt(10_000);
+            if (random.nextBoolean()) {
+                if (expected.add(key)) {
+                    tree.insert(key);
+                }
+            } else {
+                assertEquals(expected.remove(key), tree.delete(key));
+            }
+        }
+
+        assertTrue(tree.isBalanced());
+        List<Integer> actual = new ArrayList<>();
+        tree.eachInOrder(actual::add);
+        assertEquals(new ArrayList<>(expected), actual);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBulkLoadUnsortedKeys() {
+        TwoThreeTree.bulkLoad(List.of(2, 1).iterator());
+    }
+}
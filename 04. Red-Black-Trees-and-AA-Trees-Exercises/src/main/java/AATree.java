@@ -1,3 +1,9 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
 import java.util.function.Consumer;
 
 class AATree<T extends Comparable<T>> {
@@ -18,6 +24,44 @@ class AATree<T extends Comparable<T>> {
     public AATree() {
     }
 
+    /**
+     * Builds a tree from the next n strictly increasing elements in O(n). The levels are
+     * those of a 2-3 tree with all leaves at level 1, a 3-node becoming a node with a
+     * right child on the same level.
+     */
+    public static <T extends Comparable<T>> AATree<T> fromSorted(Iterator<? extends T> elements, int n) {
+        if (n < 0) {
+            throw new IllegalArgumentException();
+        }
+
+        AATree<T> tree = new AATree<>();
+        if (n > 0) {
+            tree.root = build(new SortedElements<>(elements), n, 31 - Integer.numberOfLeadingZeros(n + 1));
+        }
+        return tree;
+    }
+
+    /**
+     * Rebuilds a tree from a snapshot written by {@link #writeSnapshot} in O(n).
+     */
+    public static <T extends Comparable<T>> AATree<T> readSnapshot(InputStream in, KeyCodec<T> codec) throws IOException {
+        SnapshotReader<T> reader = new SnapshotReader<>(in, codec);
+        try {
+            return fromSorted(reader, reader.count());
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Writes the elements in order as a binary snapshot; see {@link SnapshotWriter}.
+     */
+    public void writeSnapshot(OutputStream out, KeyCodec<T> codec, boolean compress) throws IOException {
+        SnapshotWriter<T> writer = new SnapshotWriter<>(out, codec, countNodes(), compress);
+        writeInOrder(root, writer);
+        writer.finish();
+    }
+
     public boolean isEmpty() {
         return root == null;
     }
@@ -47,6 +91,68 @@ class AATree<T extends Comparable<T>> {
         return node;
     }
 
+    /**
+     * Removes element if present. A node with children takes the key of its neighbour in
+     * order, which sits on level 1, so the removal always ends at a leaf. On the way back
+     * up every node drops to one level above its lower child, and the skews and splits
+     * of Andersson's delete restore the horizontal links.
+     */
+    public void delete(T element) {
+        root = delete(root, element);
+    }
+
+    private Node<T> delete(Node<T> node, T element) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = element.compareTo(node.element);
+        if (cmp < 0) {
+            node.left = delete(node.left, element);
+        } else if (cmp > 0) {
+            node.right = delete(node.right, element);
+        } else if (node.left == null && node.right == null) {
+            return null;
+        } else if (node.left == null) {
+            Node<T> successor = node.right;
+            while (successor.left != null) {
+                successor = successor.left;
+            }
+            node.element = successor.element;
+            node.right = delete(node.right, successor.element);
+        } else {
+            Node<T> predecessor = node.left;
+            while (predecessor.right != null) {
+                predecessor = predecessor.right;
+            }
+            node.element = predecessor.element;
+            node.left = delete(node.left, predecessor.element);
+        }
+
+        decreaseLevel(node);
+        node = skew(node);
+        node.right = skew(node.right);
+        if (node.right != null) {
+            node.right.right = skew(node.right.right);
+        }
+        node = split(node);
+        node.right = split(node.right);
+        return node;
+    }
+
+    private void decreaseLevel(Node<T> node) {
+        int level = Math.min(level(node.left), level(node.right)) + 1;
+        if (level < node.level) {
+            node.level = level;
+            if (node.right != null && level < node.right.level) {
+                node.right.level = level;
+            }
+        }
+    }
+
+    private static int level(Node<?> node) {
+        return node == null ? 0 : node.level;
+    }
+
     private Node<T> skew(Node<T> node) {
         if (node == null) {
             return null;
@@ -85,6 +191,88 @@ class AATree<T extends Comparable<T>> {
         return temp;
     }
 
+    // count elements into a subtree whose root is on the given level; see fromSorted
+    private static <T extends Comparable<T>> Node<T> build(SortedElements<T> elements, int count, int level) {
+        if (level == 1) {
+            Node<T> leaf = new Node<>(elements.next());
+            if (count == 2) {
+                leaf.right = new Node<>(elements.next());
+            }
+            return leaf;
+        }
+
+        if (count - 1 <= 2 * maxElements(level - 1)) {
+            int leftCount = (count - 1) / 2;
+            Node<T> left = build(elements, leftCount, level - 1);
+            Node<T> node = new Node<>(elements.next());
+            node.level = level;
+            node.left = left;
+            node.right = build(elements, count - 1 - leftCount, level - 1);
+            return node;
+        }
+
+        int third = (count - 2) / 3;
+        int remainder = (count - 2) % 3;
+        Node<T> left = build(elements, third + (remainder > 0 ? 1 : 0), level - 1);
+        Node<T> node = new Node<>(elements.next());
+        Node<T> middle = build(elements, third + (remainder > 1 ? 1 : 0), level - 1);
+        Node<T> horizontal = new Node<>(elements.next());
+        horizontal.level = level;
+        horizontal.left = middle;
+        horizontal.right = build(elements, third, level - 1);
+
+        node.level = level;
+        node.left = left;
+        node.right = horizontal;
+        return node;
+    }
+
+    // elements in a tree of the given level where every node has a horizontal right child
+    private static long maxElements(int level) {
+        long max = 1;
+        for (int i = 0; i < level; i++) {
+            max *= 3;
+        }
+        return max - 1;
+    }
+
+    private static <T> void writeInOrder(Node<T> node, SnapshotWriter<T> writer) throws IOException {
+        if (node != null) {
+            writeInOrder(node.left, writer);
+            writer.write(node.element);
+            writeInOrder(node.right, writer);
+        }
+    }
+
+    /**
+     * Checks the AA invariants: leaves are on level 1, a left child is one level below its
+     * parent, a right child is on the parent's level or one below, and no two horizontal
+     * links follow each other.
+     */
+    boolean isBalanced() {
+        return isBalanced(root);
+    }
+
+    private static <T> boolean isBalanced(Node<T> node) {
+        if (node == null) {
+            return true;
+        }
+        if (node.left == null && node.right == null && node.level != 1) {
+            return false;
+        }
+        if (level(node.left) != node.level - 1) {
+            return false;
+        }
+        int right = level(node.right);
+        if (right != node.level && right != node.level - 1) {
+            return false;
+        }
+        if (node.right != null && level(node.right.right) == node.level) {
+            return false;
+        }
+        return isBalanced(node.left) && isBalanced(node.right);
+    }
+
     public int countNodes() {
         return countNodes(root);
     }
@@ -105,20 +293,17 @@ class AATree<T extends Comparable<T>> {
     }
 
     private boolean search(Node<T> node, T element) {
-        boolean found = false;
-        while (node != null && !found) {
+        while (node != null) {
             int cmp = element.compareTo(node.element);
             if (cmp < 0) {
                 node = node.left;
             } else if (cmp > 0) {
                 node = node.right;
             } else {
-                found = true;
-                break;
+                return true;
             }
-            found = search(node, element);
         }
-        return found;
+        return false;
     }
 
     public void inOrder(Consumer<T> consumer) {
@@ -156,4 +341,27 @@ class AATree<T extends Comparable<T>> {
             consumer.accept(node.element);
         }
     }
-}
\ No newline at end of file
+
+    private static final class SortedElements<T extends Comparable<T>> {
+        private final Iterator<? extends T> elements;
+        private T previous;
+
+        private SortedElements(Iterator<? extends T> elements) {
+            this.elements = elements;
+        }
+
+        private T next() {
+            if (!elements.hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            T element = elements.next();
+            if (previous != null && previous.compareTo(element) >= 0) {
+                throw new IllegalArgumentException("Elements must be strictly increasing");
+            }
+
+            previous = element;
+            return element;
+        }
+    }
+}
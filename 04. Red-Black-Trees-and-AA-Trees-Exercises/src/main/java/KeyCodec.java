@@ -0,0 +1,132 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap;
+import java.util.Map;
+
+/**
+ * Encodes keys for a tree snapshot. Keys arrive in ascending order and each one is
+ * written relative to the previous key of its block (null for the first), so a codec
+ * can store a delta or a shared prefix instead of the whole key.
+ */
+public interface KeyCodec<K> {
+
+    void write(DataOutput out, K previous, K key) throws IOException;
+
+    K read(DataInput in, K previous) throws IOException;
+
+    /**
+     * Zig-zag varint deltas: dense ascending keys take one byte each.
+     */
+    static KeyCodec<Integer> integers() {
+        return new KeyCodec<>() {
+            @Override
+            public void write(DataOutput out, Integer previous, Integer key) throws IOException {
+                writeVarLong(out, previous == null ? key : (long) key - previous);
+            }
+
+            @Override
+            public Integer read(DataInput in, Integer previous) throws IOException {
+                long value = readVarLong(in);
+                return (int) (previous == null ? value : previous + value);
+            }
+        };
+    }
+
+    static KeyCodec<Long> longs() {
+        return new KeyCodec<>() {
+            @Override
+            public void write(DataOutput out, Long previous, Long key) throws IOException {
+                writeVarLong(out, previous == null ? key : key - previous);
+            }
+
+            @Override
+            public Long read(DataInput in, Long previous) throws IOException {
+                long value = readVarLong(in);
+                return previous == null ? value : previous + value;
+            }
+        };
+    }
+
+    /**
+     * Front coding: the length of the prefix shared with the previous key, then the rest in UTF-8.
+     */
+    static KeyCodec<String> strings() {
+        return new KeyCodec<>() {
+            @Override
+            public void write(DataOutput out, String previous, String key) throws IOException {
+                int shared = 0;
+                if (previous != null) {
+                    int limit = Math.min(previous.length(), key.length());
+                    while (shared < limit && previous.charAt(shared) == key.charAt(shared)) {
+                        shared++;
+                    }
+                    if (shared > 0 && Character.isHighSurrogate(key.charAt(shared - 1))) {
+                        shared--;
+                    }
+                }
+
+                byte[] suffix = key.substring(shared).getBytes(StandardCharsets.UTF_8);
+                writeVarLong(out, shared);
+                writeVarLong(out, suffix.length);
+                out.write(suffix);
+            }
+
+            @Override
+            public String read(DataInput in, String previous) throws IOException {
+                int shared = (int) readVarLong(in);
+                byte[] suffix = new byte[(int) readVarLong(in)];
+                in.readFully(suffix);
+
+                String rest = new String(suffix, StandardCharsets.UTF_8);
+                return shared == 0 ? rest : previous.substring(0, shared) + rest;
+            }
+        };
+    }
+
+    /**
+     * Entries for map-like trees: the key through keys, the value through values.
+     */
+    static <K, V> KeyCodec<Map.Entry<K, V>> entries(KeyCodec<K> keys, KeyCodec<V> values) {
+        return new KeyCodec<>() {
+            @Override
+            public void write(DataOutput out, Map.Entry<K, V> previous, Map.Entry<K, V> entry) throws IOException {
+                keys.write(out, previous == null ? null : previous.getKey(), entry.getKey());
+                values.write(out, previous == null ? null : previous.getValue(), entry.getValue());
+            }
+
+            @Override
+            public Map.Entry<K, V> read(DataInput in, Map.Entry<K, V> previous) throws IOException {
+                K key = keys.read(in, previous == null ? null : previous.getKey());
+                V value = values.read(in, previous == null ? null : previous.getValue());
+                return new AbstractMap.SimpleImmutableEntry<>(key, value);
+            }
+        };
+    }
+
+    private static void writeVarLong(DataOutput out, long value) throws IOException {
+        long zigZag = (value << 1) ^ (value >> 63);
+        while ((zigZag & ~0x7FL) != 0) {
+            out.writeByte((int) (zigZag & 0x7F) | 0x80);
+            zigZag >>>= 7;
+        }
+        out.writeByte((int) zigZag);
+    }
+
+    private static long readVarLong(DataInput in) throws IOException {
+        long zigZag = 0;
+        int shift = 0;
+        byte b;
+        do {
+            if (shift > 63) {
+                throw new IOException("malformed varint");
+            }
+            b = in.readByte();
+            zigZag |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+
+        return (zigZag >>> 1) ^ -(zigZag & 1);
+    }
+}
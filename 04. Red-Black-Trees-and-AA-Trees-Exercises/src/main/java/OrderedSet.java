@@ -0,0 +1,22 @@
+import java.util.function.Consumer;
+
+/**
+ * The operations every ordered set in this project can be driven through, so that the
+ * same workload can run against any of them. Inserting a present key and deleting a
+ * missing one change nothing. {@link OrderedSets} adapts the individual trees.
+ */
+public interface OrderedSet<T extends Comparable<T>> {
+
+    void insert(T item);
+
+    boolean contains(T item);
+
+    void delete(T item);
+
+    /**
+     * Returns the number of keys; O(n) for trees that do not keep a count.
+     */
+    int size();
+
+    void eachInOrder(Consumer<T> consumer);
+}
@@ -0,0 +1,128 @@
+import java.util.NavigableSet;
+import java.util.function.Consumer;
+
+/**
+ * {@link OrderedSet} views of the trees in this module and of any {@link NavigableSet},
+ * the latter as a baseline. The views write through to the wrapped structure.
+ */
+public final class OrderedSets {
+
+    private OrderedSets() {
+    }
+
+    public static <T extends Comparable<T>> OrderedSet<T> of(AATree<T> tree) {
+        return new AASet<>(tree);
+    }
+
+    /**
+     * Keys are stored with the value {@code Boolean.TRUE}.
+     */
+    public static <T extends Comparable<T>> OrderedSet<T> of(RedBlackTree<T, Boolean> tree) {
+        return new RedBlackSet<>(tree);
+    }
+
+    public static <T extends Comparable<T>> OrderedSet<T> of(NavigableSet<T> set) {
+        return new JdkSet<>(set);
+    }
+
+    private static final class AASet<T extends Comparable<T>> implements OrderedSet<T> {
+        private final AATree<T> tree;
+
+        private AASet(AATree<T> tree) {
+            this.tree = tree;
+        }
+
+        @Override
+        public void insert(T item) {
+            this.tree.insert(item);
+        }
+
+        @Override
+        public boolean contains(T item) {
+            return this.tree.search(item);
+        }
+
+        @Override
+        public void delete(T item) {
+            this.tree.delete(item);
+        }
+
+        @Override
+        public int size() {
+            return this.tree.countNodes();
+        }
+
+        @Override
+        public void eachInOrder(Consumer<T> consumer) {
+            this.tree.inOrder(consumer);
+        }
+    }
+
+    private static final class RedBlackSet<T extends Comparable<T>> implements OrderedSet<T> {
+        private final RedBlackTree<T, Boolean> tree;
+
+        private RedBlackSet(RedBlackTree<T, Boolean> tree) {
+            this.tree = tree;
+        }
+
+        @Override
+        public void insert(T item) {
+            this.tree.put(item, Boolean.TRUE);
+        }
+
+        @Override
+        public boolean contains(T item) {
+            return this.tree.contains(item);
+        }
+
+        @Override
+        public void delete(T item) {
+            this.tree.delete(item);
+        }
+
+        @Override
+        public int size() {
+            return this.tree.size();
+        }
+
+        @Override
+        public void eachInOrder(Consumer<T> consumer) {
+            if (!this.tree.isEmpty()) {
+                this.tree.keys().forEach(consumer);
+            }
+        }
+    }
+
+    private static final class JdkSet<T extends Comparable<T>> implements OrderedSet<T> {
+        private final NavigableSet<T> set;
+
+        private JdkSet(NavigableSet<T> set) {
+            this.set = set;
+        }
+
+        @Override
+        public void insert(T item) {
+            this.set.add(item);
+        }
+
+        @Override
+        public boolean contains(T item) {
+            return this.set.contains(item);
+        }
+
+        @Override
+        public void delete(T item) {
+            this.set.remove(item);
+        }
+
+        @Override
+        public int size() {
+            return this.set.size();
+        }
+
+        @Override
+        public void eachInOrder(Consumer<T> consumer) {
+            this.set.forEach(consumer);
+        }
+    }
+}
@@ -1,5 +1,12 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.AbstractMap;
 import java.util.ArrayDeque;
 import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
 import java.util.NoSuchElementException;
 
 public class RedBlackTree<Key extends Comparable<Key>, Value> {
@@ -28,6 +35,46 @@ public class RedBlackTree<Key extends Comparable<Key>, Value> {
     public RedBlackTree() {
     }
 
+    /**
+     * Builds a tree from the next n entries with strictly increasing keys in O(n).
+     * The shape is a 2-3 tree with all leaves on one level, a 3-node becoming a black
+     * node with a red left child.
+     */
+    public static <Key extends Comparable<Key>, Value> RedBlackTree<Key, Value> fromSorted(
+            Iterator<? extends Map.Entry<Key, Value>> entries, int n) {
+        if (n < 0)
+            throw new IllegalArgumentException();
+
+        RedBlackTree<Key, Value> tree = new RedBlackTree<>();
+        if (n > 0)
+            tree.root = tree.build(new SortedEntries<>(entries), n, 31 - Integer.numberOfLeadingZeros(n + 1));
+        return tree;
+    }
+
+    /**
+     * Rebuilds a tree from a snapshot written by {@link #writeSnapshot} in O(n).
+     */
+    public static <Key extends Comparable<Key>, Value> RedBlackTree<Key, Value> readSnapshot(
+            InputStream in, KeyCodec<Key> keys, KeyCodec<Value> values) throws IOException {
+        SnapshotReader<Map.Entry<Key, Value>> reader = new SnapshotReader<>(in, KeyCodec.entries(keys, values));
+        try {
+            return fromSorted(reader, reader.count());
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Writes the key-value pairs in key order as a binary snapshot; see {@link SnapshotWriter}.
+     */
+    public void writeSnapshot(OutputStream out, KeyCodec<Key> keys, KeyCodec<Value> values, boolean compress)
+            throws IOException {
+        SnapshotWriter<Map.Entry<Key, Value>> writer =
+                new SnapshotWriter<>(out, KeyCodec.entries(keys, values), size(), compress);
+        writeInOrder(this.root, writer);
+        writer.finish();
+    }
+
     // is node x red; false if x is null ?
     private boolean isRed(Node current) {
         return current != null && current.color == RED;
@@ -100,12 +147,12 @@ public class RedBlackTree<Key extends Comparable<Key>, Value> {
         else
             current.val = val;
 
-        // rotation
+        // rotation; each step can set up the next, so all three are checked in turn
         if (isRed(current.right) && !isRed(current.left))
             current = rotateLeft(current);
-        else if (isRed(current.left) && isRed(current.left.left))
+        if (isRed(current.left) && isRed(current.left.left))
             current = rotateRight(current);
-        else if (isRed(current.left) && isRed(current.right))
+        if (isRed(current.left) && isRed(current.right))
             flipColors(current);
 
         current.size = size(current.left) + size(current.right) + 1;
@@ -277,6 +324,56 @@ public class RedBlackTree<Key extends Comparable<Key>, Value> {
         return current;
     }
 
+    // count entries into a subtree with the given black height; see fromSorted
+    private Node build(SortedEntries<Key, Value> entries, int count, int blackHeight) {
+        if (blackHeight == 1) {
+            if (count == 1)
+                return node(entries.next(), BLACK, null, null);
+
+            Node left = node(entries.next(), RED, null, null);
+            return node(entries.next(), BLACK, left, null);
+        }
+
+        if (count - 1 <= 2 * maxEntries(blackHeight - 1)) {
+            int leftCount = (count - 1) / 2;
+            Node left = build(entries, leftCount, blackHeight - 1);
+            Map.Entry<Key, Value> entry = entries.next();
+            return node(entry, BLACK, left, build(entries, count - 1 - leftCount, blackHeight - 1));
+        }
+
+        int third = (count - 2) / 3;
+        int remainder = (count - 2) % 3;
+        Node left = build(entries, third + (remainder > 0 ? 1 : 0), blackHeight - 1);
+        Map.Entry<Key, Value> redEntry = entries.next();
+        Node middle = build(entries, third + (remainder > 1 ? 1 : 0), blackHeight - 1);
+        Node red = node(redEntry, RED, left, middle);
+        Map.Entry<Key, Value> entry = entries.next();
+        return node(entry, BLACK, red, build(entries, third, blackHeight - 1));
+    }
+
+    private Node node(Map.Entry<Key, Value> entry, boolean color, Node left, Node right) {
+        Node current = new Node(entry.getKey(), entry.getValue(), color, size(left) + size(right) + 1);
+        current.left = left;
+        current.right = right;
+        return current;
+    }
+
+    // entries in a tree of the given black height where every black node has a red child
+    private static long maxEntries(int blackHeight) {
+        long max = 1;
+        for (int i = 0; i < blackHeight; i++)
+            max *= 3;
+        return max - 1;
+    }
+
+    private void writeInOrder(Node current, SnapshotWriter<Map.Entry<Key, Value>> writer) throws IOException {
+        if (current != null) {
+            writeInOrder(current.left, writer);
+            writer.write(new AbstractMap.SimpleImmutableEntry<>(current.key, current.val));
+            writeInOrder(current.right, writer);
+        }
+    }
+
     public int height() {
         return height(this.root);
     }
@@ -384,13 +481,13 @@ public class RedBlackTree<Key extends Comparable<Key>, Value> {
     }
 
     // add the keys between lo and hi in the subtree rooted at x
-    // to the queue
+    // to the queue, in order
     private void keys(Node current, Deque<Key> queue, Key lo, Key hi) {
         if (current != null){
-            if (lo.compareTo(current.key) <= 0 && hi.compareTo(current.key) >= 0)
-                queue.offer(current.key);
             if (lo.compareTo(current.key) < 0)
                 keys(current.left, queue, lo, hi);
+            if (lo.compareTo(current.key) <= 0 && hi.compareTo(current.key) >= 0)
+                queue.offer(current.key);
             if (hi.compareTo(current.key) > 0)
                 keys(current.right, queue, lo, hi);
         }
@@ -478,4 +575,25 @@ public class RedBlackTree<Key extends Comparable<Key>, Value> {
             this.inOrderPrint(output, indent + "   ", current.left, include);
 
     }
-}
\ No newline at end of file
+
+    private static final class SortedEntries<Key extends Comparable<Key>, Value> {
+        private final Iterator<? extends Map.Entry<Key, Value>> entries;
+        private Key previous;
+
+        private SortedEntries(Iterator<? extends Map.Entry<Key, Value>> entries) {
+            this.entries = entries;
+        }
+
+        private Map.Entry<Key, Value> next() {
+            if (!this.entries.hasNext())
+                throw new NoSuchElementException();
+
+            Map.Entry<Key, Value> entry = this.entries.next();
+            if (this.previous != null && this.previous.compareTo(entry.getKey()) >= 0)
+                throw new IllegalArgumentException("Keys must be strictly increasing");
+
+            this.previous = entry.getKey();
+            return entry;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Iterates the keys of a snapshot written by {@link SnapshotWriter}, one block in memory
+ * at a time. The key count is known up front, so trees can be rebuilt in O(n) with their
+ * fromSorted builders. Read errors surface from next() as UncheckedIOException. The
+ * terminator is checked, and the inflater released, as soon as the last key has been
+ * read, or in the constructor when there are none; a failed read releases it too.
+ */
+public class SnapshotReader<K> implements Iterator<K> {
+
+    private final DataInputStream in;
+    private final KeyCodec<K> codec;
+    private final int count;
+    private final Inflater inflater;
+
+    private byte[] raw;
+    private byte[] compressed;
+    private DataInputStream block;
+    private int blockKeys;
+    private int read;
+    private K previous;
+
+    public SnapshotReader(InputStream in, KeyCodec<K> codec) throws IOException {
+        this.in = new DataInputStream(new BufferedInputStream(in, 1 << 16));
+        this.codec = codec;
+
+        if (this.in.readInt() != SnapshotWriter.MAGIC) {
+            throw new IOException("Not a tree snapshot");
+        }
+        boolean compressed = (this.in.readByte() & SnapshotWriter.COMPRESSED) != 0;
+        this.count = this.in.readInt();
+        if (this.count < 0) {
+            throw new IOException("Corrupt snapshot header");
+        }
+
+        this.inflater = compressed ? new Inflater() : null;
+        this.raw = new byte[0];
+        if (this.count == 0) {
+            this.readEnd();
+        }
+    }
+
+    public int count() {
+        return this.count;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return this.read < this.count;
+    }
+
+    @Override
+    public K next() {
+        if (!this.hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        boolean failed = true;
+        try {
+            if (this.blockKeys == 0) {
+                this.readBlock();
+            }
+
+            K key = this.codec.read(this.block, this.previous);
+            this.previous = key;
+            this.blockKeys--;
+            if (++this.read == this.count) {
+                this.readEnd();
+            }
+            failed = false;
+            return key;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            if (failed) {
+                this.release();
+            }
+        }
+    }
+
+    private void readBlock() throws IOException {
+        this.blockKeys = this.in.readInt();
+        int length = this.in.readInt();
+        if (this.blockKeys <= 0 || this.blockKeys > this.count - this.read || length < 0) {
+            throw new IOException("Corrupt snapshot block");
+        }
+
+        if (this.raw.length < length) {
+            this.raw = new byte[length];
+        }
+
+        if (this.inflater == null) {
+            this.in.readFully(this.raw, 0, length);
+        } else {
+            int compressedLength = this.in.readInt();
+            if (compressedLength < 0) {
+                throw new IOException("Corrupt snapshot block");
+            }
+            if (this.compressed == null || this.compressed.length < compressedLength) {
+                this.compressed = new byte[compressedLength];
+            }
+            this.in.readFully(this.compressed, 0, compressedLength);
+
+            this.inflater.reset();
+            this.inflater.setInput(this.compressed, 0, compressedLength);
+            try {
+                if (this.inflater.inflate(this.raw, 0, length) != length || !this.inflater.finished()) {
+                    throw new IOException("Corrupt snapshot block");
+                }
+            } catch (DataFormatException e) {
+                throw new IOException(e);
+            }
+        }
+
+        this.block = new DataInputStream(new ByteArrayInputStream(this.raw, 0, length));
+        this.previous = null;
+    }
+
+    private void readEnd() throws IOException {
+        try {
+            if (this.blockKeys != 0 || this.in.readInt() != 0) {
+                throw new IOException("Corrupt snapshot terminator");
+            }
+        } finally {
+            this.release();
+        }
+    }
+
+    // Inflater.end() may be called more than once.
+    private void release() {
+        if (this.inflater != null) {
+            this.inflater.end();
+        }
+    }
+}
@@ -1,10 +1,16 @@
 import org.junit.Before;
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static org.junit.Assert.*;
 
@@ -95,4 +101,83 @@ public class AATreeTest {
 
         assertEquals(expected, actual);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void snapshotRoundTrip() throws IOException {
+        for (boolean compress : new boolean[]{false, true}) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            this.aaTree.writeSnapshot(out, KeyCodec.integers(), compress);
+            AATree<Integer> restored = AATree.readSnapshot(new ByteArrayInputStream(out.toByteArray()), KeyCodec.integers());
+
+            List<Integer> expected = new ArrayList<>();
+            this.aaTree.inOrder(expected::add);
+            List<Integer> numbers = new ArrayList<>();
+            restored.inOrder(numbers::add);
+            assertEquals(expected, numbers);
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void emptySnapshotWithoutTerminator() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new AATree<Integer>().writeSnapshot(out, KeyCodec.integers(), true);
+
+        byte[] truncated = Arrays.copyOf(out.toByteArray(), out.size() - 4);
+        AATree.readSnapshot(new ByteArrayInputStream(truncated), KeyCodec.integers());
+    }
+
+    @Test
+    public void fromSortedThenInsert() {
+        for (int n = 1; n < 300; n++) {
+            AATree<Integer> tree = AATree.fromSorted(IntStream.range(0, n).map(i -> i * 2).iterator(), n);
+            for (int i = 0; i < n; i++) {
+                tree.insert(i * 2 + 1);
+            }
+
+            List<Integer> numbers = new ArrayList<>();
+            tree.inOrder(numbers::add);
+            assertEquals(IntStream.range(0, 2 * n).boxed().collect(Collectors.toList()), numbers);
+            assertTrue(tree.search(n));
+        }
+    }
+
+    @Test
+    public void delete() {
+        this.aaTree.delete(13);
+        this.aaTree.delete(74);
+        this.aaTree.delete(100);
+
+        List<Integer> numbers = new ArrayList<>();
+        this.aaTree.inOrder(numbers::add);
+        assertEquals(List.of(1, 2, 6, 7, 18, 24, 42, 55, 56, 69, 73), numbers);
+        assertFalse(this.aaTree.search(13));
+        assertTrue(this.aaTree.isBalanced());
+    }
+
+    @Test
+    public void deleteRandom_ShouldMatchTreeSet() {
+        Random random = new Random(5);
+        AATree<Integer> tree = new AATree<>();
+        TreeSet<Integer> expected = new TreeSet<>();
+        for (int i = 0; i < 20_000; i++) {
+            int key = random.nextInt(2_000);
+            if (random.nextBoolean()) {
+                tree.insert(key);
+                expected.add(key);
+            } else {
+                tree.delete(key);
+                expected.remove(key);
+            }
+        }
+
+        List<Integer> numbers = new ArrayList<>();
+        tree.inOrder(numbers::add);
+        assertEquals(new ArrayList<>(expected), numbers);
+        assertTrue(tree.isBalanced());
+
+        for (Integer key : expected) {
+            tree.delete(key);
+        }
+        assertTrue(tree.isEmpty());
+    }
+}
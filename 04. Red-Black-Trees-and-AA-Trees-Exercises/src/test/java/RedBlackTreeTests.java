@@ -1,7 +1,11 @@
 import org.junit.Before;
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.util.Map;
+import java.util.stream.IntStream;
 
 import static org.junit.Assert.*;
 
@@ -177,8 +181,46 @@ public class RedBlackTreeTests {
 
         assertEquals(expected.size(), this.redBlackTree.size());
 
+        String previous = "";
         for (String key : this.redBlackTree.keys()) {
             assertTrue(expected.containsKey(key));
+            assertTrue(previous.compareTo(key) < 0);
+            previous = key;
+        }
+    }
+
+    @Test
+    public void snapshotRoundTrip() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        this.redBlackTree.writeSnapshot(out, KeyCodec.strings(), KeyCodec.integers(), true);
+        RedBlackTree<String, Integer> restored = RedBlackTree.readSnapshot(
+                new ByteArrayInputStream(out.toByteArray()), KeyCodec.strings(), KeyCodec.integers());
+
+        assertEquals(this.redBlackTree.size(), restored.size());
+        for (String key : this.redBlackTree.keys()) {
+            assertEquals(this.redBlackTree.get(key), restored.get(key));
+        }
+    }
+
+    @Test
+    public void fromSortedThenUpdate() {
+        for (int n = 1; n < 300; n++) {
+            RedBlackTree<Integer, Integer> tree = RedBlackTree.fromSorted(IntStream.range(0, n)
+                    .mapToObj(i -> Map.entry(i * 2, i))
+                    .iterator(), n);
+            assertEquals(n, tree.size());
+            assertTrue(tree.height() <= 2 * (31 - Integer.numberOfLeadingZeros(n + 1)));
+            assertEquals(Integer.valueOf(n / 2 * 2), tree.select(n / 2));
+
+            for (int i = 0; i < n; i++) {
+                tree.put(i * 2 + 1, -i);
+            }
+            for (int i = 0; i < n; i += 2) {
+                tree.delete(i * 2);
+            }
+            assertEquals(n + n / 2, tree.size());
+            assertEquals(Integer.valueOf(0), tree.get(1));
+            assertFalse(tree.contains(0));
         }
     }
 }
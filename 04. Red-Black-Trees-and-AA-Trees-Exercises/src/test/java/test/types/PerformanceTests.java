@@ -0,0 +1,4 @@
+package test.types;
+
+public interface PerformanceTests {
+}